@@ -0,0 +1,99 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+/**
+ * Implementation for an opponent for a double.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class DoubleOpponent implements IOpponent, IIsOpponent<DoubleOpponent> {
+    
+    private final Player playerA;
+    
+    private final Player playerB;
+    
+    public DoubleOpponent(final Player playerA, final Player playerB) {
+        // check parameters with assertions
+        assert(playerA != null);
+        assert(playerB != null);
+        
+        this.playerA = playerA;
+        this.playerB = playerB;
+    }
+    
+    /**
+     * Returns the first player of this opponent.
+     * 
+     * @return The first player.
+     */
+    public Player getPlayerA() {
+        return this.playerA;
+    }
+    
+    /**
+     * Returns the second player of this opponent.
+     * 
+     * @return The second player.
+     */
+    public Player getPlayerB() {
+        return this.playerB;
+    }
+
+    @Override
+    public boolean isMarked(IMarker marker) {
+        return marker.isPlayerMarked(this.playerA) || marker.isPlayerMarked(this.playerB);
+    }
+
+    @Override
+    public DoubleOpponent getOpponent() {
+        return this;
+    }
+
+    /**
+     * Two doubles are equal, if they consist of the same players, regardless
+     * of their order.
+     * 
+     * @param obj The other object.
+     * @return <i>True</i>, if the other object is an equal double.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof DoubleOpponent)) {
+            return false;
+        }
+        
+        final DoubleOpponent other = (DoubleOpponent) obj;
+        final int a = this.playerA.playerId;
+        final int b = this.playerB.playerId;
+        return (a == other.playerA.playerId && b == other.playerB.playerId)
+                || (a == other.playerB.playerId && b == other.playerA.playerId);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.playerA.playerId ^ this.playerB.playerId;
+    }
+    
+}
@@ -0,0 +1,56 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+/**
+ * The exact expectation model.
+ * 
+ * This model calculates the expected score on every call in double precision.
+ * It is the reference for all other expectation models.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class ExactExpectationModel implements IExpectationModel {
+    
+    /**
+     * The instance of the model.
+     */
+    public final static ExactExpectationModel INSTANCE = new ExactExpectationModel();
+    
+    @Override
+    public double getExpectation(final int pointsA, final int pointsB) {
+        return expectation(pointsB - pointsA);
+    }
+    
+    /**
+     * Calculates the expected score for the given difference of points.
+     * 
+     * @param pointDiff The points of the second opponent minus the points of
+     * the first opponent.
+     * @return The expected score.
+     */
+    static double expectation(final int pointDiff) {
+        return 1.0 / (1.0 + Math.log10((double) pointDiff / 150.0));
+    }
+}
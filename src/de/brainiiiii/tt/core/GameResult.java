@@ -25,6 +25,9 @@ package de.brainiiiii.tt.core;
 
 /**
  * Abstract result for a single game.
+ * 
+ * Game results are immutable. The opponents are set on creation only, so a 
+ * game result can be shared among threads without any copies.
  *
  * @param <O> The type of the opponent.
  * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
@@ -51,6 +54,11 @@ public abstract class GameResult<O extends IOpponent> implements IIsOpponent<O>
      */
     protected final IIsOpponent<O>[] opponents;
 
+    /**
+     * The inverted result, created on the first request.
+     */
+    private volatile GameResult<O> inverted = null;
+
     /**
      * Creates a new game result, without opponents.
      */
@@ -117,7 +125,7 @@ public abstract class GameResult<O extends IOpponent> implements IIsOpponent<O>
      * should be set.
      * @param opponent The opponent.
      */
-    public final void setOpponent(int opponentIndex, IIsOpponent<O> opponent) {
+    protected final void setOpponent(int opponentIndex, IIsOpponent<O> opponent) {
         this.opponents[opponentIndex] = opponent;
     }
 
@@ -128,8 +136,14 @@ public abstract class GameResult<O extends IOpponent> implements IIsOpponent<O>
      * should be set.
      * @param opponent The opponent.
      */
-    public final void setOpponent(int opponentIndex, O opponent) {
-        this.setOpponent(opponentIndex, new IsOpponent<>(opponent));
+    @SuppressWarnings("unchecked")
+    protected final void setOpponent(int opponentIndex, O opponent) {
+        // opponents providing themselves need no wrapper
+        if (opponent instanceof IIsOpponent && ((IIsOpponent<?>) opponent).getOpponent() == opponent) {
+            this.setOpponent(opponentIndex, (IIsOpponent<O>) opponent);
+        } else {
+            this.setOpponent(opponentIndex, new IsOpponent<>(opponent));
+        }
     }
 
     /**
@@ -139,7 +153,7 @@ public abstract class GameResult<O extends IOpponent> implements IIsOpponent<O>
      * should be set.
      * @param opponent The opponent.
      */
-    public final void setOpponent(Player opponentIndex, IIsOpponent<O> opponent) {
+    protected final void setOpponent(Player opponentIndex, IIsOpponent<O> opponent) {
         this.setOpponent(opponentIndex.ordinal(), opponent);
     }
 
@@ -150,10 +164,45 @@ public abstract class GameResult<O extends IOpponent> implements IIsOpponent<O>
      * should be set.
      * @param opponent The opponent.
      */
-    public final void setOpponent(Player opponentIndex, O opponent) {
+    protected final void setOpponent(Player opponentIndex, O opponent) {
         this.setOpponent(opponentIndex.ordinal(), opponent);
     }
 
+    /**
+     * Returns one of the opponents.
+     *
+     * @param opponentIndex The index of the opponent, selecting which opponent
+     * should be returned.
+     * @return The opponent or <i>null</i>, if the opponent is not set.
+     */
+    public final O getOpponent(int opponentIndex) {
+        final IIsOpponent<O> opponent = this.opponents[opponentIndex];
+        if (opponent == null) {
+            return null;
+        }
+        return opponent.getOpponent();
+    }
+
+    /**
+     * Returns one of the opponents.
+     *
+     * @param opponentIndex The index of the opponent, selecting which opponent
+     * should be returned.
+     * @return The opponent or <i>null</i>, if the opponent is not set.
+     */
+    public final O getOpponent(Player opponentIndex) {
+        return this.getOpponent(opponentIndex.ordinal());
+    }
+
+    /**
+     * Checks, whether any opponent is set.
+     *
+     * @return <i>True</i>, if at least one opponent is set.
+     */
+    public final boolean hasOpponents() {
+        return this.opponents[0] != null || this.opponents[1] != null;
+    }
+
     /**
      * Checks, whether the game is finished.
      * 
@@ -225,9 +274,45 @@ public abstract class GameResult<O extends IOpponent> implements IIsOpponent<O>
      * The inverted result, is the same result, just changed the opponents and
      * the result values.
      * 
+     * The inverted result is created on the first call only, and the 
+     * inverted result of the inverted result is this result, unless the 
+     * inverted result is a shared instance already linked to another 
+     * inverted result.
+     * 
+     * @return The inverted result.
+     */
+    public final GameResult<O> invertResult() {
+        GameResult<O> result = this.inverted;
+        if (result == null) {
+            result = this.createInvertedResult();
+            // never relink a shared result to a private instance
+            if (result.inverted == null) {
+                result.inverted = this;
+            }
+            this.inverted = result;
+        }
+        return result;
+    }
+
+    /**
+     * Creates the inverted result.
+     * 
+     * A shared result may only be returned by a shared result, so the 
+     * shared results are always linked to each other.
+     * 
      * @return The inverted result.
+     * @see #invertResult() 
+     */
+    protected abstract GameResult<O> createInvertedResult();
+
+    /**
+     * Returns the same result with the given opponents.
+     * 
+     * @param opponentA The first opponent.
+     * @param opponentB The second opponent.
+     * @return The result with the given opponents.
      */
-    public abstract GameResult<O> invertResult();
+    public abstract GameResult<O> withOpponents(IIsOpponent<O> opponentA, IIsOpponent<O> opponentB);
 
     /**
      * Returns the display text.
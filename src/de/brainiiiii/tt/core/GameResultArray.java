@@ -0,0 +1,208 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+import java.util.Arrays;
+
+/**
+ * A columnar store of game results.
+ * 
+ * Every game result is held as a {@link PackedGameResult} together with the 
+ * ids of both opponents, so a game result needs 16 bytes only. The meaning 
+ * of the opponent ids is up to the user of the array, usually they are the
+ * handles of an {@link OpponentRegistry}. Game result objects are created on
+ * request only.
+ * 
+ * The array is not thread safe. Concurrent reading is possible, as long as 
+ * no game results are added.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class GameResultArray {
+    
+    private long[] results;
+    
+    private int[] opponentsA;
+    
+    private int[] opponentsB;
+    
+    private int size = 0;
+    
+    /**
+     * Creates a new empty array.
+     */
+    public GameResultArray() {
+        this(16);
+    }
+    
+    /**
+     * Creates a new empty array.
+     * 
+     * @param capacity The initial capacity.
+     */
+    public GameResultArray(final int capacity) {
+        // check parameters with assertions
+        assert(capacity >= 0);
+        
+        this.results = new long[capacity];
+        this.opponentsA = new int[capacity];
+        this.opponentsB = new int[capacity];
+    }
+    
+    /**
+     * Returns the number of game results.
+     * 
+     * @return The size of the array.
+     */
+    public int size() {
+        return this.size;
+    }
+    
+    /**
+     * Adds an encoded game result.
+     * 
+     * @param packed The encoded game result.
+     * @param opponentA The id of the first opponent.
+     * @param opponentB The id of the second opponent.
+     * @return The index of the game result.
+     */
+    public int add(final long packed, final int opponentA, final int opponentB) {
+        if (this.size == this.results.length) {
+            final int capacity = Math.max(16, this.size + (this.size >> 1));
+            this.results = Arrays.copyOf(this.results, capacity);
+            this.opponentsA = Arrays.copyOf(this.opponentsA, capacity);
+            this.opponentsB = Arrays.copyOf(this.opponentsB, capacity);
+        }
+        
+        this.results[this.size] = packed;
+        this.opponentsA[this.size] = opponentA;
+        this.opponentsB[this.size] = opponentB;
+        return this.size++;
+    }
+    
+    /**
+     * Adds a game result.
+     * 
+     * @param result The game result.
+     * @param opponentA The id of the first opponent.
+     * @param opponentB The id of the second opponent.
+     * @return The index of the game result.
+     */
+    public int add(final GameResult<?> result, final int opponentA, final int opponentB) {
+        return this.add(PackedGameResult.pack(result), opponentA, opponentB);
+    }
+    
+    /**
+     * Returns an encoded game result.
+     * 
+     * @param index The index of the game result.
+     * @return The encoded game result.
+     */
+    public long getPacked(final int index) {
+        // check parameters with assertions
+        assert(index >= 0 && index < this.size);
+        
+        return this.results[index];
+    }
+    
+    /**
+     * Returns the id of the first opponent of a game result.
+     * 
+     * @param index The index of the game result.
+     * @return The id of the opponent.
+     */
+    public int getOpponentA(final int index) {
+        // check parameters with assertions
+        assert(index >= 0 && index < this.size);
+        
+        return this.opponentsA[index];
+    }
+    
+    /**
+     * Returns the id of the second opponent of a game result.
+     * 
+     * @param index The index of the game result.
+     * @return The id of the opponent.
+     */
+    public int getOpponentB(final int index) {
+        // check parameters with assertions
+        assert(index >= 0 && index < this.size);
+        
+        return this.opponentsB[index];
+    }
+    
+    /**
+     * Creates the game result object of a game result without opponents.
+     * 
+     * @param <O> The type of the opponents.
+     * @param index The index of the game result.
+     * @return The game result.
+     */
+    public <O extends IOpponent> GameResult<O> getGameResult(final int index) {
+        return PackedGameResult.toGameResult(this.getPacked(index));
+    }
+    
+    /**
+     * Creates the game result object of a game result with the given 
+     * opponents.
+     * 
+     * @param <O> The type of the opponents.
+     * @param index The index of the game result.
+     * @param opponentA The first opponent.
+     * @param opponentB The second opponent.
+     * @return The game result.
+     */
+    public <O extends IOpponent> GameResult<O> getGameResult(final int index, final IIsOpponent<O> opponentA, final IIsOpponent<O> opponentB) {
+        return this.<O>getGameResult(index).withOpponents(opponentA, opponentB);
+    }
+    
+    /**
+     * Creates the game result object of a game result with the opponents
+     * referenced by their handles within the given registry.
+     * 
+     * @param <O> The type of the opponents.
+     * @param index The index of the game result.
+     * @param registry The registry of the opponents.
+     * @return The game result.
+     */
+    public <O extends IOpponent> GameResult<O> getGameResult(final int index, final OpponentRegistry<O> registry) {
+        return this.getGameResult(index, registry.getReference(this.getOpponentA(index)), registry.getReference(this.getOpponentB(index)));
+    }
+    
+    /**
+     * Removes all game results.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+    
+    /**
+     * Reduces the capacity of the array to its size.
+     */
+    public void trimToSize() {
+        this.results = Arrays.copyOf(this.results, this.size);
+        this.opponentsA = Arrays.copyOf(this.opponentsA, this.size);
+        this.opponentsB = Arrays.copyOf(this.opponentsB, this.size);
+    }
+}
@@ -23,6 +23,8 @@
  */
 package de.brainiiiii.tt.core;
 
+import java.nio.ByteBuffer;
+
 /**
  * Factory for creating game results from string representations.
  * 
@@ -54,6 +56,44 @@ public abstract class GameResultFactory {
      */
     public abstract <O extends IOpponent> GameResult<O> factory(final String str);
     
+    /**
+     * Returns the game result according to the given character sequence.
+     * 
+     * @param <O> The type of opponents for this game result.
+     * @param str The character sequence to parse.
+     * @return The resulting game result or null, if the given sequence does 
+     * not contain any valide game result information.
+     * @see GameResultParser
+     */
+    public abstract <O extends IOpponent> GameResult<O> factory(final CharSequence str);
+    
+    /**
+     * Returns the game result according to the given ASCII or UTF-8 bytes.
+     * 
+     * @param <O> The type of opponents for this game result.
+     * @param bytes The bytes to parse.
+     * @param offset The index of the first byte.
+     * @param length The number of bytes.
+     * @return The resulting game result or null, if the given bytes do not
+     * contain any valide game result information.
+     * @see GameResultParser
+     */
+    public abstract <O extends IOpponent> GameResult<O> factory(final byte[] bytes, final int offset, final int length);
+    
+    /**
+     * Returns the game result according to the remaining bytes of the given 
+     * buffer.
+     * 
+     * The position of the buffer is not changed.
+     * 
+     * @param <O> The type of opponents for this game result.
+     * @param buffer The buffer to parse.
+     * @return The resulting game result or null, if the given bytes do not
+     * contain any valide game result information.
+     * @see GameResultParser
+     */
+    public abstract <O extends IOpponent> GameResult<O> factory(final ByteBuffer buffer);
+    
     
     /**
      * Returns the game result according to the given string.
@@ -69,29 +109,50 @@ public abstract class GameResultFactory {
      */
     public <O extends IOpponent> GameResult<O> factory(final String str, IIsOpponent<O> opponentA, IIsOpponent<O> opponentB) {
         final GameResult<O> result = this.factory(str);
+        if (result == null) {
+            return null;
+        }
         
-        result.setOpponent(GameResult.Player.PLAYER_A, opponentA);
-        result.setOpponent(GameResult.Player.PLAYER_B, opponentB);
-        
-        return result;
+        return result.withOpponents(opponentA, opponentB);
     }
 }
 
 class GameResultFactoryImpl extends GameResultFactory {
     
+    /**
+     * The parsers of all threads using the factory.
+     */
+    private final ThreadLocal<GameResultParser> parsers = new ThreadLocal<GameResultParser>() {
+
+        @Override
+        protected GameResultParser initialValue() {
+            return new GameResultParser();
+        }
+    };
+    
     @Override
     public <O extends IOpponent> GameResult<O> factory(final String str) {
-        final byte[] byteCode = str.getBytes();
-        if (byteCode[0] == '+') {
-            final WinnerGameResult<O> result = new WinnerGameResult<>();
-            result.setWinner(GameResult.Player.PLAYER_A);
-            return result;
-        } else if (byteCode[0] == '-') {
-            final WinnerGameResult<O> result = new WinnerGameResult<>();
-            result.setWinner(GameResult.Player.PLAYER_B);
-            return result;
-        }
-        
-        return null;
+        return this.factory((CharSequence) str);
+    }
+    
+    @Override
+    public <O extends IOpponent> GameResult<O> factory(final CharSequence str) {
+        final GameResultParser parser = this.parsers.get();
+        parser.parse(str);
+        return parser.toGameResult();
+    }
+    
+    @Override
+    public <O extends IOpponent> GameResult<O> factory(final byte[] bytes, final int offset, final int length) {
+        final GameResultParser parser = this.parsers.get();
+        parser.parse(bytes, offset, length);
+        return parser.toGameResult();
+    }
+    
+    @Override
+    public <O extends IOpponent> GameResult<O> factory(final ByteBuffer buffer) {
+        final GameResultParser parser = this.parsers.get();
+        parser.parse(buffer);
+        return parser.toGameResult();
     }
 }
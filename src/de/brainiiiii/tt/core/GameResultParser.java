@@ -0,0 +1,437 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Parser for the text representations of game results.
+ * 
+ * The parser reads the text directly from a character sequence, a byte array
+ * or a byte buffer and keeps the parsed values within the parser. A game 
+ * result object is only created, when it is requested by 
+ * {@link #toGameResult()}, and results without set points are shared 
+ * instances. The parser can be reused for any number of texts,
+ * but must not be shared among threads.
+ * 
+ * The following notations are understood:
+ * <ul>
+ * <li>"+" and "-" for a game won by the first or second opponent,</li>
+ * <li>"+w.o." and "-w.o." for a walkover won by the first or second 
+ * opponent,</li>
+ * <li>"3:1" for the numbers of sets won by both opponents and</li>
+ * <li>"11:9 8:11 11:7 11:5" for the points of every set, separated by spaces,
+ * commas or semicolons.</li>
+ * </ul>
+ * A single pair of numbers not greater than {@link #MAX_SET_COUNT} is read as
+ * numbers of sets. Only finished sets are understood, as defined by 
+ * {@link PackedGameResult#isValidSet(int, int)}, so every valid result can 
+ * be encoded; the score of a running match is given by its numbers of sets.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class GameResultParser {
+    
+    /**
+     * The maximum number of sets of a game.
+     */
+    public final static int MAX_SETS = 7;
+    
+    /**
+     * The maximum number of sets won by an opponent.
+     */
+    public final static int MAX_SET_COUNT = 4;
+    
+    /**
+     * The maximum number of digits of a number.
+     */
+    private final static int MAX_DIGITS = 3;
+    
+    /**
+     * The sources of the text, only one of them is set while parsing.
+     */
+    private CharSequence chars = null;
+    
+    private byte[] bytes = null;
+    
+    private ByteBuffer buffer = null;
+    
+    private boolean valid = false;
+    
+    private GameResult.Player winner = null;
+    
+    private boolean walkover = false;
+    
+    private boolean sets = false;
+    
+    private int setsA = 0;
+    
+    private int setsB = 0;
+    
+    private int setCount = 0;
+    
+    private final int[] pointsA = new int[MAX_SETS];
+    
+    private final int[] pointsB = new int[MAX_SETS];
+    
+    /**
+     * Parses a text.
+     * 
+     * @param str The text.
+     * @return <i>True</i>, if the text contains a valid game result.
+     */
+    public boolean parse(final CharSequence str) {
+        return this.parse(str, 0, str.length());
+    }
+    
+    /**
+     * Parses a part of a text.
+     * 
+     * @param str The text.
+     * @param start The index of the first character to parse.
+     * @param end The index after the last character to parse.
+     * @return <i>True</i>, if the text contains a valid game result.
+     */
+    public boolean parse(final CharSequence str, final int start, final int end) {
+        this.chars = str;
+        try {
+            return this.parse(start, end);
+        } finally {
+            this.chars = null;
+        }
+    }
+    
+    /**
+     * Parses a text given as ASCII or UTF-8 bytes.
+     * 
+     * @param bytes The bytes.
+     * @param offset The index of the first byte to parse.
+     * @param length The number of bytes to parse.
+     * @return <i>True</i>, if the bytes contain a valid game result.
+     */
+    public boolean parse(final byte[] bytes, final int offset, final int length) {
+        this.bytes = bytes;
+        try {
+            return this.parse(offset, offset + length);
+        } finally {
+            this.bytes = null;
+        }
+    }
+    
+    /**
+     * Parses the remaining bytes of a buffer as ASCII or UTF-8 text.
+     * 
+     * The position of the buffer is not changed.
+     * 
+     * @param buffer The buffer.
+     * @return <i>True</i>, if the bytes contain a valid game result.
+     */
+    public boolean parse(final ByteBuffer buffer) {
+        this.buffer = buffer;
+        try {
+            return this.parse(buffer.position(), buffer.limit());
+        } finally {
+            this.buffer = null;
+        }
+    }
+    
+    /**
+     * Returns, whether the last text contained a valid game result.
+     * 
+     * @return <i>True</i>, if the last text was valid.
+     */
+    public boolean isValid() {
+        return this.valid;
+    }
+    
+    /**
+     * Returns the winner of the last game result.
+     * 
+     * @return The winner or <i>null</i>, if the game has no winner.
+     */
+    public GameResult.Player getWinner() {
+        return this.winner;
+    }
+    
+    /**
+     * Returns, whether the last game result was a walkover.
+     * 
+     * @return <i>True</i>, if the game was a walkover.
+     */
+    public boolean isWalkover() {
+        return this.walkover;
+    }
+    
+    /**
+     * Returns, whether the numbers of sets of the last game result are known.
+     * 
+     * @return <i>True</i>, if the numbers of sets are known.
+     */
+    public boolean hasSets() {
+        return this.sets;
+    }
+    
+    /**
+     * Returns the number of sets won by the first opponent.
+     * 
+     * @return The number of sets.
+     */
+    public int getSetsA() {
+        return this.setsA;
+    }
+    
+    /**
+     * Returns the number of sets won by the second opponent.
+     * 
+     * @return The number of sets.
+     */
+    public int getSetsB() {
+        return this.setsB;
+    }
+    
+    /**
+     * Returns the number of sets with known points.
+     * 
+     * @return The number of sets or zero, if the points are not known.
+     */
+    public int countSets() {
+        return this.setCount;
+    }
+    
+    /**
+     * Returns the points of the first opponent in a set.
+     * 
+     * @param set The index of the set.
+     * @return The points.
+     */
+    public int getPointsA(final int set) {
+        // check parameters with assertions
+        assert(set >= 0 && set < this.setCount);
+        
+        return this.pointsA[set];
+    }
+    
+    /**
+     * Returns the points of the second opponent in a set.
+     * 
+     * @param set The index of the set.
+     * @return The points.
+     */
+    public int getPointsB(final int set) {
+        // check parameters with assertions
+        assert(set >= 0 && set < this.setCount);
+        
+        return this.pointsB[set];
+    }
+    
+    /**
+     * Creates the game result of the last text.
+     * 
+     * @param <O> The type of the opponents.
+     * @return The game result or <i>null</i>, if the last text was not 
+     * valid.
+     */
+    public <O extends IOpponent> GameResult<O> toGameResult() {
+        if (!this.valid) {
+            return null;
+        }
+        
+        if (this.walkover) {
+            return WalkoverGameResult.valueOf(this.winner);
+        }
+        if (!this.sets) {
+            return WinnerGameResult.valueOf(this.winner);
+        }
+        if (this.setCount == 0) {
+            return SetsGameResult.valueOf(this.setsA, this.setsB);
+        }
+        return new SetsGameResult<>(
+                Arrays.copyOf(this.pointsA, this.setCount), 
+                Arrays.copyOf(this.pointsB, this.setCount));
+    }
+    
+    private void reset() {
+        this.valid = false;
+        this.winner = null;
+        this.walkover = false;
+        this.sets = false;
+        this.setsA = 0;
+        this.setsB = 0;
+        this.setCount = 0;
+    }
+    
+    private int at(final int index) {
+        if (this.chars != null) {
+            return this.chars.charAt(index);
+        } else if (this.bytes != null) {
+            return this.bytes[index] & 0xff;
+        }
+        return this.buffer.get(index) & 0xff;
+    }
+    
+    private int skipSpaces(int index, final int end) {
+        while (index < end && this.at(index) == ' ') {
+            index++;
+        }
+        return index;
+    }
+    
+    private int skipSeparators(int index, final int end) {
+        while (index < end) {
+            final int c = this.at(index);
+            if (c != ' ' && c != ',' && c != ';') {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+    
+    private boolean parse(final int start, final int end) {
+        this.reset();
+        
+        int index = this.skipSpaces(start, end);
+        if (index == end) {
+            return false;
+        }
+        
+        final int first = this.at(index);
+        if (first == '+' || first == '-') {
+            this.winner = first == '+' ? GameResult.Player.PLAYER_A : GameResult.Player.PLAYER_B;
+            this.walkover = this.isWalkover(index + 1, end);
+            this.valid = true;
+            return true;
+        }
+        
+        int count = 0;
+        while (index < end) {
+            if (count == MAX_SETS) {
+                return this.fail();
+            }
+            
+            // read the points of both opponents
+            int a = 0;
+            int digits = 0;
+            for (; index < end && this.isDigit(this.at(index)); ++index) {
+                a = a * 10 + this.at(index) - '0';
+                digits++;
+            }
+            if (digits == 0 || digits > MAX_DIGITS) {
+                return this.fail();
+            }
+            
+            index = this.skipSpaces(index, end);
+            if (index == end || this.at(index) != ':') {
+                return this.fail();
+            }
+            index = this.skipSpaces(index + 1, end);
+            
+            int b = 0;
+            digits = 0;
+            for (; index < end && this.isDigit(this.at(index)); ++index) {
+                b = b * 10 + this.at(index) - '0';
+                digits++;
+            }
+            if (digits == 0 || digits > MAX_DIGITS) {
+                return this.fail();
+            }
+            
+            this.pointsA[count] = a;
+            this.pointsB[count] = b;
+            count++;
+            
+            index = this.skipSeparators(index, end);
+        }
+        
+        if (count == 1 && this.pointsA[0] <= MAX_SET_COUNT && this.pointsB[0] <= MAX_SET_COUNT) {
+            // numbers of sets only
+            this.setsA = this.pointsA[0];
+            this.setsB = this.pointsB[0];
+        } else {
+            for (int set = 0; set < count; ++set) {
+                if (!PackedGameResult.isValidSet(this.pointsA[set], this.pointsB[set])) {
+                    return this.fail();
+                }
+                if (this.pointsA[set] > this.pointsB[set]) {
+                    this.setsA++;
+                } else {
+                    this.setsB++;
+                }
+            }
+            this.setCount = count;
+        }
+        
+        if (this.setsA > this.setsB) {
+            this.winner = GameResult.Player.PLAYER_A;
+        } else if (this.setsB > this.setsA) {
+            this.winner = GameResult.Player.PLAYER_B;
+        }
+        this.sets = true;
+        this.valid = true;
+        return true;
+    }
+    
+    /**
+     * Checks, whether the remaining text is a walkover notation like "w.o.", 
+     * "wo" or "w/o".
+     * 
+     * @param index The index of the first character after the sign.
+     * @param end The index after the last character.
+     * @return <i>True</i>, if the text is a walkover notation.
+     */
+    private boolean isWalkover(int index, final int end) {
+        index = this.skipSpaces(index, end);
+        
+        int letters = 0;
+        for (; index < end; ++index) {
+            int c = this.at(index);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            if (c == '.' || c == '/') {
+                continue;
+            }
+            if (c == ' ') {
+                break;
+            }
+            if ((letters == 0 && c == 'w') || (letters == 1 && c == 'o')) {
+                letters++;
+                continue;
+            }
+            return false;
+        }
+        
+        return letters == 2 && this.skipSpaces(index, end) == end;
+    }
+    
+    private boolean isDigit(final int c) {
+        return c >= '0' && c <= '9';
+    }
+    
+    private boolean fail() {
+        this.reset();
+        return false;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+import java.util.List;
+
+/**
+ * Interface for a player storage with secondary indexes.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public interface IIndexedPlayerStorage extends IPlayerStorage {
+    
+    /**
+     * Returns a player identified by the id provided by TTLive.
+     * 
+     * @param ttliveId The id of the player provided by TTLive.
+     * @return The player or <code>null</code>, if no player has the id.
+     */
+    public Player getPlayerByTTLiveId(int ttliveId);
+    
+    /**
+     * Searches players by the prefix of their name.
+     * 
+     * The prefix is matched against the lastname followed by the firstname
+     * and against the firstname followed by the lastname, ignoring case and 
+     * accents.
+     * 
+     * @param prefix The prefix of the name.
+     * @param limit The maximum number of players.
+     * @return The players, ordered by the matched name.
+     */
+    public List<Player> findPlayers(String prefix, int limit);
+}
@@ -24,6 +24,11 @@
 package de.brainiiiii.tt.core;
 
 /**
+ * An adjustment of the livepz of a player.
+ * 
+ * Adjustments passed to a {@link LivePZCalculatorListener} are owned by the
+ * calculator and may be reused after the listener has returned. A listener 
+ * keeping an adjustment must keep a {@link #copy()} of it.
  *
  * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
  */
@@ -42,5 +47,28 @@ public class LivePZAdjustment {
     
     public AdjustmentType type;
     
+    /**
+     * Sets all values of the adjustment.
+     * 
+     * @param player The player.
+     * @param livepz The livepz value.
+     * @param type The type of the adjustment.
+     */
+    public void set(final Player player, final int livepz, final AdjustmentType type) {
+        this.player = player;
+        this.livepz = livepz;
+        this.type = type;
+    }
+    
+    /**
+     * Returns a copy of this adjustment.
+     * 
+     * @return The copy.
+     */
+    public LivePZAdjustment copy() {
+        final LivePZAdjustment copy = new LivePZAdjustment();
+        copy.set(this.player, this.livepz, this.type);
+        return copy;
+    }
     
 }
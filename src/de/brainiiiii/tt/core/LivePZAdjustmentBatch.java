@@ -0,0 +1,153 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+import java.util.Arrays;
+
+/**
+ * A read only view of a batch of livepz adjustments.
+ * 
+ * All adjustments of a batch belong to the same event. The values of the 
+ * adjustments are held in columns, so the batch can be reused without 
+ * creating any objects.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class LivePZAdjustmentBatch {
+    
+    private IEvent event;
+    
+    private Player[] players;
+    
+    private int[] livepz;
+    
+    private LivePZAdjustment.AdjustmentType[] types;
+    
+    private int size = 0;
+    
+    /**
+     * Creates a new empty batch.
+     * 
+     * @param capacity The initial capacity of the batch.
+     */
+    LivePZAdjustmentBatch(final int capacity) {
+        this.players = new Player[capacity];
+        this.livepz = new int[capacity];
+        this.types = new LivePZAdjustment.AdjustmentType[capacity];
+    }
+    
+    /**
+     * Returns the event of all adjustments.
+     * 
+     * @return The event or <i>null</i>, if the adjustments have been set 
+     * without any event.
+     */
+    public IEvent getEvent() {
+        return this.event;
+    }
+    
+    /**
+     * Returns the number of adjustments.
+     * 
+     * @return The size of the batch.
+     */
+    public int size() {
+        return this.size;
+    }
+    
+    /**
+     * Returns the player of an adjustment.
+     * 
+     * @param index The index of the adjustment.
+     * @return The player.
+     */
+    public Player getPlayer(final int index) {
+        // check parameters with assertions
+        assert(index >= 0 && index < this.size);
+        
+        return this.players[index];
+    }
+    
+    /**
+     * Returns the livepz value of an adjustment.
+     * 
+     * @param index The index of the adjustment.
+     * @return The livepz value.
+     */
+    public int getLivePZ(final int index) {
+        // check parameters with assertions
+        assert(index >= 0 && index < this.size);
+        
+        return this.livepz[index];
+    }
+    
+    /**
+     * Returns the type of an adjustment.
+     * 
+     * @param index The index of the adjustment.
+     * @return The type.
+     */
+    public LivePZAdjustment.AdjustmentType getType(final int index) {
+        // check parameters with assertions
+        assert(index >= 0 && index < this.size);
+        
+        return this.types[index];
+    }
+    
+    /**
+     * Copies an adjustment into the given object.
+     * 
+     * @param index The index of the adjustment.
+     * @param adjustment The object to copy the adjustment into.
+     */
+    public void copyAdjustment(final int index, final LivePZAdjustment adjustment) {
+        adjustment.player = this.getPlayer(index);
+        adjustment.livepz = this.livepz[index];
+        adjustment.type = this.types[index];
+    }
+    
+    void setEvent(final IEvent event) {
+        this.event = event;
+    }
+    
+    void add(final LivePZAdjustment adjustment) {
+        if (this.size == this.players.length) {
+            final int capacity = Math.max(16, this.size * 2);
+            this.players = Arrays.copyOf(this.players, capacity);
+            this.livepz = Arrays.copyOf(this.livepz, capacity);
+            this.types = Arrays.copyOf(this.types, capacity);
+        }
+        
+        this.players[this.size] = adjustment.player;
+        this.livepz[this.size] = adjustment.livepz;
+        this.types[this.size] = adjustment.type;
+        this.size++;
+    }
+    
+    void clear() {
+        Arrays.fill(this.players, 0, this.size, null);
+        Arrays.fill(this.types, 0, this.size, null);
+        this.size = 0;
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+import de.brainiiiii.tt.core.events.EventListenerList;
+import de.brainiiiii.tt.core.events.IEventCallback;
+import de.brainiiiii.tt.core.events.SharedTimer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Listener collecting the livepz adjustments into batches.
+ * 
+ * The adjustments are collected per event. A batch is passed to the batch 
+ * listeners, when the next event starts, when the batch has reached its 
+ * maximum size, when the oldest adjustment of the batch has reached the 
+ * maximum delay, or when the collector is flushed. The maximum delay is 
+ * watched by a timer, so a batch is passed in time even if no further 
+ * adjustment arrives.
+ * 
+ * The batch listeners are called outside of the lock collecting the 
+ * adjustments, so the calculating threads keep adding adjustments, while a
+ * batch is passed. The listeners are called by one thread at a time, in the
+ * order the batches have been cut, and all batches of an event are passed 
+ * before the next event starts.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class LivePZBatchCollector implements LivePZCalculatorListener {
+    
+    /**
+     * The default maximum size of a batch.
+     */
+    public final static int DEFAULT_MAX_SIZE = 4096;
+    
+    /**
+     * The number of cut batches, up to which an adjusting thread does not
+     * wait for the batch listeners.
+     */
+    private final static int MAX_QUEUED = 4;
+    
+    private final EventListenerList<LivePZBatchListener> listeners = new EventListenerList<>();
+    
+    /**
+     * The batch collecting the adjustments.
+     */
+    private LivePZAdjustmentBatch batch;
+    
+    /**
+     * The batches and event starts not yet passed to the listeners.
+     */
+    private final Queue<Object> queue = new ArrayDeque<>();
+    
+    /**
+     * Batches passed to the listeners, which can be reused.
+     */
+    private final Queue<LivePZAdjustmentBatch> free = new ArrayDeque<>();
+    
+    /**
+     * The lock of the thread passing the queue to the listeners.
+     */
+    private final ReentrantLock deliveryLock = new ReentrantLock();
+    
+    private int maxSize;
+    
+    /**
+     * The maximum delay in nanoseconds or zero, if batches are not cut by 
+     * time.
+     */
+    private long maxDelay = 0;
+    
+    /**
+     * The number of the current batch, counting all cut batches.
+     */
+    private long batchNumber = 0;
+    
+    /**
+     * Creates a new collector with the default maximum size and without a 
+     * maximum delay.
+     */
+    public LivePZBatchCollector() {
+        this(DEFAULT_MAX_SIZE);
+    }
+    
+    /**
+     * Creates a new collector without a maximum delay.
+     * 
+     * @param maxSize The maximum size of a batch.
+     */
+    public LivePZBatchCollector(final int maxSize) {
+        // check parameters with assertions
+        assert(maxSize > 0);
+        
+        this.maxSize = maxSize;
+        this.batch = new LivePZAdjustmentBatch(Math.min(maxSize, DEFAULT_MAX_SIZE));
+    }
+    
+    /**
+     * Adds a batch listener.
+     * 
+     * @param listener The listener to add.
+     */
+    public void addListener(final LivePZBatchListener listener) {
+        this.listeners.addListener(listener);
+    }
+    
+    /**
+     * Removes a batch listener.
+     * 
+     * @param listener The listener to remove.
+     */
+    public void removeListener(final LivePZBatchListener listener) {
+        this.listeners.removeListener(listener);
+    }
+    
+    /**
+     * Sets the maximum size of a batch.
+     * 
+     * @param maxSize The maximum size.
+     */
+    public synchronized void setMaxSize(final int maxSize) {
+        // check parameters with assertions
+        assert(maxSize > 0);
+        
+        this.maxSize = maxSize;
+    }
+    
+    /**
+     * Sets the maximum delay of an adjustment within a batch.
+     * 
+     * @param maxDelay The maximum delay or zero, if batches should not be cut
+     * by time.
+     * @param unit The unit of the delay.
+     */
+    public synchronized void setMaxDelay(final long maxDelay, final TimeUnit unit) {
+        // check parameters with assertions
+        assert(maxDelay >= 0);
+        
+        this.maxDelay = unit.toNanos(maxDelay);
+        if (this.maxDelay > 0 && this.batch.size() > 0) {
+            this.schedule();
+        }
+    }
+
+    @Override
+    public void onStartEvent(final IEvent e) {
+        synchronized (this) {
+            this.cut();
+            this.batch.setEvent(e);
+            this.queue.add(e);
+        }
+        this.deliver(true);
+    }
+
+    @Override
+    public void onAdjustLivePZ(final LivePZAdjustment a) {
+        final boolean full;
+        synchronized (this) {
+            this.batch.add(a);
+            if (this.batch.size() == 1 && this.maxDelay > 0) {
+                this.schedule();
+            }
+            full = this.batch.size() >= this.maxSize;
+            if (full) {
+                this.cut();
+            }
+        }
+        if (full) {
+            this.deliver(false);
+        }
+    }
+    
+    /**
+     * Passes the current batch to the batch listeners.
+     * 
+     * Nothing is passed, if the current batch is empty. All batches cut 
+     * before have been passed, when the method returns.
+     */
+    public void flush() {
+        synchronized (this) {
+            this.cut();
+        }
+        this.deliver(true);
+    }
+    
+    /**
+     * Schedules the cut of the current batch after the maximum delay.
+     */
+    private void schedule() {
+        final long number = this.batchNumber;
+        SharedTimer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                LivePZBatchCollector.this.cutByTime(number);
+            }
+        }, this.maxDelay, TimeUnit.NANOSECONDS);
+    }
+    
+    private void cutByTime(final long number) {
+        synchronized (this) {
+            if (this.batchNumber != number) {
+                // the batch has already been cut
+                return;
+            }
+            this.cut();
+        }
+        // the listeners are not called on the shared timer thread
+        SharedTimer.execute(new Runnable() {
+            @Override
+            public void run() {
+                LivePZBatchCollector.this.deliver(false);
+            }
+        });
+    }
+    
+    /**
+     * Queues the current batch, if it is not empty, and starts a new one.
+     */
+    private void cut() {
+        if (this.batch.size() == 0) {
+            return;
+        }
+        final IEvent event = this.batch.getEvent();
+        this.queue.add(this.batch);
+        this.batch = this.free.isEmpty() ? new LivePZAdjustmentBatch(Math.min(this.maxSize, DEFAULT_MAX_SIZE)) : this.free.poll();
+        this.batch.setEvent(event);
+        this.batchNumber++;
+    }
+    
+    /**
+     * Passes the queue to the listeners.
+     * 
+     * @param wait Whether to wait for another thread passing the queue. 
+     * Otherwise the other thread passes the queued items, unless the queue 
+     * has grown too long.
+     */
+    private void deliver(final boolean wait) {
+        while (true) {
+            if (wait || this.queued() >= MAX_QUEUED) {
+                this.deliveryLock.lock();
+            } else if (!this.deliveryLock.tryLock()) {
+                return;
+            }
+            try {
+                Object item;
+                while ((item = this.poll()) != null) {
+                    if (item instanceof LivePZAdjustmentBatch) {
+                        final LivePZAdjustmentBatch cut = (LivePZAdjustmentBatch) item;
+                        try {
+                            this.listeners.call(AdjustLivePZBatchCallback.INSTANCE, cut);
+                        } finally {
+                            cut.clear();
+                            synchronized (this) {
+                                this.free.add(cut);
+                            }
+                        }
+                    } else {
+                        this.listeners.call(StartEventCallback.INSTANCE, (IEvent) item);
+                    }
+                }
+            } finally {
+                this.deliveryLock.unlock();
+            }
+            // items queued while unlocking would be left behind otherwise
+            if (this.queued() == 0) {
+                return;
+            }
+        }
+    }
+    
+    private synchronized int queued() {
+        return this.queue.size();
+    }
+    
+    private synchronized Object poll() {
+        return this.queue.poll();
+    }
+    
+    private static class StartEventCallback implements IEventCallback<LivePZBatchListener, IEvent> {
+        
+        private final static StartEventCallback INSTANCE = new StartEventCallback();
+
+        @Override
+        public void callEvent(LivePZBatchListener listener, IEvent event) {
+            listener.onStartEvent(event);
+        }
+        
+    }
+    
+    private static class AdjustLivePZBatchCallback implements IEventCallback<LivePZBatchListener, LivePZAdjustmentBatch> {
+        
+        private final static AdjustLivePZBatchCallback INSTANCE = new AdjustLivePZBatchCallback();
+
+        @Override
+        public void callEvent(LivePZBatchListener listener, LivePZAdjustmentBatch event) {
+            listener.onAdjustLivePZBatch(event);
+        }
+        
+    }
+}
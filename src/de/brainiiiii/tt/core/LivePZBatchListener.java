@@ -0,0 +1,52 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+/**
+ * Listener receiving the livepz adjustments in batches.
+ * 
+ * @see LivePZBatchCollector
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public interface LivePZBatchListener {
+    
+    /**
+     * Called, when a new event starts.
+     * 
+     * All batches of the previous event have been passed before.
+     * 
+     * @param e The event.
+     */
+    public void onStartEvent(final IEvent e);
+    
+    /**
+     * Called with a batch of adjustments.
+     * 
+     * The batch is reused after the method has returned, so the listener must
+     * copy all values it wants to keep.
+     * 
+     * @param batch The batch of adjustments.
+     */
+    public void onAdjustLivePZBatch(final LivePZAdjustmentBatch batch);
+}
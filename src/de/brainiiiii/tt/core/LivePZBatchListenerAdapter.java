@@ -0,0 +1,65 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+/**
+ * Adapter passing batches of adjustments to a single adjustment listener.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class LivePZBatchListenerAdapter implements LivePZBatchListener {
+    
+    private final LivePZCalculatorListener listener;
+    
+    /**
+     * The adjustment passed to the listener, reused for every adjustment.
+     */
+    private final LivePZAdjustment adjustment = new LivePZAdjustment();
+    
+    /**
+     * Creates a new adapter.
+     * 
+     * @param listener The listener to pass the adjustments to.
+     */
+    public LivePZBatchListenerAdapter(final LivePZCalculatorListener listener) {
+        // check parameters with assertions
+        assert(listener != null);
+        
+        this.listener = listener;
+    }
+
+    @Override
+    public void onStartEvent(final IEvent e) {
+        this.listener.onStartEvent(e);
+    }
+
+    @Override
+    public void onAdjustLivePZBatch(final LivePZAdjustmentBatch batch) {
+        for (int i = 0; i < batch.size(); ++i) {
+            batch.copyAdjustment(i, this.adjustment);
+            
+            this.listener.onAdjustLivePZ(this.adjustment);
+        }
+    }
+}
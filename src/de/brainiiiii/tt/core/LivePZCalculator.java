@@ -24,7 +24,11 @@
 package de.brainiiiii.tt.core;
 
 import de.brainiiiii.tt.core.events.EventListenerList;
+import de.brainiiiii.tt.core.events.ICoalescingEventCallback;
 import de.brainiiiii.tt.core.events.IEventCallback;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Class used to calculate the livepz changes.
@@ -33,31 +37,351 @@ import de.brainiiiii.tt.core.events.IEventCallback;
  */
 public class LivePZCalculator {
     
+    /**
+     * The number of games a single task of the parallel batch calculation
+     * handles without splitting any further.
+     */
+    private final static int BATCH_THRESHOLD = 8192;
+    
     private final EventListenerList<LivePZCalculatorListener> listeners;
     
+    /**
+     * The model used to calculate the expected scores.
+     */
+    private final IExpectationModel expectationModel;
+    
+    /**
+     * The collector for the batch listeners or <i>null</i>, if no batch
+     * listener has been added yet.
+     */
+    private LivePZBatchCollector batchCollector = null;
+    
+    /**
+     * The adjustment instances owned by the threads setting adjustments.
+     */
+    private final ThreadLocal<LivePZAdjustment> adjustments = new ThreadLocal<LivePZAdjustment>() {
+
+        @Override
+        protected LivePZAdjustment initialValue() {
+            return new LivePZAdjustment();
+        }
+    };
+    
     public LivePZCalculator() {
-        this.listeners = new EventListenerList<>();
+        this(ExactExpectationModel.INSTANCE);
+    }
+    
+    /**
+     * Creates a new calculator using the given expectation model.
+     * 
+     * @param expectationModel The model used to calculate the expected scores.
+     */
+    public LivePZCalculator(final IExpectationModel expectationModel) {
+        this(expectationModel, new EventListenerList<LivePZCalculatorListener>());
+    }
+    
+    /**
+     * Creates a new calculator using the given expectation model and list of
+     * listeners.
+     * 
+     * The list of listeners decides, how the listeners are called. An
+     * {@link de.brainiiiii.tt.core.events.AsyncEventListenerList} decouples
+     * the calculator from slow listeners.
+     * 
+     * @param expectationModel The model used to calculate the expected scores.
+     * @param listeners The list of listeners.
+     */
+    public LivePZCalculator(final IExpectationModel expectationModel, final EventListenerList<LivePZCalculatorListener> listeners) {
+        // check parameters with assertions
+        assert(expectationModel != null);
+        assert(listeners != null);
+        
+        this.listeners = listeners;
+        this.expectationModel = expectationModel;
+    }
+    
+    /**
+     * Returns the model used to calculate the expected scores.
+     * 
+     * @return The expectation model.
+     */
+    public IExpectationModel getExpectationModel() {
+        return this.expectationModel;
+    }
+    
+    /**
+     * Adds a listener to the calculator.
+     * 
+     * @param listener The listener to add.
+     */
+    public void addListener(final LivePZCalculatorListener listener) {
+        this.listeners.addListener(listener);
+    }
+    
+    /**
+     * Removes a listener from the calculator.
+     * 
+     * @param listener The listener to remove.
+     */
+    public void removeListener(final LivePZCalculatorListener listener) {
+        this.listeners.removeListener(listener);
+    }
+    
+    /**
+     * Returns the collector passing the adjustments to the batch listeners.
+     * 
+     * The collector is created and added as listener on its first use.
+     * 
+     * @return The batch collector.
+     */
+    public synchronized LivePZBatchCollector getBatchCollector() {
+        if (this.batchCollector == null) {
+            this.batchCollector = new LivePZBatchCollector();
+            this.addListener(this.batchCollector);
+        }
+        return this.batchCollector;
+    }
+    
+    /**
+     * Adds a listener receiving the adjustments in batches per event.
+     * 
+     * @param listener The listener to add.
+     */
+    public void addBatchListener(final LivePZBatchListener listener) {
+        this.getBatchCollector().addListener(listener);
+    }
+    
+    /**
+     * Removes a listener receiving the adjustments in batches.
+     * 
+     * @param listener The listener to remove.
+     */
+    public void removeBatchListener(final LivePZBatchListener listener) {
+        this.getBatchCollector().removeListener(listener);
+    }
+    
+    /**
+     * Passes all collected adjustments to the batch listeners.
+     */
+    public void flushBatches() {
+        final LivePZBatchCollector collector;
+        synchronized(this) {
+            collector = this.batchCollector;
+        }
+        if (collector != null) {
+            collector.flush();
+        }
     }
     
     public int calculateChange(final int changeConst, final int pointsA, final int pointsB, final boolean hasWon) {
-        final double pointDiff = pointsB - pointsA;
         final double actual = hasWon ? 1.0 : 0.0;
-        final double expected = 1.0 / (1.0 + Math.log10(pointDiff / 150.0));
+        final double expected = this.expectationModel.getExpectation(pointsA, pointsB);
         
         final double change = (double) changeConst * (actual - expected);
         
         return (int) Math.round(change);
     }
     
+    /**
+     * Calculates the changes for a batch of games.
+     * 
+     * Every game is given by the same index within the columns. The change of
+     * the game with the index <i>i</i> is written to <i>changes[i]</i> and is
+     * identical to the result of {@link #calculateChange(int, int, int, boolean)}
+     * called with the values of the columns at <i>i</i>.
+     * 
+     * @param changeConsts The change constants of the first opponents.
+     * @param pointsA The points of the first opponents.
+     * @param pointsB The points of the second opponents.
+     * @param won The set of indices, where the first opponent has won.
+     * @param changes The array to write the changes to.
+     */
+    public void calculateChanges(final int[] changeConsts, final int[] pointsA, final int[] pointsB, final BitSet won, final int[] changes) {
+        this.calculateChanges(changeConsts, pointsA, pointsB, won, changes, 0, changes.length);
+    }
+    
+    /**
+     * Calculates the changes for a range of a batch of games.
+     * 
+     * @param changeConsts The change constants of the first opponents.
+     * @param pointsA The points of the first opponents.
+     * @param pointsB The points of the second opponents.
+     * @param won The set of indices, where the first opponent has won.
+     * @param changes The array to write the changes to.
+     * @param offset The index of the first game to calculate.
+     * @param length The number of games to calculate.
+     * @see #calculateChanges(int[], int[], int[], java.util.BitSet, int[]) 
+     */
+    public void calculateChanges(final int[] changeConsts, final int[] pointsA, final int[] pointsB, final BitSet won, final int[] changes, final int offset, final int length) {
+        // check parameters with assertions
+        assert(offset >= 0);
+        assert(length >= 0);
+        assert(offset + length <= changeConsts.length);
+        assert(offset + length <= pointsA.length);
+        assert(offset + length <= pointsB.length);
+        assert(offset + length <= changes.length);
+        
+        final int end = offset + length;
+        for (int i = offset; i < end; ++i) {
+            changes[i] = this.calculateChange(changeConsts[i], pointsA[i], pointsB[i], won.get(i));
+        }
+    }
+    
+    /**
+     * Calculates the changes for a batch of games in parallel.
+     * 
+     * The batch is split into ranges, which are calculated on the shared pool
+     * of the calculators. The results are the same as the results of 
+     * {@link #calculateChanges(int[], int[], int[], java.util.BitSet, int[])}.
+     * 
+     * @param changeConsts The change constants of the first opponents.
+     * @param pointsA The points of the first opponents.
+     * @param pointsB The points of the second opponents.
+     * @param won The set of indices, where the first opponent has won.
+     * @param changes The array to write the changes to.
+     */
+    public void calculateChangesParallel(final int[] changeConsts, final int[] pointsA, final int[] pointsB, final BitSet won, final int[] changes) {
+        this.calculateChangesParallel(changeConsts, pointsA, pointsB, won, changes, sharedPool());
+    }
+    
+    /**
+     * Calculates the changes for a batch of games in parallel on the given
+     * pool.
+     * 
+     * @param changeConsts The change constants of the first opponents.
+     * @param pointsA The points of the first opponents.
+     * @param pointsB The points of the second opponents.
+     * @param won The set of indices, where the first opponent has won.
+     * @param changes The array to write the changes to.
+     * @param pool The pool to run the calculation on.
+     */
+    public void calculateChangesParallel(final int[] changeConsts, final int[] pointsA, final int[] pointsB, final BitSet won, final int[] changes, final ForkJoinPool pool) {
+        this.calculateChangesParallel(changeConsts, pointsA, pointsB, won, changes, 0, changes.length, pool);
+    }
+    
+    /**
+     * Calculates the changes for a range of a batch of games in parallel on 
+     * the given pool.
+     * 
+     * @param changeConsts The change constants of the first opponents.
+     * @param pointsA The points of the first opponents.
+     * @param pointsB The points of the second opponents.
+     * @param won The set of indices, where the first opponent has won.
+     * @param changes The array to write the changes to.
+     * @param offset The index of the first game to calculate.
+     * @param length The number of games to calculate.
+     * @param pool The pool to run the calculation on.
+     */
+    public void calculateChangesParallel(final int[] changeConsts, final int[] pointsA, final int[] pointsB, final BitSet won, final int[] changes, final int offset, final int length, final ForkJoinPool pool) {
+        if (length <= BATCH_THRESHOLD) {
+            this.calculateChanges(changeConsts, pointsA, pointsB, won, changes, offset, length);
+            return;
+        }
+        
+        pool.invoke(new BatchTask(this, changeConsts, pointsA, pointsB, won, changes, offset, length));
+    }
+    
+    /**
+     * Returns the pool shared by all calculators.
+     * 
+     * @return The shared pool.
+     */
+    static ForkJoinPool sharedPool() {
+        return SharedPool.POOL;
+    }
+    
     protected void startEvent(final IEvent event) {
-        this.listeners.call(new StartEventCallback(), event);
+        this.listeners.call(StartEventCallback.INSTANCE, event);
     }
     
     protected void setAdjustment(final LivePZAdjustment adjustment) {
-        this.listeners.call(new LivePZAdjustmentCallback(), adjustment);
+        this.listeners.call(LivePZAdjustmentCallback.INSTANCE, adjustment);
+    }
+    
+    /**
+     * Sets an adjustment given by its values.
+     * 
+     * If the listeners are called synchronous, the adjustment is passed in a
+     * instance owned by the calling thread, which is reused for the next
+     * adjustment. Otherwise a new instance is passed.
+     * 
+     * @param player The player.
+     * @param livepz The livepz value.
+     * @param type The type of the adjustment.
+     */
+    protected void setAdjustment(final Player player, final int livepz, final LivePZAdjustment.AdjustmentType type) {
+        final LivePZAdjustment adjustment;
+        if (this.listeners.isSynchronous()) {
+            adjustment = this.adjustments.get();
+        } else {
+            adjustment = new LivePZAdjustment();
+        }
+        
+        adjustment.set(player, livepz, type);
+        this.setAdjustment(adjustment);
+    }
+    
+    /**
+     * Holder of the pool shared by all calculators.
+     * 
+     * The pool is created on its first use only.
+     */
+    private static class SharedPool {
+        
+        private final static ForkJoinPool POOL = new ForkJoinPool();
+    }
+    
+    /**
+     * Task calculating a range of a batch of games.
+     */
+    private static class BatchTask extends RecursiveAction {
+        
+        private final static long serialVersionUID = 1L;
+        
+        private final LivePZCalculator calculator;
+        
+        private final int[] changeConsts;
+        
+        private final int[] pointsA;
+        
+        private final int[] pointsB;
+        
+        private final BitSet won;
+        
+        private final int[] changes;
+        
+        private final int offset;
+        
+        private final int length;
+        
+        BatchTask(final LivePZCalculator calculator, final int[] changeConsts, final int[] pointsA, final int[] pointsB, final BitSet won, final int[] changes, final int offset, final int length) {
+            this.calculator = calculator;
+            this.changeConsts = changeConsts;
+            this.pointsA = pointsA;
+            this.pointsB = pointsB;
+            this.won = won;
+            this.changes = changes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.length <= BATCH_THRESHOLD) {
+                this.calculator.calculateChanges(this.changeConsts, this.pointsA, this.pointsB, this.won, this.changes, this.offset, this.length);
+                return;
+            }
+            
+            final int half = this.length >>> 1;
+            invokeAll(
+                    new BatchTask(this.calculator, this.changeConsts, this.pointsA, this.pointsB, this.won, this.changes, this.offset, half),
+                    new BatchTask(this.calculator, this.changeConsts, this.pointsA, this.pointsB, this.won, this.changes, this.offset + half, this.length - half));
+        }
     }
     
     private static class StartEventCallback implements IEventCallback<LivePZCalculatorListener, IEvent> {
+        
+        private final static StartEventCallback INSTANCE = new StartEventCallback();
 
         @Override
         public void callEvent(LivePZCalculatorListener listener, IEvent event) {
@@ -66,13 +390,32 @@ public class LivePZCalculator {
         
     }
     
-    private static class LivePZAdjustmentCallback implements IEventCallback<LivePZCalculatorListener, LivePZAdjustment> {
+    private static class LivePZAdjustmentCallback implements ICoalescingEventCallback<LivePZCalculatorListener, LivePZAdjustment> {
+        
+        private final static LivePZAdjustmentCallback INSTANCE = new LivePZAdjustmentCallback();
         
         @Override
         public void callEvent(LivePZCalculatorListener listener, LivePZAdjustment event) {
             listener.onAdjustLivePZ(event);
         }
         
-        
+        /**
+         * Merges two adjustments of the same player.
+         * 
+         * A newer set overrides the older adjustment, a newer change is added
+         * to the value of the older adjustment keeping its type.
+         */
+        @Override
+        public LivePZAdjustment coalesce(LivePZAdjustment older, LivePZAdjustment newer) {
+            if (older.player != newer.player && (older.player == null || newer.player == null || older.player.playerId != newer.player.playerId)) {
+                return null;
+            }
+            if (newer.type == LivePZAdjustment.AdjustmentType.SET) {
+                return newer;
+            }
+            final LivePZAdjustment merged = new LivePZAdjustment();
+            merged.set(newer.player, older.livepz + newer.livepz, older.type);
+            return merged;
+        }
     }
 }
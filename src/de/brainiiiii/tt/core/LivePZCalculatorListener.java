@@ -31,5 +31,13 @@ public interface LivePZCalculatorListener {
     
     public void onStartEvent(final IEvent e);
     
+    /**
+     * Called for every adjustment.
+     * 
+     * The adjustment may be reused after the method has returned, so the 
+     * listener must copy it to keep it.
+     * 
+     * @param a The adjustment.
+     */
     public void onAdjustLivePZ(final LivePZAdjustment a);
 }
@@ -0,0 +1,618 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+import de.brainiiiii.tt.core.events.EventListenerList;
+import de.brainiiiii.tt.core.storage.IntIntMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Replays the history of events and games to rebuild the livepz of players.
+ * 
+ * The history is given as a time ordered stream of events, each followed by
+ * the games played within the event. Every game is rated with the livepz of
+ * its opponents after the previous game, and the listeners are informed 
+ * about every adjustment.
+ * 
+ * To replay in parallel, the history is cut into windows of a fixed number of
+ * events. Within a window the players are split into groups of players, who 
+ * never met each other within the window. These groups are replayed in 
+ * parallel, while the windows are replayed one after another. Every player 
+ * belongs to a single group within a window, so the sequence of changes of 
+ * a player is the same as within a sequential replay. The changes of the 
+ * games are kept, and the listeners are informed about the events and the 
+ * adjustments of a window afterwards by the replaying thread, in the same 
+ * order as by a sequential replay.
+ * 
+ * In the {@link Mode#EVENT} mode all games of an event are rated with the 
+ * livepz of the players at the start of the event. The changes of the games
+ * are calculated in parallel and summed up per player, and a single 
+ * adjustment is set for every player of the event.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class LivePZReplay extends LivePZCalculator {
+    
+    /**
+     * The modes of rating the games.
+     */
+    public static enum Mode {
+        
+        /**
+         * Every game is rated with the livepz after the previous game.
+         */
+        GAME,
+        
+        /**
+         * Every game is rated with the livepz at the start of its event.
+         */
+        EVENT;
+    }
+    
+    /**
+     * The default number of events within a window.
+     */
+    public final static int DEFAULT_WINDOW_SIZE = 64;
+    
+    /**
+     * The minimum number of games replayed by a single parallel task.
+     */
+    private final static int TASK_THRESHOLD = 1024;
+    
+    private final int changeConst;
+    
+    private final int windowSize;
+    
+    /**
+     * The pool to replay on or <i>null</i>, if the replay is sequential.
+     */
+    private final ForkJoinPool pool;
+    
+    private Mode mode = Mode.GAME;
+    
+    /**
+     * The value of {@link #playerIndices} for unknown players.
+     */
+    private final static int NO_INDEX = -1;
+    
+    /**
+     * The internal indices of all players, identified by their player ids.
+     */
+    private final IntIntMap playerIndices = new IntIntMap();
+    
+    private Player[] players = new Player[16];
+    
+    private int[] livepz = new int[16];
+    
+    private int playerCount = 0;
+    
+    private final List<IEvent> events = new ArrayList<>();
+    
+    /**
+     * The index of the first game of every event.
+     */
+    private int[] eventOffsets = new int[16];
+    
+    private int[] gamesA = new int[64];
+    
+    private int[] gamesB = new int[64];
+    
+    private final BitSet wonA = new BitSet();
+    
+    private final BitSet wonB = new BitSet();
+    
+    private int gameCount = 0;
+    
+    /**
+     * Working arrays for splitting the players into groups, indexed by the
+     * internal player index.
+     */
+    private int[] parents = new int[16];
+    
+    private int[] groups = new int[16];
+    
+    /**
+     * Working arrays for rating a whole event, indexed by the game index.
+     */
+    private int[] changeConsts = new int[0];
+    
+    private int[] pointsA = new int[0];
+    
+    private int[] pointsB = new int[0];
+    
+    private int[] changesA = new int[0];
+    
+    private int[] changesB = new int[0];
+    
+    /**
+     * Working arrays for summing up the changes of an event, indexed by the
+     * internal player index.
+     */
+    private int[] sums = new int[16];
+    
+    private int[] stamps = new int[16];
+    
+    private int[] eventPlayers = new int[16];
+    
+    private int stamp = 0;
+    
+    /**
+     * Creates a new parallel replay with the default window size.
+     * 
+     * @param changeConst The change constant used for all games.
+     */
+    public LivePZReplay(final int changeConst) {
+        this(ExactExpectationModel.INSTANCE, changeConst, DEFAULT_WINDOW_SIZE, sharedPool());
+    }
+    
+    /**
+     * Creates a new replay.
+     * 
+     * @param expectationModel The model used to calculate the expected scores.
+     * @param changeConst The change constant used for all games.
+     * @param windowSize The number of events within a window.
+     * @param pool The pool to replay on or <i>null</i> for a sequential
+     * replay.
+     */
+    public LivePZReplay(final IExpectationModel expectationModel, final int changeConst, final int windowSize, final ForkJoinPool pool) {
+        this(expectationModel, new EventListenerList<LivePZCalculatorListener>(), changeConst, windowSize, pool);
+    }
+    
+    /**
+     * Creates a new replay using the given list of listeners.
+     * 
+     * @param expectationModel The model used to calculate the expected scores.
+     * @param listeners The list of listeners.
+     * @param changeConst The change constant used for all games.
+     * @param windowSize The number of events within a window.
+     * @param pool The pool to replay on or <i>null</i> for a sequential
+     * replay.
+     */
+    public LivePZReplay(final IExpectationModel expectationModel, final EventListenerList<LivePZCalculatorListener> listeners, final int changeConst, final int windowSize, final ForkJoinPool pool) {
+        super(expectationModel, listeners);
+        
+        // check parameters with assertions
+        assert(windowSize > 0);
+        
+        this.changeConst = changeConst;
+        this.windowSize = windowSize;
+        this.pool = pool;
+    }
+    
+    /**
+     * Returns the mode of rating the games.
+     * 
+     * @return The mode.
+     */
+    public Mode getMode() {
+        return this.mode;
+    }
+    
+    /**
+     * Sets the mode of rating the games.
+     * 
+     * @param mode The mode.
+     */
+    public void setMode(final Mode mode) {
+        // check parameters with assertions
+        assert(mode != null);
+        
+        this.mode = mode;
+    }
+    
+    /**
+     * Sets the livepz of a player before the replay.
+     * 
+     * @param player The player.
+     * @param livepz The livepz of the player.
+     */
+    public void setLivePZ(final Player player, final int livepz) {
+        final int index = this.playerIndices.get(player.playerId, NO_INDEX);
+        if (index != NO_INDEX) {
+            this.players[index] = player;
+            this.livepz[index] = livepz;
+            return;
+        }
+        
+        if (this.playerCount == this.players.length) {
+            final int capacity = this.playerCount * 2;
+            this.players = Arrays.copyOf(this.players, capacity);
+            this.livepz = Arrays.copyOf(this.livepz, capacity);
+            this.parents = Arrays.copyOf(this.parents, capacity);
+            this.groups = Arrays.copyOf(this.groups, capacity);
+            this.sums = Arrays.copyOf(this.sums, capacity);
+            this.stamps = Arrays.copyOf(this.stamps, capacity);
+            this.eventPlayers = Arrays.copyOf(this.eventPlayers, capacity);
+        }
+        
+        this.playerIndices.put(player.playerId, this.playerCount);
+        this.players[this.playerCount] = player;
+        this.livepz[this.playerCount] = livepz;
+        this.playerCount++;
+    }
+    
+    /**
+     * Returns the current livepz of a player.
+     * 
+     * @param playerId The id of the player.
+     * @return The livepz or <i>null</i>, if no livepz is known for the player.
+     */
+    public Integer getLivePZ(final int playerId) {
+        final int index = this.playerIndices.get(playerId, NO_INDEX);
+        if (index == NO_INDEX) {
+            return null;
+        }
+        return this.livepz[index];
+    }
+    
+    /**
+     * Adds an event to the history.
+     * 
+     * All games added afterwards are played within this event.
+     * 
+     * @param event The event.
+     */
+    public void addEvent(final IEvent event) {
+        if (this.events.size() == this.eventOffsets.length) {
+            this.eventOffsets = Arrays.copyOf(this.eventOffsets, this.eventOffsets.length * 2);
+        }
+        this.eventOffsets[this.events.size()] = this.gameCount;
+        this.events.add(event);
+    }
+    
+    /**
+     * Adds a game of the last event to the history.
+     * 
+     * The livepz of both players must have been set before.
+     * 
+     * @param result The finished result of the game.
+     */
+    public void addGame(final GameResult<SingleOpponent> result) {
+        if (this.events.isEmpty()) {
+            throw new IllegalStateException("A game must be played within an event.");
+        }
+        if (!result.isFinished()) {
+            throw new IllegalArgumentException("The game is not finished.");
+        }
+        
+        if (this.gameCount == this.gamesA.length) {
+            this.gamesA = Arrays.copyOf(this.gamesA, this.gameCount * 2);
+            this.gamesB = Arrays.copyOf(this.gamesB, this.gameCount * 2);
+        }
+        
+        this.gamesA[this.gameCount] = this.indexOf(result.getOpponent(GameResult.Player.PLAYER_A));
+        this.gamesB[this.gameCount] = this.indexOf(result.getOpponent(GameResult.Player.PLAYER_B));
+        this.wonA.set(this.gameCount, result.hasWonA());
+        this.wonB.set(this.gameCount, result.hasWonB());
+        this.gameCount++;
+    }
+    
+    private int indexOf(final SingleOpponent opponent) {
+        final int index = this.playerIndices.get(opponent.getPlayer().playerId, NO_INDEX);
+        if (index == NO_INDEX) {
+            throw new IllegalArgumentException("No livepz set for player " + opponent.getPlayer().playerId + ".");
+        }
+        return index;
+    }
+    
+    /**
+     * Replays all events and games added since the last replay.
+     * 
+     * The batches of the last event are passed to the batch listeners, when 
+     * the replay has finished.
+     */
+    public void replay() {
+        final int eventCount = this.events.size();
+        if (this.mode == Mode.EVENT) {
+            this.prepareEvents();
+            for (int event = 0; event < eventCount; ++event) {
+                this.replayEvent(event);
+            }
+        } else {
+            for (int first = 0; first < eventCount; first += this.windowSize) {
+                final int end = Math.min(first + this.windowSize, eventCount);
+                if (this.pool == null) {
+                    this.replaySequential(first, end);
+                } else {
+                    this.replayParallel(first, end);
+                }
+            }
+        }
+        
+        this.flushBatches();
+        
+        this.events.clear();
+        this.wonA.clear();
+        this.wonB.clear();
+        this.gameCount = 0;
+    }
+    
+    /**
+     * Returns the index of the first game after the given event.
+     * 
+     * @param event The index of the event.
+     * @return The index of the first game after the event.
+     */
+    private int endOfEvent(final int event) {
+        if (event + 1 < this.events.size()) {
+            return this.eventOffsets[event + 1];
+        }
+        return this.gameCount;
+    }
+    
+    private void replaySequential(final int firstEvent, final int endEvent) {
+        for (int event = firstEvent; event < endEvent; ++event) {
+            this.startEvent(this.events.get(event));
+            
+            final int end = this.endOfEvent(event);
+            for (int game = this.eventOffsets[event]; game < end; ++game) {
+                this.replayGame(game);
+            }
+        }
+    }
+    
+    private void replayParallel(final int firstEvent, final int endEvent) {
+        final int first = this.eventOffsets[firstEvent];
+        final int end = this.endOfEvent(endEvent - 1);
+        final int count = end - first;
+        if (count <= TASK_THRESHOLD) {
+            this.replaySequential(firstEvent, endEvent);
+            return;
+        }
+        if (this.changesA.length < end) {
+            this.changesA = Arrays.copyOf(this.changesA, this.gamesA.length);
+            this.changesB = Arrays.copyOf(this.changesB, this.gamesA.length);
+        }
+        
+        // join the players of every game into groups
+        for (int game = first; game < end; ++game) {
+            this.parents[this.gamesA[game]] = this.gamesA[game];
+            this.parents[this.gamesB[game]] = this.gamesB[game];
+        }
+        for (int game = first; game < end; ++game) {
+            final int rootA = this.findGroup(this.gamesA[game]);
+            final int rootB = this.findGroup(this.gamesB[game]);
+            if (rootA != rootB) {
+                this.parents[rootB] = rootA;
+            }
+        }
+        
+        // number the groups and count their games
+        for (int game = first; game < end; ++game) {
+            this.groups[this.findGroup(this.gamesA[game])] = -1;
+        }
+        final int[] gameGroups = new int[count];
+        int[] groupOffsets = new int[16];
+        int groupCount = 0;
+        for (int game = first; game < end; ++game) {
+            final int root = this.findGroup(this.gamesA[game]);
+            if (this.groups[root] < 0) {
+                if (groupCount + 1 == groupOffsets.length) {
+                    groupOffsets = Arrays.copyOf(groupOffsets, groupOffsets.length * 2);
+                }
+                this.groups[root] = groupCount++;
+            }
+            gameGroups[game - first] = this.groups[root];
+            groupOffsets[this.groups[root] + 1]++;
+        }
+        for (int group = 0; group < groupCount; ++group) {
+            groupOffsets[group + 1] += groupOffsets[group];
+        }
+        
+        // order the games by group, keeping the order within every group
+        final int[] order = new int[count];
+        final int[] positions = Arrays.copyOf(groupOffsets, groupCount);
+        for (int game = first; game < end; ++game) {
+            order[positions[gameGroups[game - first]]++] = game;
+        }
+        
+        // replay the groups in tasks of at least the threshold of games
+        final List<ReplayTask> tasks = new ArrayList<>();
+        int from = 0;
+        for (int group = 1; group <= groupCount; ++group) {
+            if (groupOffsets[group] - from >= TASK_THRESHOLD || group == groupCount) {
+                tasks.add(new ReplayTask(this, order, from, groupOffsets[group]));
+                from = groupOffsets[group];
+            }
+        }
+        this.pool.invoke(new ReplayTasks(tasks));
+        
+        // inform the listeners in the order of a sequential replay
+        for (int event = firstEvent; event < endEvent; ++event) {
+            this.startEvent(this.events.get(event));
+            
+            final int eventEnd = this.endOfEvent(event);
+            for (int game = this.eventOffsets[event]; game < eventEnd; ++game) {
+                this.adjust(this.players[this.gamesA[game]], this.changesA[game]);
+                this.adjust(this.players[this.gamesB[game]], this.changesB[game]);
+            }
+        }
+    }
+    
+    private void prepareEvents() {
+        if (this.changeConsts.length < this.gameCount) {
+            this.changeConsts = new int[this.gamesA.length];
+            this.pointsA = new int[this.gamesA.length];
+            this.pointsB = new int[this.gamesA.length];
+            this.changesA = new int[this.gamesA.length];
+            this.changesB = new int[this.gamesA.length];
+        }
+        Arrays.fill(this.changeConsts, 0, this.gameCount, this.changeConst);
+    }
+    
+    private void replayEvent(final int event) {
+        final int first = this.eventOffsets[event];
+        final int end = this.endOfEvent(event);
+        
+        // rate all games with the livepz at the start of the event
+        this.startEvent(this.events.get(event));
+        for (int game = first; game < end; ++game) {
+            this.pointsA[game] = this.livepz[this.gamesA[game]];
+            this.pointsB[game] = this.livepz[this.gamesB[game]];
+        }
+        if (this.pool == null) {
+            this.calculateChanges(this.changeConsts, this.pointsA, this.pointsB, this.wonA, this.changesA, first, end - first);
+            this.calculateChanges(this.changeConsts, this.pointsB, this.pointsA, this.wonB, this.changesB, first, end - first);
+        } else {
+            this.calculateChangesParallel(this.changeConsts, this.pointsA, this.pointsB, this.wonA, this.changesA, first, end - first, this.pool);
+            this.calculateChangesParallel(this.changeConsts, this.pointsB, this.pointsA, this.wonB, this.changesB, first, end - first, this.pool);
+        }
+        
+        // sum up the changes per player, in the order of their first game
+        this.stamp++;
+        int playerCount = 0;
+        for (int game = first; game < end; ++game) {
+            playerCount += this.addChange(this.gamesA[game], this.changesA[game], playerCount);
+            playerCount += this.addChange(this.gamesB[game], this.changesB[game], playerCount);
+        }
+        
+        for (int i = 0; i < playerCount; ++i) {
+            final int index = this.eventPlayers[i];
+            this.livepz[index] += this.sums[index];
+            this.adjust(this.players[index], this.sums[index]);
+        }
+    }
+    
+    /**
+     * Adds the change of a game to the sum of a player.
+     * 
+     * The players of the event are collected in the order of their first
+     * game.
+     * 
+     * @param index The internal index of the player.
+     * @param change The change.
+     * @param playerCount The number of players collected so far.
+     * @return One, if the player was added to the players of the event,
+     * otherwise zero.
+     */
+    private int addChange(final int index, final int change, final int playerCount) {
+        if (this.stamps[index] == this.stamp) {
+            this.sums[index] += change;
+            return 0;
+        }
+        
+        this.stamps[index] = this.stamp;
+        this.sums[index] = change;
+        this.eventPlayers[playerCount] = index;
+        return 1;
+    }
+    
+    private int findGroup(int index) {
+        while (this.parents[index] != index) {
+            this.parents[index] = this.parents[this.parents[index]];
+            index = this.parents[index];
+        }
+        return index;
+    }
+    
+    private void replayGame(final int game) {
+        final int indexA = this.gamesA[game];
+        final int indexB = this.gamesB[game];
+        final boolean hasWonA = this.wonA.get(game);
+        final int pointsA = this.livepz[indexA];
+        final int pointsB = this.livepz[indexB];
+        
+        final int changeA = this.calculateChange(this.changeConst, pointsA, pointsB, hasWonA);
+        final int changeB = this.calculateChange(this.changeConst, pointsB, pointsA, !hasWonA);
+        this.livepz[indexA] = pointsA + changeA;
+        this.livepz[indexB] = pointsB + changeB;
+        
+        this.adjust(this.players[indexA], changeA);
+        this.adjust(this.players[indexB], changeB);
+    }
+    
+    /**
+     * Rates a game and keeps the changes, without informing the listeners.
+     */
+    private void rateGame(final int game) {
+        final int indexA = this.gamesA[game];
+        final int indexB = this.gamesB[game];
+        final boolean hasWonA = this.wonA.get(game);
+        final int pointsA = this.livepz[indexA];
+        final int pointsB = this.livepz[indexB];
+        
+        this.changesA[game] = this.calculateChange(this.changeConst, pointsA, pointsB, hasWonA);
+        this.changesB[game] = this.calculateChange(this.changeConst, pointsB, pointsA, !hasWonA);
+        this.livepz[indexA] = pointsA + this.changesA[game];
+        this.livepz[indexB] = pointsB + this.changesB[game];
+    }
+    
+    private void adjust(final Player player, final int change) {
+        this.setAdjustment(player, change, LivePZAdjustment.AdjustmentType.CHANGE);
+    }
+    
+    /**
+     * Task rating a range of the ordered games.
+     */
+    private static class ReplayTask extends RecursiveAction {
+        
+        private final static long serialVersionUID = 1L;
+        
+        private final LivePZReplay replay;
+        
+        private final int[] order;
+        
+        private final int from;
+        
+        private final int to;
+        
+        ReplayTask(final LivePZReplay replay, final int[] order, final int from, final int to) {
+            this.replay = replay;
+            this.order = order;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = this.from; i < this.to; ++i) {
+                this.replay.rateGame(this.order[i]);
+            }
+        }
+    }
+    
+    /**
+     * Task running a list of tasks in parallel.
+     */
+    private static class ReplayTasks extends RecursiveAction {
+        
+        private final static long serialVersionUID = 1L;
+        
+        private final List<ReplayTask> tasks;
+        
+        ReplayTasks(final List<ReplayTask> tasks) {
+            this.tasks = tasks;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(this.tasks);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+/**
+ * The logistic expectation model.
+ * 
+ * The expected score is <i>1 / (1 + 10^((B - A) / 150))</i>, which is a 
+ * probability for every difference of points: it is one half for equal 
+ * points and approaches one, the stronger the first opponent is. Thus the 
+ * model can be used as win probability of a game, e.g. by the 
+ * {@link TeamMatchSimulator}.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class LogisticExpectationModel implements IExpectationModel {
+    
+    /**
+     * The instance of the model.
+     */
+    public final static LogisticExpectationModel INSTANCE = new LogisticExpectationModel();
+    
+    @Override
+    public double getExpectation(final int pointsA, final int pointsB) {
+        return 1.0 / (1.0 + Math.pow(10.0, (pointsB - pointsA) / 150.0));
+    }
+}
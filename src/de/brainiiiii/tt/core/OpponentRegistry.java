@@ -0,0 +1,191 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A registry assigning dense int handles to opponents.
+ * 
+ * Every registered opponent gets the next free handle, starting at zero, so 
+ * the handles can be used as indices of primitive arrays. Equal opponents 
+ * get the same handle.
+ * 
+ * Registering is synchronized, while resolving a handle needs no lock. A 
+ * handle must be passed to other threads in a thread safe way, e.g. by an 
+ * executor or a concurrent collection.
+ * 
+ * @param <O> The type of the opponents.
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class OpponentRegistry<O extends IOpponent> {
+    
+    /**
+     * A reference to a registered opponent.
+     * 
+     * The opponent is resolved on every call of {@link #getOpponent()}.
+     * 
+     * @param <O> The type of the opponent.
+     */
+    public static class Handle<O extends IOpponent> implements IIsOpponent<O> {
+        
+        private final OpponentRegistry<O> registry;
+        
+        private final int handle;
+        
+        private Handle(final OpponentRegistry<O> registry, final int handle) {
+            this.registry = registry;
+            this.handle = handle;
+        }
+        
+        /**
+         * Returns the int handle of the opponent.
+         * 
+         * @return The handle.
+         */
+        public int getHandle() {
+            return this.handle;
+        }
+
+        @Override
+        public O getOpponent() {
+            return this.registry.getOpponent(this.handle);
+        }
+    }
+    
+    /**
+     * The handles of all opponents.
+     */
+    private final Map<O, Integer> handles = new HashMap<>();
+    
+    /**
+     * The opponents, indexed by their handle.
+     */
+    private volatile Object[] opponents = new Object[16];
+    
+    /**
+     * The references to the opponents, created on their first request.
+     */
+    private volatile Handle<?>[] references = new Handle<?>[16];
+    
+    /**
+     * The number of registered opponents.
+     * 
+     * The size is written after the opponent, so reading the size first 
+     * makes the opponent visible.
+     */
+    private volatile int size = 0;
+    
+    /**
+     * Registers an opponent.
+     * 
+     * @param opponent The opponent.
+     * @return The handle of the opponent.
+     */
+    public synchronized int register(final O opponent) {
+        // check parameters with assertions
+        assert(opponent != null);
+        
+        final Integer handle = this.handles.get(opponent);
+        if (handle != null) {
+            return handle;
+        }
+        
+        final int size = this.size;
+        if (size == this.opponents.length) {
+            this.opponents = Arrays.copyOf(this.opponents, size * 2);
+            this.references = Arrays.copyOf(this.references, size * 2);
+        }
+        this.opponents[size] = opponent;
+        this.handles.put(opponent, size);
+        this.size = size + 1;
+        return size;
+    }
+    
+    /**
+     * Returns the handle of an opponent.
+     * 
+     * @param opponent The opponent.
+     * @return The handle or <i>-1</i>, if the opponent is not registered.
+     */
+    public synchronized int getHandle(final O opponent) {
+        final Integer handle = this.handles.get(opponent);
+        if (handle == null) {
+            return -1;
+        }
+        return handle;
+    }
+    
+    /**
+     * Returns the number of registered opponents.
+     * 
+     * @return The number of opponents.
+     */
+    public int size() {
+        return this.size;
+    }
+    
+    /**
+     * Returns the opponent of a handle.
+     * 
+     * @param handle The handle.
+     * @return The opponent.
+     */
+    @SuppressWarnings("unchecked")
+    public O getOpponent(final int handle) {
+        if (handle < 0 || handle >= this.size) {
+            throw new IndexOutOfBoundsException("Unknown opponent handle " + handle + ".");
+        }
+        return (O) this.opponents[handle];
+    }
+    
+    /**
+     * Returns a reference to the opponent of a handle.
+     * 
+     * The reference is created on the first request only.
+     * 
+     * @param handle The handle.
+     * @return The reference.
+     */
+    @SuppressWarnings("unchecked")
+    public Handle<O> getReference(final int handle) {
+        if (handle < 0 || handle >= this.size) {
+            throw new IndexOutOfBoundsException("Unknown opponent handle " + handle + ".");
+        }
+        
+        final Handle<?> reference = this.references[handle];
+        if (reference != null) {
+            return (Handle<O>) reference;
+        }
+        
+        synchronized(this) {
+            if (this.references[handle] == null) {
+                this.references[handle] = new Handle<>(this, handle);
+            }
+            return (Handle<O>) this.references[handle];
+        }
+    }
+}
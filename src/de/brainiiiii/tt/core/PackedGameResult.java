@@ -0,0 +1,410 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+/**
+ * Encoding of a game result within a single long value.
+ * 
+ * The bits of the value are used as follows, starting at the lowest bit:
+ * <ul>
+ * <li>2 bits for the winner: 0 for none, 1 for the first and 2 for the 
+ * second opponent,</li>
+ * <li>1 bit set for a walkover,</li>
+ * <li>1 bit set, if the numbers of sets are known,</li>
+ * <li>3 bits for the number of sets won by the first opponent,</li>
+ * <li>3 bits for the number of sets won by the second opponent,</li>
+ * <li>3 bits for the number of sets with known points and</li>
+ * <li>7 bits for every set with known points: 1 bit set, if the second 
+ * opponent has won the set, and 6 bits for the points of the loser.</li>
+ * </ul>
+ * The points of the winner of a set are 11 or the points of the loser plus 
+ * two, whatever is more. Sets with other points can not be encoded.
+ * 
+ * The value zero is a game without any result.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public final class PackedGameResult {
+    
+    /**
+     * The encoding of a game without any result.
+     */
+    public final static long NONE = 0L;
+    
+    /**
+     * The points needed to win a set.
+     */
+    public final static int SET_POINTS = 11;
+    
+    /**
+     * The maximum points of the loser of a set.
+     */
+    public final static int MAX_LOSER_POINTS = 63;
+    
+    private final static int WINNER_A = 1;
+    
+    private final static int WINNER_B = 2;
+    
+    private final static long WINNER_MASK = 0x3L;
+    
+    private final static long WALKOVER = 1L << 2;
+    
+    private final static long SETS = 1L << 3;
+    
+    private final static int SETS_A_SHIFT = 4;
+    
+    private final static int SETS_B_SHIFT = 7;
+    
+    private final static int SET_COUNT_SHIFT = 10;
+    
+    private final static int SET_SHIFT = 13;
+    
+    private final static int SET_BITS = 7;
+    
+    private final static long SET_WON_B = 1L;
+    
+    private PackedGameResult() {
+    }
+    
+    /**
+     * Encodes a game result.
+     * 
+     * @param result The game result.
+     * @return The encoded game result.
+     * @throws IllegalArgumentException If the points of a set can not be 
+     * encoded.
+     */
+    public static long pack(final GameResult<?> result) {
+        if (result instanceof SetsGameResult) {
+            final SetsGameResult<?> sets = (SetsGameResult<?>) result;
+            if (sets.countSets() == 0) {
+                return packSets(sets.getSetsA(), sets.getSetsB());
+            }
+            
+            long packed = packSets(sets.getSetsA(), sets.getSetsB()) | ((long) sets.countSets() << SET_COUNT_SHIFT);
+            for (int set = 0; set < sets.countSets(); ++set) {
+                packed |= packSet(set, sets.getPointsA(set), sets.getPointsB(set));
+            }
+            return packed;
+        }
+        
+        long packed = packWinner(result.getWinner());
+        if (result instanceof WalkoverGameResult) {
+            packed |= WALKOVER;
+        }
+        return packed;
+    }
+    
+    /**
+     * Encodes the last game result of a parser.
+     * 
+     * Every valid result of the parser can be encoded.
+     * 
+     * @param parser The parser.
+     * @return The encoded game result.
+     * @throws IllegalArgumentException If the last result of the parser was
+     * not valid.
+     */
+    public static long pack(final GameResultParser parser) {
+        if (!parser.isValid()) {
+            throw new IllegalArgumentException("The parser has no valid result.");
+        }
+        
+        if (!parser.hasSets()) {
+            long packed = packWinner(parser.getWinner());
+            if (parser.isWalkover()) {
+                packed |= WALKOVER;
+            }
+            return packed;
+        }
+        
+        long packed = packSets(parser.getSetsA(), parser.getSetsB()) | ((long) parser.countSets() << SET_COUNT_SHIFT);
+        for (int set = 0; set < parser.countSets(); ++set) {
+            packed |= packSet(set, parser.getPointsA(set), parser.getPointsB(set));
+        }
+        return packed;
+    }
+    
+    /**
+     * Encodes a game result given by the numbers of sets.
+     * 
+     * @param setsA The number of sets won by the first opponent.
+     * @param setsB The number of sets won by the second opponent.
+     * @return The encoded game result.
+     * @throws IllegalArgumentException If a number of sets can not be 
+     * encoded.
+     */
+    public static long packSets(final int setsA, final int setsB) {
+        if (setsA < 0 || setsA > GameResultParser.MAX_SETS || setsB < 0 || setsB > GameResultParser.MAX_SETS) {
+            throw new IllegalArgumentException("Invalid number of sets " + setsA + ":" + setsB + ".");
+        }
+        
+        final int winner = setsA > setsB ? WINNER_A : (setsB > setsA ? WINNER_B : 0);
+        return winner | SETS | ((long) setsA << SETS_A_SHIFT) | ((long) setsB << SETS_B_SHIFT);
+    }
+    
+    private static long packWinner(final GameResult.Player winner) {
+        if (winner == null) {
+            return 0L;
+        }
+        return winner == GameResult.Player.PLAYER_A ? WINNER_A : WINNER_B;
+    }
+    
+    /**
+     * Checks, whether the points of a set can be encoded.
+     * 
+     * Only finished sets can be encoded: the winner has 11 points or, after 
+     * deuce, two points more than the loser, who has at most 
+     * {@link #MAX_LOSER_POINTS} points.
+     * 
+     * @param pointsA The points of the first opponent.
+     * @param pointsB The points of the second opponent.
+     * @return <i>True</i>, if the set can be encoded.
+     */
+    public static boolean isValidSet(final int pointsA, final int pointsB) {
+        final int loser = Math.min(pointsA, pointsB);
+        final int winner = Math.max(pointsA, pointsB);
+        return loser >= 0 && loser <= MAX_LOSER_POINTS && winner == Math.max(SET_POINTS, loser + 2);
+    }
+    
+    private static long packSet(final int set, final int pointsA, final int pointsB) {
+        if (set >= GameResultParser.MAX_SETS) {
+            throw new IllegalArgumentException("Too many sets.");
+        }
+        if (!isValidSet(pointsA, pointsB)) {
+            throw new IllegalArgumentException("Invalid set " + pointsA + ":" + pointsB + ".");
+        }
+        
+        final boolean wonB = pointsB > pointsA;
+        final int loser = wonB ? pointsA : pointsB;
+        final long bits = (wonB ? SET_WON_B : 0L) | ((long) loser << 1);
+        return bits << (SET_SHIFT + set * SET_BITS);
+    }
+    
+    /**
+     * Returns the winner of an encoded game result.
+     * 
+     * @param packed The encoded game result.
+     * @return The winner or <i>null</i>, if the game has no winner.
+     */
+    public static GameResult.Player getWinner(final long packed) {
+        switch ((int) (packed & WINNER_MASK)) {
+            case WINNER_A:
+                return GameResult.Player.PLAYER_A;
+            case WINNER_B:
+                return GameResult.Player.PLAYER_B;
+        }
+        return null;
+    }
+    
+    /**
+     * Returns, whether the first opponent has won an encoded game result.
+     * 
+     * @param packed The encoded game result.
+     * @return <i>True</i>, if the first opponent has won.
+     */
+    public static boolean hasWonA(final long packed) {
+        return (packed & WINNER_MASK) == WINNER_A;
+    }
+    
+    /**
+     * Returns, whether the second opponent has won an encoded game result.
+     * 
+     * @param packed The encoded game result.
+     * @return <i>True</i>, if the second opponent has won.
+     */
+    public static boolean hasWonB(final long packed) {
+        return (packed & WINNER_MASK) == WINNER_B;
+    }
+    
+    /**
+     * Returns, whether an encoded game result is a walkover.
+     * 
+     * @param packed The encoded game result.
+     * @return <i>True</i>, if the game is a walkover.
+     */
+    public static boolean isWalkover(final long packed) {
+        return (packed & WALKOVER) != 0;
+    }
+    
+    /**
+     * Returns, whether the numbers of sets of an encoded game result are 
+     * known.
+     * 
+     * @param packed The encoded game result.
+     * @return <i>True</i>, if the numbers of sets are known.
+     */
+    public static boolean hasSets(final long packed) {
+        return (packed & SETS) != 0;
+    }
+    
+    /**
+     * Returns the number of sets won by the first opponent.
+     * 
+     * @param packed The encoded game result.
+     * @return The number of sets.
+     */
+    public static int getSetsA(final long packed) {
+        return (int) (packed >>> SETS_A_SHIFT) & 0x7;
+    }
+    
+    /**
+     * Returns the number of sets won by the second opponent.
+     * 
+     * @param packed The encoded game result.
+     * @return The number of sets.
+     */
+    public static int getSetsB(final long packed) {
+        return (int) (packed >>> SETS_B_SHIFT) & 0x7;
+    }
+    
+    /**
+     * Returns the number of sets with known points.
+     * 
+     * @param packed The encoded game result.
+     * @return The number of sets.
+     */
+    public static int countSets(final long packed) {
+        return (int) (packed >>> SET_COUNT_SHIFT) & 0x7;
+    }
+    
+    private static int getSet(final long packed, final int set) {
+        // check parameters with assertions
+        assert(set >= 0 && set < countSets(packed));
+        
+        return (int) (packed >>> (SET_SHIFT + set * SET_BITS)) & 0x7f;
+    }
+    
+    private static int getPoints(final int set, final boolean loser) {
+        final int loserPoints = set >>> 1;
+        if (loser) {
+            return loserPoints;
+        }
+        return Math.max(SET_POINTS, loserPoints + 2);
+    }
+    
+    /**
+     * Returns the points of the first opponent in a set.
+     * 
+     * @param packed The encoded game result.
+     * @param set The index of the set.
+     * @return The points.
+     */
+    public static int getPointsA(final long packed, final int set) {
+        final int bits = getSet(packed, set);
+        return getPoints(bits, (bits & SET_WON_B) != 0);
+    }
+    
+    /**
+     * Returns the points of the second opponent in a set.
+     * 
+     * @param packed The encoded game result.
+     * @param set The index of the set.
+     * @return The points.
+     */
+    public static int getPointsB(final long packed, final int set) {
+        final int bits = getSet(packed, set);
+        return getPoints(bits, (bits & SET_WON_B) == 0);
+    }
+    
+    /**
+     * Returns the sum of the points of the first opponent in all sets.
+     * 
+     * @param packed The encoded game result.
+     * @return The points.
+     */
+    public static int getBallsA(final long packed) {
+        int balls = 0;
+        for (int set = countSets(packed) - 1; set >= 0; --set) {
+            balls += getPointsA(packed, set);
+        }
+        return balls;
+    }
+    
+    /**
+     * Returns the sum of the points of the second opponent in all sets.
+     * 
+     * @param packed The encoded game result.
+     * @return The points.
+     */
+    public static int getBallsB(final long packed) {
+        int balls = 0;
+        for (int set = countSets(packed) - 1; set >= 0; --set) {
+            balls += getPointsB(packed, set);
+        }
+        return balls;
+    }
+    
+    /**
+     * Returns the inverted encoded game result.
+     * 
+     * @param packed The encoded game result.
+     * @return The inverted game result.
+     */
+    public static long invert(final long packed) {
+        long inverted = packed & ~(WINNER_MASK | (0x3fL << SETS_A_SHIFT));
+        
+        final long winner = packed & WINNER_MASK;
+        if (winner == WINNER_A) {
+            inverted |= WINNER_B;
+        } else if (winner == WINNER_B) {
+            inverted |= WINNER_A;
+        }
+        inverted |= ((long) getSetsB(packed) << SETS_A_SHIFT) | ((long) getSetsA(packed) << SETS_B_SHIFT);
+        
+        for (int set = countSets(packed) - 1; set >= 0; --set) {
+            inverted ^= SET_WON_B << (SET_SHIFT + set * SET_BITS);
+        }
+        return inverted;
+    }
+    
+    /**
+     * Creates the game result of an encoded game result.
+     * 
+     * @param <O> The type of the opponents.
+     * @param packed The encoded game result.
+     * @return The game result.
+     */
+    public static <O extends IOpponent> GameResult<O> toGameResult(final long packed) {
+        if (isWalkover(packed)) {
+            return WalkoverGameResult.valueOf(getWinner(packed));
+        }
+        if (!hasSets(packed)) {
+            return WinnerGameResult.valueOf(getWinner(packed));
+        }
+        
+        final int count = countSets(packed);
+        if (count == 0) {
+            return SetsGameResult.valueOf(getSetsA(packed), getSetsB(packed));
+        }
+        
+        final int[] pointsA = new int[count];
+        final int[] pointsB = new int[count];
+        for (int set = 0; set < count; ++set) {
+            pointsA[set] = getPointsA(packed, set);
+            pointsB[set] = getPointsB(packed, set);
+        }
+        return new SetsGameResult<>(pointsA, pointsB);
+    }
+}
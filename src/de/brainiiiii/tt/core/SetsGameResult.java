@@ -0,0 +1,242 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+/**
+ * A game result holding the number of sets won by both opponents.
+ * 
+ * Optionally the points of every set are known as well. If the points are
+ * not known, the result only consists of the numbers of sets, e.g. "3:1".
+ * The results consisting of the numbers of sets only without opponents are 
+ * shared instances, returned by {@link #valueOf(int, int)}.
+ *
+ * @param <O> The opponent type.
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class SetsGameResult<O extends IOpponent> extends GameResult<O> {
+    
+    /**
+     * The points of a result consisting of the numbers of sets only.
+     */
+    private final static int[] NO_POINTS = new int[0];
+    
+    /**
+     * The shared results consisting of the numbers of sets only, indexed by 
+     * both numbers of sets.
+     */
+    private final static SetsGameResult<?>[][] VALUES = new SetsGameResult<?>[GameResultParser.MAX_SETS + 1][GameResultParser.MAX_SETS + 1];
+    
+    static {
+        for (int setsA = 0; setsA < VALUES.length; ++setsA) {
+            for (int setsB = 0; setsB < VALUES.length; ++setsB) {
+                VALUES[setsA][setsB] = new SetsGameResult<>(setsA, setsB);
+            }
+        }
+    }
+    
+    private final int setsA;
+    
+    private final int setsB;
+    
+    /**
+     * The points of the first opponent in every set.
+     * 
+     * The array is empty, if the points are not known.
+     */
+    private final int[] pointsA;
+    
+    /**
+     * The points of the second opponent in every set.
+     */
+    private final int[] pointsB;
+    
+    /**
+     * Creates a new result with the numbers of sets only.
+     * 
+     * Such results are shared, so their inverted results are shared as 
+     * well, and are available by {@link #valueOf(int, int)} only.
+     * 
+     * @param setsA The number of sets won by the first opponent.
+     * @param setsB The number of sets won by the second opponent.
+     */
+    private SetsGameResult(final int setsA, final int setsB) {
+        this(setsA, setsB, NO_POINTS, NO_POINTS, null, null);
+    }
+    
+    /**
+     * Creates a new result with the points of every set.
+     * 
+     * @param pointsA The points of the first opponent in every set.
+     * @param pointsB The points of the second opponent in every set.
+     */
+    public SetsGameResult(final int[] pointsA, final int[] pointsB) {
+        this(countSets(pointsA, pointsB), countSets(pointsB, pointsA), pointsA.clone(), pointsB.clone(), null, null);
+    }
+    
+    /**
+     * Creates a new result.
+     * 
+     * The arrays of points are not copied, so they must not be changed
+     * afterwards.
+     * 
+     * @param setsA The number of sets won by the first opponent.
+     * @param setsB The number of sets won by the second opponent.
+     * @param pointsA The points of the first opponent in every set.
+     * @param pointsB The points of the second opponent in every set.
+     * @param opponentA The first opponent.
+     * @param opponentB The second opponent.
+     */
+    private SetsGameResult(final int setsA, final int setsB, final int[] pointsA, final int[] pointsB, final IIsOpponent<O> opponentA, final IIsOpponent<O> opponentB) {
+        super(opponentA, opponentB);
+        
+        // check parameters with assertions
+        assert(setsA >= 0);
+        assert(setsB >= 0);
+        assert(pointsA.length == pointsB.length);
+        
+        this.setsA = setsA;
+        this.setsB = setsB;
+        this.pointsA = pointsA;
+        this.pointsB = pointsB;
+    }
+    
+    /**
+     * Returns the shared result consisting of the numbers of sets only.
+     * 
+     * @param <O> The opponent type.
+     * @param setsA The number of sets won by the first opponent.
+     * @param setsB The number of sets won by the second opponent.
+     * @return The shared result.
+     */
+    @SuppressWarnings("unchecked")
+    public static <O extends IOpponent> SetsGameResult<O> valueOf(final int setsA, final int setsB) {
+        if (setsA < VALUES.length && setsB < VALUES.length) {
+            return (SetsGameResult<O>) VALUES[setsA][setsB];
+        }
+        return new SetsGameResult<>(setsA, setsB);
+    }
+    
+    /**
+     * Counts the sets won by the first opponent.
+     * 
+     * @param pointsA The points of the first opponent in every set.
+     * @param pointsB The points of the second opponent in every set.
+     * @return The number of sets won by the first opponent.
+     */
+    private static int countSets(final int[] pointsA, final int[] pointsB) {
+        int sets = 0;
+        for (int i = 0; i < pointsA.length; ++i) {
+            if (pointsA[i] > pointsB[i]) {
+                sets++;
+            }
+        }
+        return sets;
+    }
+    
+    /**
+     * Returns the number of sets won by the first opponent.
+     * 
+     * @return The number of sets.
+     */
+    public int getSetsA() {
+        return this.setsA;
+    }
+    
+    /**
+     * Returns the number of sets won by the second opponent.
+     * 
+     * @return The number of sets.
+     */
+    public int getSetsB() {
+        return this.setsB;
+    }
+    
+    /**
+     * Returns the number of sets with known points.
+     * 
+     * @return The number of sets or zero, if the points are not known.
+     */
+    public int countSets() {
+        return this.pointsA.length;
+    }
+    
+    /**
+     * Returns the points of the first opponent in a set.
+     * 
+     * @param set The index of the set.
+     * @return The points.
+     */
+    public int getPointsA(final int set) {
+        return this.pointsA[set];
+    }
+    
+    /**
+     * Returns the points of the second opponent in a set.
+     * 
+     * @param set The index of the set.
+     * @return The points.
+     */
+    public int getPointsB(final int set) {
+        return this.pointsB[set];
+    }
+
+    @Override
+    public Player getWinner() {
+        if (this.setsA > this.setsB) {
+            return Player.PLAYER_A;
+        } else if (this.setsB > this.setsA) {
+            return Player.PLAYER_B;
+        }
+        return null;
+    }
+
+    @Override
+    protected GameResult<O> createInvertedResult() {
+        if (this.pointsA.length == 0 && !this.hasOpponents() && this == valueOf(this.setsA, this.setsB)) {
+            return valueOf(this.setsB, this.setsA);
+        }
+        return new SetsGameResult<>(this.setsB, this.setsA, this.pointsB, this.pointsA, this.opponents[1], this.opponents[0]);
+    }
+
+    @Override
+    public GameResult<O> withOpponents(final IIsOpponent<O> opponentA, final IIsOpponent<O> opponentB) {
+        return new SetsGameResult<>(this.setsA, this.setsB, this.pointsA, this.pointsB, opponentA, opponentB);
+    }
+
+    @Override
+    public String getText() {
+        if (this.pointsA.length == 0) {
+            return this.setsA + ":" + this.setsB;
+        }
+        
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < this.pointsA.length; ++i) {
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(this.pointsA[i]).append(':').append(this.pointsB[i]);
+        }
+        return text.toString();
+    }
+}
@@ -39,6 +39,15 @@ public class SingleOpponent implements IOpponent, IIsOpponent {
         this.player = player;
     }
 
+    /**
+     * Returns the player of this opponent.
+     * 
+     * @return The player.
+     */
+    public Player getPlayer() {
+        return this.player;
+    }
+
     @Override
     public boolean isMarked(IMarker marker) {
         return marker.isPlayerMarked(this.player);
@@ -48,5 +57,24 @@ public class SingleOpponent implements IOpponent, IIsOpponent {
     public IOpponent getOpponent() {
         return this;
     }
+
+    /**
+     * Two opponents are equal, if they have the same player.
+     * 
+     * @param obj The other object.
+     * @return <i>True</i>, if the other object is an equal opponent.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof SingleOpponent)) {
+            return false;
+        }
+        return this.player.playerId == ((SingleOpponent) obj).player.playerId;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.player.playerId;
+    }
     
 }
@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+/**
+ * An expectation model using a precomputed table.
+ * 
+ * The table contains the expected score for every difference of points within
+ * the range of the table. The values of the table are calculated with the 
+ * {@link ExactExpectationModel}, so the table returns the very same values 
+ * as the exact model, including the values of its formula outside of [0, 1]
+ * and <i>NaN</i>. Comparing the table with the exact model therefore only 
+ * shows, that the table is filled correctly; whether the values are valid 
+ * expectations is told by {@link #getInvalidCount()}. Differences outside of
+ * the range are calculated exactly on every call.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class TableExpectationModel implements IExpectationModel {
+    
+    /**
+     * The default range of the table.
+     * 
+     * The range covers all differences between players with at most 4000
+     * points.
+     */
+    public final static int DEFAULT_RANGE = 4000;
+    
+    /**
+     * The maximum absolute difference of points covered by the table.
+     */
+    private final int range;
+    
+    /**
+     * The expected scores, indexed by the difference of points plus the range.
+     */
+    private final double[] table;
+    
+    /**
+     * The number of values of the table, which are no valid expectations.
+     */
+    private final int invalidCount;
+    
+    /**
+     * Creates a new table with the default range.
+     */
+    public TableExpectationModel() {
+        this(DEFAULT_RANGE);
+    }
+    
+    /**
+     * Creates a new table.
+     * 
+     * @param range The maximum absolute difference of points covered by the
+     * table.
+     */
+    public TableExpectationModel(final int range) {
+        // check parameters with assertions
+        assert(range >= 0);
+        
+        this.range = range;
+        this.table = new double[2 * range + 1];
+        int invalid = 0;
+        for (int i = 0; i < this.table.length; ++i) {
+            this.table[i] = ExactExpectationModel.expectation(i - range);
+            if (!(this.table[i] >= 0.0 && this.table[i] <= 1.0)) {
+                invalid++;
+            }
+        }
+        this.invalidCount = invalid;
+    }
+    
+    /**
+     * Returns the maximum absolute difference of points covered by the table.
+     * 
+     * @return The range of the table.
+     */
+    public int getRange() {
+        return this.range;
+    }
+    
+    /**
+     * Returns the number of differences within the range, whose expected 
+     * score is <i>NaN</i> or outside of [0, 1].
+     * 
+     * @return The number of invalid values of the table.
+     */
+    public int getInvalidCount() {
+        return this.invalidCount;
+    }
+    
+    @Override
+    public double getExpectation(final int pointsA, final int pointsB) {
+        final int pointDiff = pointsB - pointsA;
+        final int index = pointDiff + this.range;
+        if (index >= 0 && index < this.table.length) {
+            return this.table[index];
+        }
+        return ExactExpectationModel.expectation(pointDiff);
+    }
+}
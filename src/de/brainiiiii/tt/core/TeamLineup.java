@@ -0,0 +1,88 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+/**
+ * The livepz values of the line-up of a team within a team match.
+ * 
+ * The positions of a team match system start at one, so the value of the 
+ * position <i>n</i> is held at the index <i>n - 1</i>. Doubles have no livepz
+ * of their own, so the value of a double is given by the user, e.g. as the
+ * mean of both players.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class TeamLineup {
+    
+    private final int[] singles;
+    
+    private final int[] doubles;
+    
+    /**
+     * Creates a new line-up.
+     * 
+     * @param singles The livepz of the single positions.
+     * @param doubles The livepz of the double positions.
+     */
+    public TeamLineup(final int[] singles, final int[] doubles) {
+        // check parameters with assertions
+        assert(singles != null);
+        assert(doubles != null);
+        
+        this.singles = singles.clone();
+        this.doubles = doubles.clone();
+    }
+    
+    /**
+     * Returns the livepz of a position.
+     * 
+     * @param type The type of the match.
+     * @param position The position, starting at one.
+     * @return The livepz.
+     */
+    public int getLivePZ(final MatchType type, final int position) {
+        if (type.isDouble()) {
+            return this.doubles[position - 1];
+        }
+        return this.singles[position - 1];
+    }
+    
+    /**
+     * Returns the number of single positions.
+     * 
+     * @return The number of single positions.
+     */
+    public int countSingles() {
+        return this.singles.length;
+    }
+    
+    /**
+     * Returns the number of double positions.
+     * 
+     * @return The number of double positions.
+     */
+    public int countDoubles() {
+        return this.doubles.length;
+    }
+}
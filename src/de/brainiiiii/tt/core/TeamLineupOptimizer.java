@@ -0,0 +1,499 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Searches the line-up of a team, which maximizes the expected points 
+ * against a known line-up of the opponent team.
+ * 
+ * The expected points of a line-up are the sum of the win probabilities of 
+ * all matches of the team match system. Every player takes at most one 
+ * single position and at most one double, the livepz of a double is the 
+ * mean of both players. The players of the doubles must have a single 
+ * position, unless the system has too few single positions for all doubles.
+ * 
+ * The expected points of every player (or pair) on every position are 
+ * calculated once. The single positions are then filled by a 
+ * branch-and-bound search, which drops a branch as soon as it cannot beat 
+ * the best line-up found so far by any task, bounding the doubles by their 
+ * best points without restriction. For every complete set of single players
+ * the best doubles among these players are searched the same way. The 
+ * candidates of the first single position are searched in parallel.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class TeamLineupOptimizer {
+    
+    /**
+     * The maximum number of players of a team.
+     */
+    public final static int MAX_PLAYERS = 64;
+    
+    private final TeamMatchSystem system;
+    
+    private final IExpectationModel expectationModel;
+    
+    private final ForkJoinPool pool;
+    
+    /**
+     * An optimized line-up.
+     */
+    public static class Assignment {
+        
+        private final int[] singles;
+        
+        private final int[][] doubles;
+        
+        private final TeamLineup lineup;
+        
+        private final double expectedPoints;
+        
+        Assignment(final int[] singles, final int[][] doubles, final TeamLineup lineup, final double expectedPoints) {
+            this.singles = singles;
+            this.doubles = doubles;
+            this.lineup = lineup;
+            this.expectedPoints = expectedPoints;
+        }
+        
+        /**
+         * Returns the player of a single position.
+         * 
+         * @param position The position, starting at one.
+         * @return The index of the player within the given players.
+         */
+        public int getSinglePlayer(final int position) {
+            return this.singles[position - 1];
+        }
+        
+        /**
+         * Returns a player of a double position.
+         * 
+         * @param position The position, starting at one.
+         * @param player The player of the double, zero or one.
+         * @return The index of the player within the given players.
+         */
+        public int getDoublePlayer(final int position, final int player) {
+            return this.doubles[position - 1][player];
+        }
+        
+        /**
+         * Returns the livepz of the line-up.
+         * 
+         * @return The line-up.
+         */
+        public TeamLineup getLineup() {
+            return this.lineup;
+        }
+        
+        /**
+         * Returns the expected points of the line-up.
+         * 
+         * @return The expected number of won matches.
+         */
+        public double getExpectedPoints() {
+            return this.expectedPoints;
+        }
+    }
+    
+    /**
+     * Creates a new optimizer running on the pool shared by the calculators.
+     * 
+     * @param system The team match system.
+     * @param expectationModel The model of the win probabilities.
+     */
+    public TeamLineupOptimizer(final TeamMatchSystem system, final IExpectationModel expectationModel) {
+        this(system, expectationModel, LivePZCalculator.sharedPool());
+    }
+    
+    /**
+     * Creates a new optimizer.
+     * 
+     * @param system The team match system.
+     * @param expectationModel The model of the win probabilities.
+     * @param pool The pool to search on.
+     */
+    public TeamLineupOptimizer(final TeamMatchSystem system, final IExpectationModel expectationModel, final ForkJoinPool pool) {
+        // check parameters with assertions
+        assert(system != null);
+        assert(expectationModel != null);
+        assert(pool != null);
+        
+        this.system = system;
+        this.expectationModel = expectationModel;
+        this.pool = pool;
+    }
+    
+    /**
+     * Searches the best line-up of the first team.
+     * 
+     * @param players The livepz of the available players of the first team.
+     * @param opponent The line-up of the second team.
+     * @return The best line-up.
+     */
+    public Assignment optimize(final int[] players, final TeamLineup opponent) {
+        // check parameters with assertions
+        assert(players.length >= this.system.countSingleOpponents());
+        assert(players.length >= 2 * this.system.countDoubleOpponents());
+        assert(players.length <= MAX_PLAYERS);
+        assert(opponent.countSingles() >= this.system.countSingleOpponents());
+        assert(opponent.countDoubles() >= this.system.countDoubleOpponents());
+        
+        final int singleCount = this.system.countSingleOpponents();
+        final int doubleCount = this.system.countDoubleOpponents();
+        
+        // candidates of the single positions: every player
+        final long[] singleMasks = new long[players.length];
+        final int[] singleValues = new int[players.length];
+        for (int player = 0; player < players.length; ++player) {
+            singleMasks[player] = 1L << player;
+            singleValues[player] = players[player];
+        }
+        
+        // candidates of the double positions: every pair of players
+        final int pairCount = players.length * (players.length - 1) / 2;
+        final long[] doubleMasks = new long[pairCount];
+        final int[] doubleValues = new int[pairCount];
+        int pair = 0;
+        for (int first = 0; first < players.length; ++first) {
+            for (int second = first + 1; second < players.length; ++second) {
+                doubleMasks[pair] = (1L << first) | (1L << second);
+                doubleValues[pair] = (players[first] + players[second]) / 2;
+                pair++;
+            }
+        }
+        
+        final Search doubleSearch = new Search(this.candidatePoints(MatchType.DOUBLE, doubleCount, doubleValues, opponent), doubleMasks, null);
+        final int[] singles;
+        final int[] doubles;
+        if (singleCount >= 2 * doubleCount) {
+            // the doubles are searched among the players of every set of singles
+            final SearchTask best = this.run(new Search(this.candidatePoints(MatchType.SINGLE, singleCount, singleValues, opponent), singleMasks, doubleSearch), true);
+            singles = best.best;
+            doubles = best.bestDoubles;
+        } else {
+            singles = this.run(new Search(this.candidatePoints(MatchType.SINGLE, singleCount, singleValues, opponent), singleMasks, null), true).best;
+            doubles = this.run(doubleSearch, true).best;
+        }
+        
+        // build the assignment
+        final int[] singlePlayers = new int[singleCount];
+        final int[] singleLivePZ = new int[singleCount];
+        for (int position = 0; position < singleCount; ++position) {
+            singlePlayers[position] = Long.numberOfTrailingZeros(singleMasks[singles[position]]);
+            singleLivePZ[position] = singleValues[singles[position]];
+        }
+        final int[][] doublePlayers = new int[doubleCount][2];
+        final int[] doubleLivePZ = new int[doubleCount];
+        for (int position = 0; position < doubleCount; ++position) {
+            final long mask = doubleMasks[doubles[position]];
+            doublePlayers[position][0] = Long.numberOfTrailingZeros(mask);
+            doublePlayers[position][1] = 63 - Long.numberOfLeadingZeros(mask);
+            doubleLivePZ[position] = doubleValues[doubles[position]];
+        }
+        final TeamLineup lineup = new TeamLineup(singleLivePZ, doubleLivePZ);
+        
+        double expectedPoints = 0.0;
+        for (int match = 0; match < this.system.countMatches(); ++match) {
+            final MatchType type = this.system.getMatchType(match);
+            expectedPoints += TeamMatchSimulator.winProbability(this.expectationModel, 
+                    lineup.getLivePZ(type, this.system.getOpponentIndexA(match)), 
+                    opponent.getLivePZ(type, this.system.getOpponentIndexB(match)));
+        }
+        return new Assignment(singlePlayers, doublePlayers, lineup, expectedPoints);
+    }
+    
+    /**
+     * Calculates the expected points of every candidate on every position 
+     * of a match type.
+     */
+    private double[][] candidatePoints(final MatchType type, final int positionCount, final int[] values, final TeamLineup opponent) {
+        final double[][] points = new double[positionCount][values.length];
+        for (int position = 0; position < positionCount; ++position) {
+            for (long matches = this.system.getMatchMaskA(type, position + 1); matches != 0; matches &= matches - 1) {
+                final int match = Long.numberOfTrailingZeros(matches);
+                final int opponentValue = opponent.getLivePZ(type, this.system.getOpponentIndexB(match));
+                for (int candidate = 0; candidate < values.length; ++candidate) {
+                    points[position][candidate] += TeamMatchSimulator.winProbability(this.expectationModel, values[candidate], opponentValue);
+                }
+            }
+        }
+        return points;
+    }
+    
+    /**
+     * Runs a search, either in parallel on the pool or within the calling 
+     * thread.
+     * 
+     * @return The task, which found the best line-up.
+     */
+    private SearchTask run(final Search search, final boolean parallel) {
+        final List<SearchTask> tasks = new ArrayList<>();
+        if (search.order.length == 0) {
+            tasks.add(new SearchTask(search, -1));
+        } else {
+            for (final int candidate : search.order[0]) {
+                tasks.add(new SearchTask(search, candidate));
+            }
+        }
+        if (parallel && tasks.size() > 1) {
+            for (final SearchTask task : tasks) {
+                this.pool.execute(task);
+            }
+            for (final SearchTask task : tasks) {
+                task.join();
+            }
+        } else {
+            for (final SearchTask task : tasks) {
+                task.compute();
+            }
+        }
+        
+        // the first task of the best points wins, so the result does not 
+        // depend on the scheduling of the tasks
+        SearchTask best = null;
+        for (final SearchTask task : tasks) {
+            if (task.best != null && (best == null || task.bestPoints > best.bestPoints)) {
+                best = task;
+            }
+        }
+        assert(best != null);
+        return best;
+    }
+    
+    /**
+     * Searches the best doubles among a set of players.
+     * 
+     * @return The task, which found the best doubles, or <i>null</i> if 
+     * there are too few players.
+     */
+    private SearchTask searchDoubles(final Search doubles, final long players) {
+        // the candidates made of the given players only
+        int count = 0;
+        final int[] candidates = new int[doubles.masks.length];
+        for (int candidate = 0; candidate < doubles.masks.length; ++candidate) {
+            if ((doubles.masks[candidate] & ~players) == 0) {
+                candidates[count++] = candidate;
+            }
+        }
+        final long[] masks = new long[count];
+        final double[][] points = new double[doubles.points.length][count];
+        for (int i = 0; i < count; ++i) {
+            masks[i] = doubles.masks[candidates[i]];
+            for (int position = 0; position < points.length; ++position) {
+                points[position][i] = doubles.points[position][candidates[i]];
+            }
+        }
+        if (points.length > 0 && count == 0) {
+            return null;
+        }
+        
+        final SearchTask best = this.run(new Search(points, masks, null), false);
+        if (best.best == null) {
+            return null;
+        }
+        for (int position = 0; position < best.best.length; ++position) {
+            best.best[position] = candidates[best.best[position]];
+        }
+        return best;
+    }
+    
+    /**
+     * Returns the candidates sorted by descending points.
+     */
+    private static int[] sortCandidates(final double[] points) {
+        final Integer[] candidates = new Integer[points.length];
+        for (int candidate = 0; candidate < points.length; ++candidate) {
+            candidates[candidate] = candidate;
+        }
+        // the sort is stable, so the candidate breaks ties
+        Arrays.sort(candidates, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer a, final Integer b) {
+                return Double.compare(points[b], points[a]);
+            }
+        });
+        final int[] order = new int[points.length];
+        for (int i = 0; i < order.length; ++i) {
+            order[i] = candidates[i];
+        }
+        return order;
+    }
+    
+    /**
+     * The state of a search shared by all tasks.
+     */
+    private static class Search {
+        
+        final double[][] points;
+        
+        final long[] masks;
+        
+        final int[][] order;
+        
+        final double[] bounds;
+        
+        /**
+         * The search of the doubles among the players of every complete 
+         * line-up or <i>null</i>, if there are no such doubles.
+         */
+        final Search doubles;
+        
+        /**
+         * The best points, which the doubles can reach.
+         */
+        final double doublesBound;
+        
+        /**
+         * The bits of the best points found by any task.
+         */
+        final AtomicLong bestBits = new AtomicLong(Double.doubleToLongBits(-1.0));
+        
+        Search(final double[][] points, final long[] masks, final Search doubles) {
+            final int positionCount = points.length;
+            this.points = points;
+            this.masks = masks;
+            this.doubles = doubles;
+            this.doublesBound = doubles == null ? 0.0 : doubles.bounds[0];
+            
+            // the candidates of every position, the best ones first, and the
+            // best points, which the remaining positions can reach
+            this.order = new int[positionCount][];
+            this.bounds = new double[positionCount + 1];
+            for (int position = positionCount - 1; position >= 0; --position) {
+                this.order[position] = sortCandidates(points[position]);
+                this.bounds[position] = this.bounds[position + 1] + (masks.length == 0 ? 0.0 : points[position][this.order[position][0]]);
+            }
+        }
+        
+        double getBest() {
+            return Double.longBitsToDouble(this.bestBits.get());
+        }
+        
+        void offer(final double points) {
+            long bits;
+            do {
+                bits = this.bestBits.get();
+                if (points <= Double.longBitsToDouble(bits)) {
+                    return;
+                }
+            } while (!this.bestBits.compareAndSet(bits, Double.doubleToLongBits(points)));
+        }
+    }
+    
+    /**
+     * Task searching all line-ups starting with one candidate.
+     */
+    private class SearchTask extends RecursiveTask<int[]> {
+        
+        private final static long serialVersionUID = 1L;
+        
+        private final Search search;
+        
+        private final int first;
+        
+        private final int[] current;
+        
+        int[] best;
+        
+        int[] bestDoubles;
+        
+        double bestPoints = -1.0;
+        
+        /**
+         * The best doubles of the sets of players already searched.
+         */
+        private final Map<Long, SearchTask> doubles = new HashMap<>();
+        
+        SearchTask(final Search search, final int first) {
+            this.search = search;
+            this.first = first;
+            this.current = new int[search.order.length];
+        }
+
+        @Override
+        protected int[] compute() {
+            if (this.current.length == 0) {
+                this.search(0, 0L, 0.0);
+            } else {
+                this.current[0] = this.first;
+                this.search(1, this.search.masks[this.first], this.search.points[0][this.first]);
+            }
+            return this.best;
+        }
+        
+        private void search(final int position, final long used, final double points) {
+            // drop the branch, if it cannot beat the best line-up; equal 
+            // line-ups are kept, so every task finds its first best line-up
+            if (points + this.search.bounds[position] + this.search.doublesBound < this.search.getBest()) {
+                return;
+            }
+            if (position == this.current.length) {
+                double total = points;
+                SearchTask doubles = null;
+                if (this.search.doubles != null) {
+                    if (!this.doubles.containsKey(used)) {
+                        this.doubles.put(used, TeamLineupOptimizer.this.searchDoubles(this.search.doubles, used));
+                    }
+                    doubles = this.doubles.get(used);
+                    if (doubles == null) {
+                        return;
+                    }
+                    total += doubles.bestPoints;
+                }
+                if (total > this.bestPoints) {
+                    this.bestPoints = total;
+                    this.best = this.current.clone();
+                    this.bestDoubles = doubles == null ? null : doubles.best;
+                    this.search.offer(total);
+                }
+                return;
+            }
+            
+            final double[] candidatePoints = this.search.points[position];
+            for (final int candidate : this.search.order[position]) {
+                final long mask = this.search.masks[candidate];
+                if ((used & mask) != 0) {
+                    continue;
+                }
+                final double next = points + candidatePoints[candidate];
+                if (next + this.search.bounds[position + 1] + this.search.doublesBound < this.search.getBest()) {
+                    // the candidates are sorted, so no other one can do better
+                    break;
+                }
+                this.current[position] = candidate;
+                this.search(position + 1, used | mask, next);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+/**
+ * The probabilities of the final scores of a team match.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class TeamMatchForecast {
+    
+    /**
+     * The probabilities, indexed by the wins of both teams.
+     */
+    private final double[][] probabilities;
+    
+    private final int winningScore;
+    
+    TeamMatchForecast(final double[][] probabilities, final int winningScore) {
+        this.probabilities = probabilities;
+        this.winningScore = winningScore;
+    }
+    
+    /**
+     * Returns the probability of a final score.
+     * 
+     * @param winsA The wins of the first team.
+     * @param winsB The wins of the second team.
+     * @return The probability.
+     */
+    public double getProbability(final int winsA, final int winsB) {
+        if (winsA < 0 || winsB < 0 || winsA >= this.probabilities.length || winsB >= this.probabilities.length) {
+            return 0.0;
+        }
+        return this.probabilities[winsA][winsB];
+    }
+    
+    /**
+     * Returns the probability, that the first team wins the team match.
+     * 
+     * @return The probability.
+     */
+    public double getWinProbabilityA() {
+        double sum = 0.0;
+        for (int b = 0; b < this.probabilities.length; ++b) {
+            sum += this.getProbability(this.winningScore, b);
+        }
+        return sum;
+    }
+    
+    /**
+     * Returns the probability, that the second team wins the team match.
+     * 
+     * @return The probability.
+     */
+    public double getWinProbabilityB() {
+        double sum = 0.0;
+        for (int a = 0; a < this.probabilities.length; ++a) {
+            sum += this.getProbability(a, this.winningScore);
+        }
+        return sum;
+    }
+    
+    /**
+     * Returns the probability of a draw.
+     * 
+     * @return The probability.
+     */
+    public double getDrawProbability() {
+        return Math.max(0.0, 1.0 - this.getWinProbabilityA() - this.getWinProbabilityB());
+    }
+}
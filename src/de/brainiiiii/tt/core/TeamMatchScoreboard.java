@@ -0,0 +1,298 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+import java.util.Arrays;
+
+/**
+ * The live score of a team match.
+ * 
+ * The scoreboard keeps the result of every match of the team match system 
+ * and the sums of matches, sets and balls won by both teams. The sums are 
+ * updated on every change of a result, so every update and every query has
+ * constant costs. Walkovers count as won matches without any sets or balls.
+ * A match counts as played, once it has a winner; the sets and balls of a 
+ * running match are counted already.
+ * 
+ * The scoreboard is thread safe.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class TeamMatchScoreboard {
+    
+    private final TeamMatchSystem system;
+    
+    /**
+     * The encoded results of all matches, {@link PackedGameResult#NONE} for
+     * matches not played yet.
+     */
+    private final long[] results;
+    
+    /**
+     * The matches won by the first team as bitmask.
+     */
+    private long wonMaskA = 0L;
+    
+    /**
+     * The matches won by the second team as bitmask.
+     */
+    private long wonMaskB = 0L;
+    
+    /**
+     * The number of matches with a winner.
+     */
+    private int played = 0;
+    
+    private int winsA = 0;
+    
+    private int winsB = 0;
+    
+    private int setsA = 0;
+    
+    private int setsB = 0;
+    
+    private int ballsA = 0;
+    
+    private int ballsB = 0;
+    
+    /**
+     * Creates a new scoreboard without any results.
+     * 
+     * @param system The team match system.
+     */
+    public TeamMatchScoreboard(final TeamMatchSystem system) {
+        // check parameters with assertions
+        assert(system != null);
+        
+        this.system = system;
+        this.results = new long[system.countMatches()];
+    }
+    
+    /**
+     * Returns the team match system.
+     * 
+     * @return The team match system.
+     */
+    public TeamMatchSystem getSystem() {
+        return this.system;
+    }
+    
+    /**
+     * Sets the result of a match.
+     * 
+     * A previous result of the match is replaced.
+     * 
+     * @param matchIndex The index of the match.
+     * @param result The result.
+     */
+    public void setResult(final int matchIndex, final GameResult<?> result) {
+        this.setResult(matchIndex, PackedGameResult.pack(result));
+    }
+    
+    /**
+     * Sets the encoded result of a match.
+     * 
+     * A previous result of the match is replaced.
+     * 
+     * @param matchIndex The index of the match.
+     * @param packed The encoded result or {@link PackedGameResult#NONE} to 
+     * remove the result.
+     */
+    public synchronized void setResult(final int matchIndex, final long packed) {
+        this.count(this.results[matchIndex], -1);
+        this.results[matchIndex] = packed;
+        this.count(packed, 1);
+        
+        final long bit = 1L << matchIndex;
+        this.wonMaskA = PackedGameResult.hasWonA(packed) ? this.wonMaskA | bit : this.wonMaskA & ~bit;
+        this.wonMaskB = PackedGameResult.hasWonB(packed) ? this.wonMaskB | bit : this.wonMaskB & ~bit;
+    }
+    
+    /**
+     * Removes the result of a match.
+     * 
+     * @param matchIndex The index of the match.
+     */
+    public void clearResult(final int matchIndex) {
+        this.setResult(matchIndex, PackedGameResult.NONE);
+    }
+    
+    /**
+     * Removes all results.
+     */
+    public synchronized void clear() {
+        Arrays.fill(this.results, PackedGameResult.NONE);
+        this.wonMaskA = 0L;
+        this.wonMaskB = 0L;
+        this.played = 0;
+        this.winsA = 0;
+        this.winsB = 0;
+        this.setsA = 0;
+        this.setsB = 0;
+        this.ballsA = 0;
+        this.ballsB = 0;
+    }
+    
+    private void count(final long packed, final int sign) {
+        if (packed == PackedGameResult.NONE) {
+            return;
+        }
+        
+        if (PackedGameResult.hasWonA(packed)) {
+            this.played += sign;
+            this.winsA += sign;
+        } else if (PackedGameResult.hasWonB(packed)) {
+            this.played += sign;
+            this.winsB += sign;
+        }
+        if (PackedGameResult.hasSets(packed)) {
+            this.setsA += sign * PackedGameResult.getSetsA(packed);
+            this.setsB += sign * PackedGameResult.getSetsB(packed);
+            this.ballsA += sign * PackedGameResult.getBallsA(packed);
+            this.ballsB += sign * PackedGameResult.getBallsB(packed);
+        }
+    }
+    
+    /**
+     * Returns the encoded result of a match.
+     * 
+     * @param matchIndex The index of the match.
+     * @return The encoded result or {@link PackedGameResult#NONE}, if the 
+     * match has not been played yet.
+     */
+    public synchronized long getResult(final int matchIndex) {
+        return this.results[matchIndex];
+    }
+    
+    /**
+     * Returns the number of matches with a winner.
+     * 
+     * Running matches without a winner are not counted.
+     * 
+     * @return The number of played matches.
+     */
+    public synchronized int countPlayed() {
+        return this.played;
+    }
+    
+    public synchronized int getWinsA() {
+        return this.winsA;
+    }
+    
+    public synchronized int getWinsB() {
+        return this.winsB;
+    }
+    
+    /**
+     * Returns the matches won by a position of the first team.
+     * 
+     * @param type The type of the matches.
+     * @param position The position, starting at one.
+     * @return The number of won matches.
+     */
+    public synchronized int getWinsA(final MatchType type, final int position) {
+        return Long.bitCount(this.wonMaskA & this.system.getMatchMaskA(type, position));
+    }
+    
+    /**
+     * Returns the matches won by a position of the second team.
+     * 
+     * @param type The type of the matches.
+     * @param position The position, starting at one.
+     * @return The number of won matches.
+     */
+    public synchronized int getWinsB(final MatchType type, final int position) {
+        return Long.bitCount(this.wonMaskB & this.system.getMatchMaskB(type, position));
+    }
+    
+    public synchronized int getSetsA() {
+        return this.setsA;
+    }
+    
+    public synchronized int getSetsB() {
+        return this.setsB;
+    }
+    
+    public synchronized int getBallsA() {
+        return this.ballsA;
+    }
+    
+    public synchronized int getBallsB() {
+        return this.ballsB;
+    }
+    
+    /**
+     * Checks, whether the team match is decided.
+     * 
+     * The team match is decided, if a team has reached the winning score of
+     * the system or all matches have been played.
+     * 
+     * @return <i>True</i>, if the team match is decided.
+     */
+    public synchronized boolean isDecided() {
+        final int winningScore = this.system.getWinningScore();
+        return this.winsA >= winningScore 
+                || this.winsB >= winningScore 
+                || this.played == this.results.length;
+    }
+    
+    /**
+     * Returns the winner of the team match.
+     * 
+     * @return The winning team or <i>null</i>, if the team match is not 
+     * decided yet or is a draw.
+     */
+    public synchronized GameResult.Player getWinner() {
+        final int winningScore = this.system.getWinningScore();
+        if (this.winsA >= winningScore) {
+            return GameResult.Player.PLAYER_A;
+        } else if (this.winsB >= winningScore) {
+            return GameResult.Player.PLAYER_B;
+        }
+        return null;
+    }
+    
+    /**
+     * Checks, whether the team match ended in a draw.
+     * 
+     * @return <i>True</i>, if all matches have been played without a winner.
+     */
+    public synchronized boolean isDraw() {
+        return this.played == this.results.length && this.getWinner() == null;
+    }
+    
+    /**
+     * Returns the display text of the score.
+     * 
+     * @return The display text.
+     */
+    public synchronized String getText() {
+        return String.format("%d:%d", this.winsA, this.winsB);
+    }
+
+    @Override
+    public String toString() {
+        return this.getText();
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Forecasts the final score of a team match.
+ * 
+ * Every remaining match is won by the first team with the probability given
+ * by an expectation model, which must return probabilities for all points,
+ * like the {@link LogisticExpectationModel}. The matches are played 
+ * in the order of the team match system, until one of the teams has reached
+ * the winning score.
+ * 
+ * The forecast is calculated exactly, if at most the exact limit of matches
+ * remains. The exact calculation follows the distribution of the scores 
+ * match by match, so its costs grow with the square of the number of 
+ * matches only. Otherwise the team match is simulated in parallel, every 
+ * task using its own random generator split from the given seed.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class TeamMatchSimulator {
+    
+    /**
+     * The default maximum number of remaining matches calculated exactly.
+     */
+    public final static int DEFAULT_EXACT_LIMIT = 32;
+    
+    /**
+     * The number of simulations run by a single task without splitting.
+     */
+    private final static int SAMPLE_THRESHOLD = 4096;
+    
+    private final TeamMatchSystem system;
+    
+    private final IExpectationModel expectationModel;
+    
+    private final ForkJoinPool pool;
+    
+    private int exactLimit = DEFAULT_EXACT_LIMIT;
+    
+    /**
+     * Creates a new simulator using the logistic model and running on the 
+     * pool shared by the calculators.
+     * 
+     * @param system The team match system.
+     */
+    public TeamMatchSimulator(final TeamMatchSystem system) {
+        this(system, LogisticExpectationModel.INSTANCE);
+    }
+    
+    /**
+     * Creates a new simulator running on the pool shared by the calculators.
+     * 
+     * @param system The team match system.
+     * @param expectationModel The model of the win probabilities.
+     */
+    public TeamMatchSimulator(final TeamMatchSystem system, final IExpectationModel expectationModel) {
+        this(system, expectationModel, LivePZCalculator.sharedPool());
+    }
+    
+    /**
+     * Creates a new simulator.
+     * 
+     * @param system The team match system.
+     * @param expectationModel The model of the win probabilities.
+     * @param pool The pool to simulate on.
+     */
+    public TeamMatchSimulator(final TeamMatchSystem system, final IExpectationModel expectationModel, final ForkJoinPool pool) {
+        // check parameters with assertions
+        assert(system != null);
+        assert(expectationModel != null);
+        assert(pool != null);
+        
+        this.system = system;
+        this.expectationModel = expectationModel;
+        this.pool = pool;
+    }
+    
+    /**
+     * Sets the maximum number of remaining matches calculated exactly.
+     * 
+     * @param exactLimit The maximum number of matches.
+     */
+    public void setExactLimit(final int exactLimit) {
+        this.exactLimit = exactLimit;
+    }
+    
+    /**
+     * Returns the probability, that the first opponent wins a game.
+     * 
+     * The expected score of the model is used as probability, so it must be 
+     * within the range from zero to one.
+     * 
+     * @param model The model of the win probabilities.
+     * @param pointsA The livepz of the first opponent.
+     * @param pointsB The livepz of the second opponent.
+     * @return The probability.
+     * @throws IllegalArgumentException If the model returns no probability.
+     */
+    public static double winProbability(final IExpectationModel model, final int pointsA, final int pointsB) {
+        final double expected = model.getExpectation(pointsA, pointsB);
+        if (!(expected >= 0.0 && expected <= 1.0)) {
+            throw new IllegalArgumentException("The expectation model returns no probability for " + pointsA + " versus " + pointsB + ": " + expected);
+        }
+        return expected;
+    }
+    
+    /**
+     * Forecasts the final score of a team match.
+     * 
+     * @param lineupA The line-up of the first team.
+     * @param lineupB The line-up of the second team.
+     * @param scoreboard The results played so far.
+     * @param samples The number of simulations, if the forecast is not 
+     * calculated exactly.
+     * @param seed The seed of the random generators.
+     * @return The forecast.
+     */
+    public TeamMatchForecast forecast(final TeamLineup lineupA, final TeamLineup lineupB, final TeamMatchScoreboard scoreboard, final int samples, final long seed) {
+        // check parameters with assertions
+        assert(scoreboard.getSystem() == this.system);
+        assert(samples > 0);
+        
+        // collect the state of the team match and the remaining matches
+        final int matchCount = this.system.countMatches();
+        final double[] remaining = new double[matchCount];
+        int remainingCount = 0;
+        int winsA = 0;
+        int winsB = 0;
+        for (int match = 0; match < matchCount; ++match) {
+            final long result = scoreboard.getResult(match);
+            if (PackedGameResult.hasWonA(result)) {
+                winsA++;
+            } else if (PackedGameResult.hasWonB(result)) {
+                winsB++;
+            } else {
+                final MatchType type = this.system.getMatchType(match);
+                remaining[remainingCount++] = winProbability(this.expectationModel, 
+                        lineupA.getLivePZ(type, this.system.getOpponentIndexA(match)), 
+                        lineupB.getLivePZ(type, this.system.getOpponentIndexB(match)));
+            }
+        }
+        
+        final int winningScore = this.system.getWinningScore();
+        if (remainingCount <= this.exactLimit) {
+            return new TeamMatchForecast(this.calculate(remaining, remainingCount, winsA, winsB, winningScore), winningScore);
+        }
+        
+        final long[] counts = this.pool.invoke(new SimulationTask(remaining, remainingCount, winsA, winsB, winningScore, matchCount + 1, seed, 0, samples));
+        final double[][] probabilities = new double[matchCount + 1][matchCount + 1];
+        for (int a = 0; a <= matchCount; ++a) {
+            for (int b = 0; b <= matchCount; ++b) {
+                probabilities[a][b] = (double) counts[a * (matchCount + 1) + b] / samples;
+            }
+        }
+        return new TeamMatchForecast(probabilities, winningScore);
+    }
+    
+    /**
+     * Calculates the distribution of the final scores exactly.
+     */
+    private double[][] calculate(final double[] remaining, final int remainingCount, final int winsA, final int winsB, final int winningScore) {
+        final int size = this.system.countMatches() + 1;
+        double[][] current = new double[size][size];
+        double[][] next = new double[size][size];
+        current[winsA][winsB] = 1.0;
+        
+        int played = winsA + winsB;
+        for (int match = 0; match < remainingCount; ++match) {
+            final double p = remaining[match];
+            for (int a = 0; a < size; ++a) {
+                for (int b = 0; a + b <= played && b < size; ++b) {
+                    final double probability = current[a][b];
+                    if (probability == 0.0) {
+                        continue;
+                    }
+                    if (a >= winningScore || b >= winningScore) {
+                        next[a][b] += probability;
+                    } else {
+                        next[a + 1][b] += probability * p;
+                        next[a][b + 1] += probability * (1.0 - p);
+                    }
+                }
+            }
+            
+            final double[][] swap = current;
+            current = next;
+            next = swap;
+            for (final double[] row : next) {
+                Arrays.fill(row, 0.0);
+            }
+            played++;
+        }
+        return current;
+    }
+    
+    /**
+     * A splittable random generator (SplitMix64).
+     */
+    private static class SplitMix {
+        
+        private final static long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+        
+        private long state;
+        
+        SplitMix(final long seed) {
+            this.state = seed;
+        }
+        
+        static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
+        }
+        
+        long nextLong() {
+            this.state += GOLDEN_GAMMA;
+            return mix(this.state);
+        }
+        
+        double nextDouble() {
+            return (this.nextLong() >>> 11) * 0x1.0p-53;
+        }
+    }
+    
+    /**
+     * Task simulating a range of samples.
+     */
+    private static class SimulationTask extends RecursiveTask<long[]> {
+        
+        private final static long serialVersionUID = 1L;
+        
+        private final double[] remaining;
+        
+        private final int remainingCount;
+        
+        private final int winsA;
+        
+        private final int winsB;
+        
+        private final int winningScore;
+        
+        private final int size;
+        
+        private final long seed;
+        
+        private final int from;
+        
+        private final int to;
+        
+        SimulationTask(final double[] remaining, final int remainingCount, final int winsA, final int winsB, final int winningScore, final int size, final long seed, final int from, final int to) {
+            this.remaining = remaining;
+            this.remainingCount = remainingCount;
+            this.winsA = winsA;
+            this.winsB = winsB;
+            this.winningScore = winningScore;
+            this.size = size;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (this.to - this.from > SAMPLE_THRESHOLD) {
+                final int middle = (this.from + this.to) >>> 1;
+                final SimulationTask left = new SimulationTask(this.remaining, this.remainingCount, this.winsA, this.winsB, this.winningScore, this.size, this.seed, this.from, middle);
+                final SimulationTask right = new SimulationTask(this.remaining, this.remainingCount, this.winsA, this.winsB, this.winningScore, this.size, this.seed, middle, this.to);
+                left.fork();
+                final long[] counts = right.compute();
+                final long[] other = left.join();
+                for (int i = 0; i < counts.length; ++i) {
+                    counts[i] += other[i];
+                }
+                return counts;
+            }
+            
+            // the generator depends on the range only, so the result does 
+            // not depend on the scheduling of the tasks
+            final SplitMix random = new SplitMix(SplitMix.mix(this.seed ^ SplitMix.mix(this.from)));
+            final long[] counts = new long[this.size * this.size];
+            for (int sample = this.from; sample < this.to; ++sample) {
+                int a = this.winsA;
+                int b = this.winsB;
+                for (int match = 0; match < this.remainingCount && a < this.winningScore && b < this.winningScore; ++match) {
+                    if (random.nextDouble() < this.remaining[match]) {
+                        a++;
+                    } else {
+                        b++;
+                    }
+                }
+                counts[a * this.size + b]++;
+            }
+            return counts;
+        }
+    }
+}
@@ -29,6 +29,12 @@ package de.brainiiiii.tt.core;
  */
 public abstract class TeamMatchSystem {
     
+    /**
+     * The match types by ordinal, initialized before the built-in systems 
+     * compile their tables.
+     */
+    private final static MatchType[] MATCH_TYPES = MatchType.values();
+    
     public final static TeamMatchSystem WERNER_SCHEFFLER = new WernerSchefflerSystem();
     
     public final static TeamMatchSystem BUNDES_4 = new Bundes4System();
@@ -55,19 +61,132 @@ public abstract class TeamMatchSystem {
         
     }
     
+    /**
+     * The maximum number of matches of a team match system.
+     */
+    public final static int MAX_MATCHES = 64;
+    
     protected final MatchCombination[] combinations;
     
     private final int doubleCount;
     
     private final int singleCount;
     
+    /**
+     * The lookup tables compiled from the combinations, created on first 
+     * use.
+     */
+    private volatile Tables tables;
+    
+    /**
+     * The lookup tables of a team match system.
+     */
+    private final static class Tables {
+        
+        /**
+         * The ordinals of the match types, indexed by the match.
+         */
+        final byte[] matchTypes;
+        
+        /**
+         * The positions of the first team, indexed by the match.
+         */
+        final byte[] opponentsA;
+        
+        /**
+         * The positions of the second team, indexed by the match.
+         */
+        final byte[] opponentsB;
+        
+        /**
+         * The matches of every position of the first team as bitmask, 
+         * indexed by the ordinal of the match type and the position.
+         */
+        final long[][] masksA;
+        
+        /**
+         * The matches of every position of the second team as bitmask, 
+         * indexed by the ordinal of the match type and the position.
+         */
+        final long[][] masksB;
+        
+        Tables(final MatchCombination[] combinations, final int doubleCount, final int singleCount) {
+            final int matchCount = combinations.length;
+            this.matchTypes = new byte[matchCount];
+            this.opponentsA = new byte[matchCount];
+            this.opponentsB = new byte[matchCount];
+            this.masksA = new long[MATCH_TYPES.length][];
+            this.masksB = new long[MATCH_TYPES.length][];
+            for (final MatchType type : MATCH_TYPES) {
+                final int positions = type.isDouble() ? doubleCount : singleCount;
+                this.masksA[type.ordinal()] = new long[positions + 1];
+                this.masksB[type.ordinal()] = new long[positions + 1];
+            }
+            
+            for (int match = 0; match < matchCount; ++match) {
+                final MatchCombination combination = combinations[match];
+                if (combination == null) {
+                    throw new IllegalStateException("The match " + match + " has no combination.");
+                }
+                final int type = combination.matchType.ordinal();
+                assert(combination.opponentIndexA > 0 && combination.opponentIndexA < this.masksA[type].length);
+                assert(combination.opponentIndexB > 0 && combination.opponentIndexB < this.masksB[type].length);
+                
+                this.matchTypes[match] = (byte) type;
+                this.opponentsA[match] = (byte) combination.opponentIndexA;
+                this.opponentsB[match] = (byte) combination.opponentIndexB;
+                this.masksA[type][combination.opponentIndexA] |= 1L << match;
+                this.masksB[type][combination.opponentIndexB] |= 1L << match;
+            }
+        }
+        
+    }
+    
+    /**
+     * Creates a team match system.
+     * 
+     * @param matchCount The number of matches.
+     * @param doubleCount The number of double positions.
+     * @param singleCount The number of single positions.
+     * @throws IllegalArgumentException If there are more than 
+     * {@link #MAX_MATCHES} matches.
+     */
     protected TeamMatchSystem(int matchCount, int doubleCount, int singleCount) {
+        if (matchCount < 0 || matchCount > MAX_MATCHES) {
+            throw new IllegalArgumentException("A team match system has at most " + MAX_MATCHES + " matches, not " + matchCount + ".");
+        }
+        
         this.combinations = new MatchCombination[matchCount];
         
         this.doubleCount = doubleCount;
         this.singleCount = singleCount;
     }
     
+    /**
+     * Compiles the combinations into the lookup tables.
+     * 
+     * The tables are compiled on first use, so subclasses only have to call 
+     * this method to compile them early, after all combinations have been 
+     * set. The combinations must not change after the tables have been 
+     * compiled.
+     */
+    protected final void compile() {
+        this.tables();
+    }
+    
+    /**
+     * Returns the lookup tables, compiling them on first use.
+     */
+    private Tables tables() {
+        Tables tables = this.tables;
+        if (tables == null) {
+            // compiling twice creates equal tables, so no lock is needed
+            tables = new Tables(this.combinations, this.doubleCount, this.singleCount);
+            this.tables = tables;
+        }
+        return tables;
+    }
+    
     public int countMatches() {
         return this.combinations.length;
     }
@@ -80,15 +199,63 @@ public abstract class TeamMatchSystem {
     }
     
     public int getOpponentIndexA(int matchIndex) {
-        return this.getMatchCombination(matchIndex).opponentIndexA;
+        return this.tables().opponentsA[matchIndex];
     }
     
     public int getOpponentIndexB(int matchIndex) {
-        return this.getMatchCombination(matchIndex).opponentIndexB;
+        return this.tables().opponentsB[matchIndex];
     }
     
     public MatchType getMatchType(int matchIndex) {
-        return this.getMatchCombination(matchIndex).matchType;
+        return MATCH_TYPES[this.tables().matchTypes[matchIndex]];
+    }
+    
+    /**
+     * Returns the matches played by a position of the first team.
+     * 
+     * The bit <i>n</i> of the mask is set, if the position plays the match 
+     * with the index <i>n</i>.
+     * 
+     * @param type The type of the matches.
+     * @param position The position, starting at one.
+     * @return The matches as bitmask.
+     */
+    public long getMatchMaskA(MatchType type, int position) {
+        final long[] masks = this.tables().masksA[type.ordinal()];
+        if (position < 1 || position >= masks.length) {
+            return 0L;
+        }
+        return masks[position];
+    }
+    
+    /**
+     * Returns the matches played by a position of the second team.
+     * 
+     * The bit <i>n</i> of the mask is set, if the position plays the match 
+     * with the index <i>n</i>.
+     * 
+     * @param type The type of the matches.
+     * @param position The position, starting at one.
+     * @return The matches as bitmask.
+     */
+    public long getMatchMaskB(MatchType type, int position) {
+        final long[] masks = this.tables().masksB[type.ordinal()];
+        if (position < 1 || position >= masks.length) {
+            return 0L;
+        }
+        return masks[position];
+    }
+    
+    /**
+     * Returns the number of matches a team needs to win the team match.
+     * 
+     * A team match is decided, as soon as a team has won more than half of 
+     * the matches.
+     * 
+     * @return The number of matches to win.
+     */
+    public int getWinningScore() {
+        return this.combinations.length / 2 + 1;
     }
     
     public int countDoubleOpponents() {
@@ -118,6 +285,8 @@ class Bundes4System extends TeamMatchSystem {
         this.combinations[7] = new TeamMatchSystem.MatchCombination(MatchType.SINGLE, 2, 2);
         this.combinations[8] = new TeamMatchSystem.MatchCombination(MatchType.SINGLE, 3, 3);
         this.combinations[9] = new TeamMatchSystem.MatchCombination(MatchType.SINGLE, 4, 4);
+        
+        this.compile();
     }
 }
 
@@ -141,6 +310,8 @@ class WernerSchefflerSystem extends TeamMatchSystem {
         this.combinations[11] = new MatchCombination(MatchType.SINGLE, 1, 3);
         this.combinations[12] = new MatchCombination(MatchType.SINGLE, 2, 4);
         this.combinations[13] = new MatchCombination(MatchType.SINGLE, 4, 2);
+        
+        this.compile();
     }
 }
 
@@ -165,6 +336,8 @@ class Paarkreuz6System extends TeamMatchSystem {
         this.combinations[13] = new MatchCombination(MatchType.SINGLE, 5, 5);
         this.combinations[14] = new MatchCombination(MatchType.SINGLE, 6, 6);
         this.combinations[15] = new MatchCombination(MatchType.DOUBLE, 1, 1);
+        
+        this.compile();
     }
 }
 
@@ -180,6 +353,8 @@ class ModSwaythlingCupSystem extends TeamMatchSystem {
        this.combinations[4] = new MatchCombination(MatchType.SINGLE, 1, 1);
        this.combinations[5] = new MatchCombination(MatchType.SINGLE, 3, 2);
        this.combinations[6] = new MatchCombination(MatchType.SINGLE, 2, 3);
+       
+       this.compile();
     }
 }
 
@@ -197,5 +372,7 @@ class SwaythlingCupSystem extends TeamMatchSystem {
        this.combinations[6] = new MatchCombination(MatchType.SINGLE, 2, 3);
        this.combinations[7] = new MatchCombination(MatchType.SINGLE, 3, 1);
        this.combinations[8] = new MatchCombination(MatchType.SINGLE, 1, 2);
+       
+       this.compile();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,220 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A registry of team match systems by name.
+ * 
+ * Every registry knows the built-in team match systems. Further systems are
+ * loaded from definitions, one system per line:
+ * 
+ * <pre>
+ * # comment
+ * PAARKREUZ_4 = D1-1 D2-2 S1-2 S2-1 S3-4 S4-3 S1-1 S2-2 S3-3 S4-4
+ * </pre>
+ * 
+ * Every match is given by its type (<code>S</code> for singles, 
+ * <code>D</code> for doubles) followed by the positions of both teams. The 
+ * number of positions of each type is the highest position used.
+ * 
+ * The registry is thread safe.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class TeamMatchSystemRegistry {
+    
+    private final ConcurrentMap<String, TeamMatchSystem> systems = new ConcurrentHashMap<>();
+    
+    /**
+     * Creates a new registry containing the built-in team match systems.
+     */
+    public TeamMatchSystemRegistry() {
+        this.register("WERNER_SCHEFFLER", TeamMatchSystem.WERNER_SCHEFFLER);
+        this.register("BUNDES_4", TeamMatchSystem.BUNDES_4);
+        this.register("PAARKREUZ_6", TeamMatchSystem.PAARKREUZ_6);
+        this.register("MOD_SWAYTHLING_CUP", TeamMatchSystem.MOD_SWAYTHLING_CUP);
+        this.register("SWAYTHLING_CUP", TeamMatchSystem.SWAYTHLING_CUP);
+    }
+    
+    /**
+     * Registers a team match system.
+     * 
+     * A previous system of the name is replaced.
+     * 
+     * @param name The name of the system.
+     * @param system The team match system.
+     */
+    public void register(final String name, final TeamMatchSystem system) {
+        // check parameters with assertions
+        assert(name != null);
+        assert(system != null);
+        
+        this.systems.put(name, system);
+    }
+    
+    /**
+     * Returns a team match system.
+     * 
+     * @param name The name of the system.
+     * @return The team match system or <code>null</code>, if no system of 
+     * the name is known.
+     */
+    public TeamMatchSystem get(final String name) {
+        return this.systems.get(name);
+    }
+    
+    /**
+     * Returns the names of all known team match systems.
+     * 
+     * @return The sorted names.
+     */
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(new TreeSet<>(this.systems.keySet()));
+    }
+    
+    /**
+     * Loads and registers the team match systems of a definition file.
+     * 
+     * Either all systems of the file are registered or none.
+     * 
+     * @param reader The reader of the definitions.
+     * @return The names of the loaded systems.
+     * @throws IOException If the definitions could not be read.
+     * @throws ParseException If a definition is invalid. The error offset is
+     * the number of the line, starting at one.
+     */
+    public List<String> load(final Reader reader) throws IOException, ParseException {
+        final BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        final List<String> names = new ArrayList<>();
+        final List<TeamMatchSystem> loaded = new ArrayList<>();
+        
+        int lineNumber = 0;
+        String line;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            final int comment = line.indexOf('#');
+            if (comment >= 0) {
+                line = line.substring(0, comment);
+            }
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            
+            final int separator = line.indexOf('=');
+            if (separator < 0) {
+                throw new ParseException("Missing '=' in team match system definition", lineNumber);
+            }
+            final String name = line.substring(0, separator).trim();
+            if (name.isEmpty()) {
+                throw new ParseException("Missing name of team match system", lineNumber);
+            }
+            names.add(name);
+            loaded.add(parse(line.substring(separator + 1).trim(), lineNumber));
+        }
+        
+        for (int i = 0; i < names.size(); ++i) {
+            this.register(names.get(i), loaded.get(i));
+        }
+        return names;
+    }
+    
+    /**
+     * Parses the matches of a team match system.
+     */
+    private static TeamMatchSystem parse(final String definition, final int lineNumber) throws ParseException {
+        final String[] tokens = definition.split("\\s+");
+        if (definition.isEmpty() || tokens.length > TeamMatchSystem.MAX_MATCHES) {
+            throw new ParseException("Invalid number of matches in team match system definition", lineNumber);
+        }
+        
+        final TeamMatchSystem.MatchCombination[] combinations = new TeamMatchSystem.MatchCombination[tokens.length];
+        int doubleCount = 0;
+        int singleCount = 0;
+        for (int match = 0; match < tokens.length; ++match) {
+            final String token = tokens[match];
+            final int separator = token.indexOf('-');
+            if (token.length() < 4 || separator < 2) {
+                throw new ParseException("Invalid match '" + token + "'", lineNumber);
+            }
+            
+            final MatchType type;
+            switch (token.charAt(0)) {
+                case 'S':
+                case 's':
+                    type = MatchType.SINGLE;
+                    break;
+                case 'D':
+                case 'd':
+                    type = MatchType.DOUBLE;
+                    break;
+                default:
+                    throw new ParseException("Invalid match type of match '" + token + "'", lineNumber);
+            }
+            
+            final int a = parsePosition(token, 1, separator, lineNumber);
+            final int b = parsePosition(token, separator + 1, token.length(), lineNumber);
+            combinations[match] = new TeamMatchSystem.MatchCombination(type, a, b);
+            if (type.isDouble()) {
+                doubleCount = Math.max(doubleCount, Math.max(a, b));
+            } else {
+                singleCount = Math.max(singleCount, Math.max(a, b));
+            }
+        }
+        return new DefinedTeamMatchSystem(combinations, doubleCount, singleCount);
+    }
+    
+    /**
+     * Parses a position of a match.
+     */
+    private static int parsePosition(final String token, final int start, final int end, final int lineNumber) throws ParseException {
+        if (end - start < 1 || end - start > 2) {
+            throw new ParseException("Invalid position of match '" + token + "'", lineNumber);
+        }
+        int position = 0;
+        for (int i = start; i < end; ++i) {
+            final char c = token.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new ParseException("Invalid position of match '" + token + "'", lineNumber);
+            }
+            position = position * 10 + (c - '0');
+        }
+        if (position < 1) {
+            throw new ParseException("Invalid position of match '" + token + "'", lineNumber);
+        }
+        return position;
+    }
+}
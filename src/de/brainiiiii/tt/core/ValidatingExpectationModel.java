@@ -0,0 +1,212 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An expectation model cross checking two other models.
+ * 
+ * The expectation is always taken from the primary model. Every n-th call of
+ * a thread is additionally calculated by the reference model and both values
+ * are compared. The number of checks, the number of mismatches, the number 
+ * of invalid expectations and the maximum error found are recorded.
+ * 
+ * An expectation is invalid, if it is <i>NaN</i> or outside of [0, 1]. As a 
+ * table filled by the reference model matches it bit for bit, the invalid 
+ * expectations are the ones telling, whether a model can be trusted within 
+ * a range of points at all.
+ * 
+ * The calls are counted per thread, so the model adds no contention to 
+ * parallel calculations.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class ValidatingExpectationModel implements IExpectationModel {
+    
+    private final IExpectationModel primary;
+    
+    private final IExpectationModel reference;
+    
+    /**
+     * Every n-th call is validated.
+     */
+    private final int sampleRate;
+    
+    /**
+     * The counters of the calling threads.
+     */
+    private final ThreadLocal<Counters> counters = new ThreadLocal<Counters>() {
+        @Override
+        protected Counters initialValue() {
+            final Counters counters = new Counters();
+            ValidatingExpectationModel.this.allCounters.add(counters);
+            return counters;
+        }
+    };
+    
+    /**
+     * The counters of all threads, which ever called the model.
+     */
+    private final Queue<Counters> allCounters = new ConcurrentLinkedQueue<>();
+    
+    /**
+     * The bits of the maximum error found so far.
+     * 
+     * The errors are never negative, so the order of the bits is the order 
+     * of the values.
+     */
+    private final AtomicLong maxErrorBits = new AtomicLong(Double.doubleToLongBits(0.0));
+    
+    /**
+     * Creates a new model validating every call.
+     * 
+     * @param primary The model to take the expectations from.
+     * @param reference The model to validate against.
+     */
+    public ValidatingExpectationModel(final IExpectationModel primary, final IExpectationModel reference) {
+        this(primary, reference, 1);
+    }
+    
+    /**
+     * Creates a new model validating every n-th call.
+     * 
+     * @param primary The model to take the expectations from.
+     * @param reference The model to validate against.
+     * @param sampleRate The rate of calls to validate.
+     */
+    public ValidatingExpectationModel(final IExpectationModel primary, final IExpectationModel reference, final int sampleRate) {
+        // check parameters with assertions
+        assert(primary != null);
+        assert(reference != null);
+        assert(sampleRate > 0);
+        
+        this.primary = primary;
+        this.reference = reference;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    public double getExpectation(final int pointsA, final int pointsB) {
+        final double expected = this.primary.getExpectation(pointsA, pointsB);
+        final Counters counters = this.counters.get();
+        if (counters.calls++ % this.sampleRate == 0) {
+            this.validate(counters, expected, this.reference.getExpectation(pointsA, pointsB));
+        }
+        return expected;
+    }
+    
+    private void validate(final Counters counters, final double expected, final double exact) {
+        counters.checks++;
+        if (!(expected >= 0.0 && expected <= 1.0)) {
+            counters.invalid++;
+        }
+        if (Double.doubleToLongBits(expected) == Double.doubleToLongBits(exact)) {
+            return;
+        }
+        
+        counters.mismatches++;
+        
+        double error = Math.abs(expected - exact);
+        if (Double.isNaN(error)) {
+            error = Double.POSITIVE_INFINITY;
+        }
+        final long errorBits = Double.doubleToLongBits(error);
+        long current = this.maxErrorBits.get();
+        while (errorBits > current && !this.maxErrorBits.compareAndSet(current, errorBits)) {
+            current = this.maxErrorBits.get();
+        }
+    }
+    
+    /**
+     * Returns the number of validated calls.
+     * 
+     * @return The number of checks.
+     */
+    public long getCheckCount() {
+        long sum = 0;
+        for (Counters c : this.allCounters) {
+            sum += c.checks;
+        }
+        return sum;
+    }
+    
+    /**
+     * Returns the number of validated calls, where the models did not return
+     * the same value.
+     * 
+     * @return The number of mismatches.
+     */
+    public long getMismatchCount() {
+        long sum = 0;
+        for (Counters c : this.allCounters) {
+            sum += c.mismatches;
+        }
+        return sum;
+    }
+    
+    /**
+     * Returns the number of validated calls, where the primary model 
+     * returned <i>NaN</i> or a value outside of [0, 1].
+     * 
+     * @return The number of invalid expectations.
+     */
+    public long getInvalidCount() {
+        long sum = 0;
+        for (Counters c : this.allCounters) {
+            sum += c.invalid;
+        }
+        return sum;
+    }
+    
+    /**
+     * Returns the maximum absolute error found so far.
+     * 
+     * If only one of the models returned <i>NaN</i>, the error is infinite.
+     * 
+     * @return The maximum error.
+     */
+    public double getMaxError() {
+        return Double.longBitsToDouble(this.maxErrorBits.get());
+    }
+    
+    /**
+     * The counters of a single thread.
+     * 
+     * Only the owning thread writes the counters, so they need no atomic 
+     * updates. The sampling counter is never read by other threads.
+     */
+    private static class Counters {
+        
+        private long calls = 0;
+        
+        private volatile long checks = 0;
+        
+        private volatile long mismatches = 0;
+        
+        private volatile long invalid = 0;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+/**
+ * A game result of a game, which has not been played, because one of the 
+ * opponents did not appear.
+ * 
+ * The results without opponents are shared instances, returned by 
+ * {@link #valueOf(GameResult.Player)}.
+ *
+ * @param <O> The opponent type.
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class WalkoverGameResult<O extends IOpponent> extends GameResult<O> {
+    
+    /**
+     * The shared results without opponents, indexed by the winner.
+     */
+    private final static WalkoverGameResult<?>[] VALUES = {
+        new WalkoverGameResult<>(Player.PLAYER_A),
+        new WalkoverGameResult<>(Player.PLAYER_B)
+    };
+    
+    private final Player winner;
+    
+    /**
+     * Creates a new walkover.
+     * 
+     * @param winner The opponent, who has won the game.
+     */
+    public WalkoverGameResult(final Player winner) {
+        this(winner, null, null);
+    }
+    
+    /**
+     * Creates a new walkover with the given opponents.
+     * 
+     * @param winner The opponent, who has won the game.
+     * @param opponentA The first opponent.
+     * @param opponentB The second opponent.
+     */
+    public WalkoverGameResult(final Player winner, final IIsOpponent<O> opponentA, final IIsOpponent<O> opponentB) {
+        super(opponentA, opponentB);
+        
+        // check parameters with assertions
+        assert(winner != null);
+        
+        this.winner = winner;
+    }
+    
+    /**
+     * Returns the shared walkover without opponents.
+     * 
+     * @param <O> The opponent type.
+     * @param winner The opponent, who has won the game.
+     * @return The shared walkover.
+     */
+    @SuppressWarnings("unchecked")
+    public static <O extends IOpponent> WalkoverGameResult<O> valueOf(final Player winner) {
+        return (WalkoverGameResult<O>) VALUES[winner.ordinal()];
+    }
+
+    @Override
+    public Player getWinner() {
+        return this.winner;
+    }
+
+    @Override
+    protected GameResult<O> createInvertedResult() {
+        final Player invertedWinner = this.winner == Player.PLAYER_A ? Player.PLAYER_B : Player.PLAYER_A;
+        // only a shared result may return a shared inverse
+        if (!this.hasOpponents() && this == valueOf(this.winner)) {
+            return valueOf(invertedWinner);
+        }
+        return new WalkoverGameResult<>(invertedWinner, this.opponents[1], this.opponents[0]);
+    }
+
+    @Override
+    public GameResult<O> withOpponents(final IIsOpponent<O> opponentA, final IIsOpponent<O> opponentB) {
+        return new WalkoverGameResult<>(this.winner, opponentA, opponentB);
+    }
+
+    @Override
+    public String getText() {
+        return this.winner == Player.PLAYER_A ? "+w.o." : "-w.o.";
+    }
+}
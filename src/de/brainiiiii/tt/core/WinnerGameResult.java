@@ -25,36 +25,58 @@ package de.brainiiiii.tt.core;
 
 /**
  * A game result holding information, who won the game.
+ * 
+ * The results without opponents are shared instances, returned by 
+ * {@link #valueOf(GameResult.Player)}.
  *
  * @param <O> The opponent type.
  * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
  */
 public class WinnerGameResult<O extends IOpponent> extends GameResult<O> {
 
-    private Player winner;
+    /**
+     * The shared results without opponents, indexed by the winner.
+     */
+    private final static WinnerGameResult<?>[] VALUES = {
+        new WinnerGameResult<>(null),
+        new WinnerGameResult<>(Player.PLAYER_A),
+        new WinnerGameResult<>(Player.PLAYER_B)
+    };
 
-    public WinnerGameResult() {
-        super();
-    }
-
-    public WinnerGameResult(O opponentA, O opponentB) {
-        super(opponentA, opponentB);
-    }
+    private final Player winner;
 
-    public WinnerGameResult(IIsOpponent<O> opponentA, O opponentB) {
-        super(opponentA, opponentB);
+    /**
+     * Creates a shared result without opponents.
+     * 
+     * Results without opponents are shared, so their inverted results are 
+     * shared as well, and are available by {@link #valueOf(GameResult.Player)}
+     * only.
+     */
+    private WinnerGameResult(Player winner) {
+        super();
+        this.winner = winner;
     }
 
-    public WinnerGameResult(O opponentA, IIsOpponent<O> opponentB) {
+    public WinnerGameResult(Player winner, O opponentA, O opponentB) {
         super(opponentA, opponentB);
+        this.winner = winner;
     }
 
-    public WinnerGameResult(IIsOpponent<O> opponentA, IIsOpponent<O> opponentB) {
+    public WinnerGameResult(Player winner, IIsOpponent<O> opponentA, IIsOpponent<O> opponentB) {
         super(opponentA, opponentB);
+        this.winner = winner;
     }
 
-    public void setWinner(Player winner) {
-        this.winner = winner;
+    /**
+     * Returns the shared result without opponents.
+     * 
+     * @param <O> The opponent type.
+     * @param winner The winner or <i>null</i> for an unfinished game.
+     * @return The shared result.
+     */
+    @SuppressWarnings("unchecked")
+    public static <O extends IOpponent> WinnerGameResult<O> valueOf(Player winner) {
+        return (WinnerGameResult<O>) VALUES[winner == null ? 0 : winner.ordinal() + 1];
     }
 
     @Override
@@ -63,16 +85,26 @@ public class WinnerGameResult<O extends IOpponent> extends GameResult<O> {
     }
 
     @Override
-    public GameResult<O> invertResult() {
-        final WinnerGameResult inverted = new WinnerGameResult(this.opponents[1], this.opponents[0]);
+    protected GameResult<O> createInvertedResult() {
+        Player invertedWinner = null;
         if (this.winner != null) {
             if (this.winner == Player.PLAYER_A) {
-                inverted.winner = Player.PLAYER_B;
+                invertedWinner = Player.PLAYER_B;
             } else {
-                inverted.winner = Player.PLAYER_A;
+                invertedWinner = Player.PLAYER_A;
             }
         }
-        return inverted;
+        
+        // only a shared result may return a shared inverse
+        if (!this.hasOpponents() && this == valueOf(this.winner)) {
+            return valueOf(invertedWinner);
+        }
+        return new WinnerGameResult<>(invertedWinner, this.opponents[1], this.opponents[0]);
+    }
+
+    @Override
+    public GameResult<O> withOpponents(IIsOpponent<O> opponentA, IIsOpponent<O> opponentB) {
+        return new WinnerGameResult<>(this.winner, opponentA, opponentB);
     }
 
     @Override
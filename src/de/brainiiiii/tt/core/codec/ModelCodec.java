@@ -0,0 +1,257 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The binary format of the model.
+ * 
+ * Every record starts with its type and the length of its body, both as 
+ * varints. The fields of the body follow in a fixed order; fields added by
+ * later versions are appended, so older decoders skip them. Integers are 
+ * zigzag encoded varints, so small values of either sign take few bytes.
+ * 
+ * Strings are coded against a dictionary shared by the encoder and the 
+ * decoder of a stream: a string seen before is replaced by its number. The 
+ * tag of a string is
+ * <ul>
+ * <li><i>0</i> for <code>null</code>,</li>
+ * <li><i>1</i> for a new string added to the dictionary,</li>
+ * <li><i>2</i> for a new string not added, because the dictionary is full,</li>
+ * <li><i>3 + n</i> for the string number <i>n</i> of the dictionary.</li>
+ * </ul>
+ * New strings follow their tag as length and UTF-8 bytes. Fields appended 
+ * by later versions must not use the dictionary, otherwise older decoders 
+ * would lose track of it.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public final class ModelCodec {
+    
+    /**
+     * The type of a player record.
+     */
+    public final static int PLAYER = 1;
+    
+    /**
+     * The type of a game result record.
+     */
+    public final static int GAME_RESULT = 2;
+    
+    /**
+     * The type of a team match event record.
+     */
+    public final static int TEAM_MATCH_EVENT = 3;
+    
+    /**
+     * The type of a livepz adjustment record.
+     */
+    public final static int LIVEPZ_ADJUSTMENT = 4;
+    
+    /**
+     * The default maximum number of strings of a dictionary.
+     */
+    public final static int DEFAULT_DICTIONARY_SIZE = 1 << 16;
+    
+    final static int STRING_NULL = 0;
+    
+    final static int STRING_ADDED = 1;
+    
+    final static int STRING_LITERAL = 2;
+    
+    final static int STRING_REFERENCE = 3;
+    
+    private ModelCodec() {
+    }
+    
+    /**
+     * Writes an unsigned varint.
+     * 
+     * @param buffer The buffer.
+     * @param value The value, taken as unsigned.
+     */
+    public static void putVarInt(final ByteBuffer buffer, int value) {
+        while ((value & ~0x7f) != 0) {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+    
+    /**
+     * Reads an unsigned varint.
+     * 
+     * @param buffer The buffer.
+     * @return The value.
+     */
+    public static int getVarInt(final ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final byte b = buffer.get();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+    
+    /**
+     * Writes an unsigned varlong.
+     * 
+     * @param buffer The buffer.
+     * @param value The value, taken as unsigned.
+     */
+    public static void putVarLong(final ByteBuffer buffer, long value) {
+        while ((value & ~0x7fL) != 0) {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+    
+    /**
+     * Reads an unsigned varlong.
+     * 
+     * @param buffer The buffer.
+     * @return The value.
+     */
+    public static long getVarLong(final ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            final byte b = buffer.get();
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varlong");
+    }
+    
+    /**
+     * Writes a signed int as zigzag encoded varint.
+     * 
+     * @param buffer The buffer.
+     * @param value The value.
+     */
+    public static void putSignedVarInt(final ByteBuffer buffer, final int value) {
+        putVarInt(buffer, (value << 1) ^ (value >> 31));
+    }
+    
+    /**
+     * Reads a zigzag encoded varint.
+     * 
+     * @param buffer The buffer.
+     * @return The value.
+     */
+    public static int getSignedVarInt(final ByteBuffer buffer) {
+        final int value = getVarInt(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    /**
+     * Writes a signed long as zigzag encoded varlong.
+     * 
+     * @param buffer The buffer.
+     * @param value The value.
+     */
+    public static void putSignedVarLong(final ByteBuffer buffer, final long value) {
+        putVarLong(buffer, (value << 1) ^ (value >> 63));
+    }
+    
+    /**
+     * Reads a zigzag encoded varlong.
+     * 
+     * @param buffer The buffer.
+     * @return The value.
+     */
+    public static long getSignedVarLong(final ByteBuffer buffer) {
+        final long value = getVarLong(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    /**
+     * Returns the number of bytes of a varint.
+     * 
+     * @param value The value, taken as unsigned.
+     * @return The number of bytes.
+     */
+    public static int sizeOfVarInt(final int value) {
+        return value == 0 ? 1 : (31 - Integer.numberOfLeadingZeros(value)) / 7 + 1;
+    }
+    
+    /**
+     * Returns the number of UTF-8 bytes of a string.
+     */
+    static int sizeOfUtf8(final String value) {
+        int size = 0;
+        for (int i = 0; i < value.length(); ++i) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                size += 1;
+            } else if (c < 0x800) {
+                size += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                size += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                size += 1;
+            } else {
+                size += 3;
+            }
+        }
+        return size;
+    }
+    
+    /**
+     * Writes the UTF-8 bytes of a string, without creating a byte array.
+     * 
+     * Unpaired surrogates are replaced by '?', like {@link String#getBytes}
+     * does.
+     */
+    static void putUtf8(final ByteBuffer buffer, final String value) {
+        for (int i = 0; i < value.length(); ++i) {
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xc0 | (c >>> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put((byte) (0xf0 | (codePoint >>> 18)));
+                buffer.put((byte) (0x80 | ((codePoint >>> 12) & 0x3f)));
+                buffer.put((byte) (0x80 | ((codePoint >>> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+            } else if (Character.isSurrogate(c)) {
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xe0 | (c >>> 12)));
+                buffer.put((byte) (0x80 | ((c >>> 6) & 0x3f)));
+                buffer.put((byte) (0x80 | (c & 0x3f)));
+            }
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.codec;
+
+import de.brainiiiii.tt.core.GameResultArray;
+import de.brainiiiii.tt.core.IPlayerStorage;
+import de.brainiiiii.tt.core.LivePZAdjustment;
+import de.brainiiiii.tt.core.LivePZAdjustment.AdjustmentType;
+import de.brainiiiii.tt.core.Player;
+import de.brainiiiii.tt.core.TeamMatchEvent;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Decoder of the binary format described by {@link ModelCodec}.
+ * 
+ * The decoder reads directly from the buffer into objects given by the 
+ * caller, so a stream of records can be read without creating objects 
+ * other than the strings not known yet. Strings of the dictionary are 
+ * returned as the same instances each time.
+ * 
+ * Records are read by {@link #nextRecord(ByteBuffer)}, which returns the 
+ * type, followed by the decode method of that type. Fields appended by 
+ * later versions are skipped by the decode methods, records of unknown 
+ * types by {@link #skipRecord(ByteBuffer)}.
+ * 
+ * The decoder is not thread safe.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class ModelDecoder {
+    
+    /**
+     * The charset of the strings.
+     */
+    private final static Charset UTF_8 = Charset.forName("UTF-8");
+    
+    /**
+     * The adjustment types by their ordinal.
+     */
+    private final static AdjustmentType[] ADJUSTMENT_TYPES = AdjustmentType.values();
+    
+    /**
+     * The strings of the dictionary in the order of their numbers.
+     */
+    private final List<String> strings = new ArrayList<>();
+    
+    /**
+     * The maximum number of strings of the dictionary.
+     */
+    private final int maximumDictionarySize;
+    
+    /**
+     * The storage resolving the players of adjustments, or <code>null</code>.
+     */
+    private final IPlayerStorage players;
+    
+    /**
+     * Buffer for strings of buffers without an accessible array.
+     */
+    private byte[] scratch = new byte[64];
+    
+    /**
+     * The type of the current record, or zero if there is none.
+     */
+    private int recordType;
+    
+    /**
+     * The position after the current record.
+     */
+    private int recordEnd;
+    
+    /**
+     * Creates a new decoder with the default dictionary size, which does not
+     * resolve the players of adjustments.
+     */
+    public ModelDecoder() {
+        this(ModelCodec.DEFAULT_DICTIONARY_SIZE, null);
+    }
+    
+    /**
+     * Creates a new decoder.
+     * 
+     * @param maximumDictionarySize The maximum number of strings of the 
+     *      dictionary, which has to match the one of the encoder.
+     * @param players The storage resolving the players of adjustments, or 
+     *      <code>null</code> to give them players holding only the id.
+     */
+    public ModelDecoder(final int maximumDictionarySize, final IPlayerStorage players) {
+        // check parameters with assertions
+        assert(maximumDictionarySize >= 0);
+        
+        this.maximumDictionarySize = maximumDictionarySize;
+        this.players = players;
+    }
+    
+    /**
+     * Reads the header of the next record.
+     * 
+     * @param buffer The buffer.
+     * @return The type of the record.
+     * @throws IllegalStateException If the current record was not decoded.
+     */
+    public int nextRecord(final ByteBuffer buffer) {
+        // check parameters with assertions
+        assert(buffer != null);
+        
+        if (this.recordType != 0) {
+            throw new IllegalStateException("Record of type " + this.recordType + " not decoded");
+        }
+        final int type = ModelCodec.getVarInt(buffer);
+        final int length = ModelCodec.getVarInt(buffer);
+        if (type == 0 || length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Malformed record header");
+        }
+        this.recordType = type;
+        this.recordEnd = buffer.position() + length;
+        return type;
+    }
+    
+    /**
+     * Skips the current record.
+     * 
+     * @param buffer The buffer.
+     */
+    public void skipRecord(final ByteBuffer buffer) {
+        this.end(buffer, this.recordType);
+    }
+    
+    /**
+     * Reads the current record as player.
+     * 
+     * @param buffer The buffer.
+     * @param player The player to fill.
+     * @return The given player.
+     */
+    public Player decodePlayer(final ByteBuffer buffer, final Player player) {
+        // check parameters with assertions
+        assert(player != null);
+        
+        this.check(ModelCodec.PLAYER);
+        player.playerId = ModelCodec.getSignedVarInt(buffer);
+        player.ttliveId = ModelCodec.getSignedVarInt(buffer);
+        player.title = this.getString(buffer);
+        player.firstname = this.getString(buffer);
+        player.lastname = this.getString(buffer);
+        this.end(buffer, ModelCodec.PLAYER);
+        return player;
+    }
+    
+    /**
+     * Reads the current record as game result and appends it to an array.
+     * 
+     * @param buffer The buffer.
+     * @param results The array.
+     * @return The index of the result within the array.
+     */
+    public int decodeResult(final ByteBuffer buffer, final GameResultArray results) {
+        // check parameters with assertions
+        assert(results != null);
+        
+        this.check(ModelCodec.GAME_RESULT);
+        final long packed = ModelCodec.getVarLong(buffer);
+        final int opponentA = ModelCodec.getSignedVarInt(buffer);
+        final int opponentB = ModelCodec.getSignedVarInt(buffer);
+        this.end(buffer, ModelCodec.GAME_RESULT);
+        return results.add(packed, opponentA, opponentB);
+    }
+    
+    /**
+     * Reads the current record as team match event.
+     * 
+     * The date of the event is reused if there is one.
+     * 
+     * @param buffer The buffer.
+     * @param event The event to fill.
+     * @return The given event.
+     */
+    public TeamMatchEvent decodeEvent(final ByteBuffer buffer, final TeamMatchEvent event) {
+        // check parameters with assertions
+        assert(event != null);
+        
+        this.check(ModelCodec.TEAM_MATCH_EVENT);
+        event.league = this.getString(buffer);
+        event.teamA = this.getString(buffer);
+        event.teamB = this.getString(buffer);
+        if (buffer.get() == 0) {
+            event.date = null;
+        } else if (event.date == null) {
+            event.date = new Date(ModelCodec.getSignedVarLong(buffer));
+        } else {
+            event.date.setTime(ModelCodec.getSignedVarLong(buffer));
+        }
+        this.end(buffer, ModelCodec.TEAM_MATCH_EVENT);
+        return event;
+    }
+    
+    /**
+     * Reads the current record as livepz adjustment.
+     * 
+     * The player is taken from the storage of the decoder. Without storage 
+     * the player of the adjustment is reused if it has the same id, 
+     * otherwise a player holding only the id is created.
+     * 
+     * @param buffer The buffer.
+     * @param adjustment The adjustment to fill.
+     * @return The given adjustment.
+     */
+    public LivePZAdjustment decodeAdjustment(final ByteBuffer buffer, final LivePZAdjustment adjustment) {
+        // check parameters with assertions
+        assert(adjustment != null);
+        
+        this.check(ModelCodec.LIVEPZ_ADJUSTMENT);
+        final int playerId = ModelCodec.getSignedVarInt(buffer);
+        final int livepz = ModelCodec.getSignedVarInt(buffer);
+        final int type = ModelCodec.getVarInt(buffer);
+        if (type < 0 || type >= ADJUSTMENT_TYPES.length) {
+            throw new IllegalArgumentException("Unknown adjustment type " + type);
+        }
+        this.end(buffer, ModelCodec.LIVEPZ_ADJUSTMENT);
+        
+        Player player = adjustment.player;
+        if (this.players != null) {
+            player = this.players.getPlayer(playerId);
+        } else if (player == null || player.playerId != playerId) {
+            player = new Player();
+            player.playerId = playerId;
+        }
+        adjustment.set(player, livepz, ADJUSTMENT_TYPES[type]);
+        return adjustment;
+    }
+    
+    /**
+     * Clears the dictionary, so the decoder can start a new stream.
+     */
+    public void reset() {
+        this.strings.clear();
+        this.recordType = 0;
+    }
+    
+    /**
+     * Returns the number of strings of the dictionary.
+     * 
+     * @return The number of strings.
+     */
+    public int getDictionarySize() {
+        return this.strings.size();
+    }
+    
+    /**
+     * Checks the type of the current record.
+     */
+    private void check(final int type) {
+        if (this.recordType != type) {
+            throw new IllegalStateException("Current record is of type " + this.recordType + ", not " + type);
+        }
+    }
+    
+    /**
+     * Moves behind the current record, skipping fields of later versions.
+     */
+    private void end(final ByteBuffer buffer, final int type) {
+        this.check(type);
+        if (buffer.position() > this.recordEnd) {
+            throw new IllegalArgumentException("Record of type " + type + " exceeds its length");
+        }
+        buffer.position(this.recordEnd);
+        this.recordType = 0;
+    }
+    
+    /**
+     * Reads a string against the dictionary.
+     */
+    private String getString(final ByteBuffer buffer) {
+        final int tag = ModelCodec.getVarInt(buffer);
+        if (tag == ModelCodec.STRING_NULL) {
+            return null;
+        }
+        if (tag >= ModelCodec.STRING_REFERENCE) {
+            final int number = tag - ModelCodec.STRING_REFERENCE;
+            if (number >= this.strings.size()) {
+                throw new IllegalArgumentException("Unknown string " + number);
+            }
+            return this.strings.get(number);
+        }
+        final int length = ModelCodec.getVarInt(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Malformed string");
+        }
+        final String value;
+        if (buffer.hasArray()) {
+            value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, UTF_8);
+            buffer.position(buffer.position() + length);
+        } else {
+            if (this.scratch.length < length) {
+                this.scratch = new byte[Math.max(length, this.scratch.length * 2)];
+            }
+            buffer.get(this.scratch, 0, length);
+            value = new String(this.scratch, 0, length, UTF_8);
+        }
+        if (tag == ModelCodec.STRING_ADDED) {
+            if (this.strings.size() >= this.maximumDictionarySize) {
+                throw new IllegalArgumentException("Dictionary exceeds " + this.maximumDictionarySize + " strings");
+            }
+            this.strings.add(value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.codec;
+
+import de.brainiiiii.tt.core.LivePZAdjustment;
+import de.brainiiiii.tt.core.Player;
+import de.brainiiiii.tt.core.TeamMatchEvent;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encoder of the binary format described by {@link ModelCodec}.
+ * 
+ * The encoder writes directly into the buffer. It keeps the dictionary of 
+ * the stream, so all records of a stream have to be written by the same 
+ * encoder and read by one decoder in the same order. If a record does not 
+ * fit into the buffer, a {@link BufferOverflowException} is thrown and both 
+ * the buffer and the dictionary are left as they were before the record, so
+ * the record may be written again into the next buffer.
+ * 
+ * The encoder is not thread safe.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class ModelEncoder {
+    
+    /**
+     * The numbers of the strings of the dictionary.
+     */
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    
+    /**
+     * The strings of the dictionary in the order of their numbers.
+     */
+    private final List<String> strings = new ArrayList<>();
+    
+    /**
+     * The maximum number of strings of the dictionary.
+     */
+    private final int maximumDictionarySize;
+    
+    /**
+     * The position of the current record.
+     */
+    private int recordStart;
+    
+    /**
+     * The size of the dictionary before the current record.
+     */
+    private int dictionaryMark;
+    
+    /**
+     * Creates a new encoder with the default dictionary size.
+     */
+    public ModelEncoder() {
+        this(ModelCodec.DEFAULT_DICTIONARY_SIZE);
+    }
+    
+    /**
+     * Creates a new encoder.
+     * 
+     * @param maximumDictionarySize The maximum number of strings of the 
+     *      dictionary, which has to match the one of the decoder.
+     */
+    public ModelEncoder(final int maximumDictionarySize) {
+        // check parameters with assertions
+        assert(maximumDictionarySize >= 0);
+        
+        this.maximumDictionarySize = maximumDictionarySize;
+    }
+    
+    /**
+     * Writes a player.
+     * 
+     * @param buffer The buffer.
+     * @param player The player.
+     */
+    public void encodePlayer(final ByteBuffer buffer, final Player player) {
+        // check parameters with assertions
+        assert(buffer != null);
+        assert(player != null);
+        
+        final int bodyStart = this.begin(buffer, ModelCodec.PLAYER);
+        try {
+            ModelCodec.putSignedVarInt(buffer, player.playerId);
+            ModelCodec.putSignedVarInt(buffer, player.ttliveId);
+            this.putString(buffer, player.title);
+            this.putString(buffer, player.firstname);
+            this.putString(buffer, player.lastname);
+            this.end(buffer, bodyStart);
+        } catch (BufferOverflowException e) {
+            this.rollback(buffer);
+            throw e;
+        }
+    }
+    
+    /**
+     * Writes a game result.
+     * 
+     * @param buffer The buffer.
+     * @param packed The result packed by {@link de.brainiiiii.tt.core.PackedGameResult}.
+     * @param opponentA The id of the opponent A.
+     * @param opponentB The id of the opponent B.
+     */
+    public void encodeResult(final ByteBuffer buffer, final long packed, final int opponentA, final int opponentB) {
+        // check parameters with assertions
+        assert(buffer != null);
+        
+        final int bodyStart = this.begin(buffer, ModelCodec.GAME_RESULT);
+        try {
+            ModelCodec.putVarLong(buffer, packed);
+            ModelCodec.putSignedVarInt(buffer, opponentA);
+            ModelCodec.putSignedVarInt(buffer, opponentB);
+            this.end(buffer, bodyStart);
+        } catch (BufferOverflowException e) {
+            this.rollback(buffer);
+            throw e;
+        }
+    }
+    
+    /**
+     * Writes a team match event.
+     * 
+     * @param buffer The buffer.
+     * @param event The event.
+     */
+    public void encodeEvent(final ByteBuffer buffer, final TeamMatchEvent event) {
+        // check parameters with assertions
+        assert(buffer != null);
+        assert(event != null);
+        
+        final int bodyStart = this.begin(buffer, ModelCodec.TEAM_MATCH_EVENT);
+        try {
+            this.putString(buffer, event.league);
+            this.putString(buffer, event.teamA);
+            this.putString(buffer, event.teamB);
+            if (event.date == null) {
+                buffer.put((byte) 0);
+            } else {
+                buffer.put((byte) 1);
+                ModelCodec.putSignedVarLong(buffer, event.date.getTime());
+            }
+            this.end(buffer, bodyStart);
+        } catch (BufferOverflowException e) {
+            this.rollback(buffer);
+            throw e;
+        }
+    }
+    
+    /**
+     * Writes a livepz adjustment.
+     * 
+     * The player is written by its id only.
+     * 
+     * @param buffer The buffer.
+     * @param adjustment The adjustment.
+     */
+    public void encodeAdjustment(final ByteBuffer buffer, final LivePZAdjustment adjustment) {
+        // check parameters with assertions
+        assert(buffer != null);
+        assert(adjustment != null);
+        assert(adjustment.player != null);
+        assert(adjustment.type != null);
+        
+        final int bodyStart = this.begin(buffer, ModelCodec.LIVEPZ_ADJUSTMENT);
+        try {
+            ModelCodec.putSignedVarInt(buffer, adjustment.player.playerId);
+            ModelCodec.putSignedVarInt(buffer, adjustment.livepz);
+            ModelCodec.putVarInt(buffer, adjustment.type.ordinal());
+            this.end(buffer, bodyStart);
+        } catch (BufferOverflowException e) {
+            this.rollback(buffer);
+            throw e;
+        }
+    }
+    
+    /**
+     * Clears the dictionary, so the encoder can start a new stream.
+     */
+    public void reset() {
+        this.dictionary.clear();
+        this.strings.clear();
+    }
+    
+    /**
+     * Returns the number of strings of the dictionary.
+     * 
+     * @return The number of strings.
+     */
+    public int getDictionarySize() {
+        return this.strings.size();
+    }
+    
+    /**
+     * Writes the type of a record and reserves one byte for its length.
+     * 
+     * @return The position of the body.
+     */
+    private int begin(final ByteBuffer buffer, final int type) {
+        this.recordStart = buffer.position();
+        this.dictionaryMark = this.strings.size();
+        try {
+            ModelCodec.putVarInt(buffer, type);
+            buffer.put((byte) 0);
+        } catch (BufferOverflowException e) {
+            buffer.position(this.recordStart);
+            throw e;
+        }
+        return buffer.position();
+    }
+    
+    /**
+     * Writes the length of the record, moving the body if the length needs 
+     * more than the reserved byte.
+     */
+    private void end(final ByteBuffer buffer, final int bodyStart) {
+        final int bodyEnd = buffer.position();
+        final int length = bodyEnd - bodyStart;
+        final int shift = ModelCodec.sizeOfVarInt(length) - 1;
+        if (shift > 0) {
+            if (buffer.limit() - bodyEnd < shift) {
+                throw new BufferOverflowException();
+            }
+            for (int i = bodyEnd - 1; i >= bodyStart; --i) {
+                buffer.put(i + shift, buffer.get(i));
+            }
+        }
+        buffer.position(bodyStart - 1);
+        ModelCodec.putVarInt(buffer, length);
+        buffer.position(bodyEnd + shift);
+    }
+    
+    /**
+     * Resets the buffer and the dictionary to the start of the record.
+     */
+    private void rollback(final ByteBuffer buffer) {
+        buffer.position(this.recordStart);
+        for (int i = this.strings.size() - 1; i >= this.dictionaryMark; --i) {
+            this.dictionary.remove(this.strings.remove(i));
+        }
+    }
+    
+    /**
+     * Writes a string against the dictionary.
+     */
+    private void putString(final ByteBuffer buffer, final String value) {
+        if (value == null) {
+            ModelCodec.putVarInt(buffer, ModelCodec.STRING_NULL);
+            return;
+        }
+        final Integer number = this.dictionary.get(value);
+        if (number != null) {
+            ModelCodec.putVarInt(buffer, ModelCodec.STRING_REFERENCE + number);
+            return;
+        }
+        if (this.strings.size() < this.maximumDictionarySize) {
+            ModelCodec.putVarInt(buffer, ModelCodec.STRING_ADDED);
+            this.dictionary.put(value, this.strings.size());
+            this.strings.add(value);
+        } else {
+            ModelCodec.putVarInt(buffer, ModelCodec.STRING_LITERAL);
+        }
+        ModelCodec.putVarInt(buffer, ModelCodec.sizeOfUtf8(value));
+        ModelCodec.putUtf8(buffer, value);
+    }
+}
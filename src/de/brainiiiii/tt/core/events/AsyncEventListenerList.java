@@ -0,0 +1,413 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.events;
+
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A list for listeners, calling the listeners asynchronous.
+ * 
+ * Every listener gets its own bounded ring buffer and its own thread taking
+ * the events from the buffer. Calling the listeners only puts the event into
+ * the buffers, so a slow listener does not hold up the caller. The events
+ * are passed to every listener in the order they have been called.
+ * 
+ * The events are passed to the listeners after the call has returned, so the
+ * caller must not modify an event after it has been called.
+ * 
+ * @param <L> The type of the listener.
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class AsyncEventListenerList<L> extends EventListenerList<L> implements Closeable {
+    
+    /**
+     * The policies for calling a listener with a full buffer.
+     */
+    public static enum OverflowPolicy {
+        
+        /**
+         * The caller waits, until the buffer has space for the event.
+         */
+        BLOCK,
+        
+        /**
+         * The event is not passed to the listener.
+         */
+        DROP,
+        
+        /**
+         * The event is merged with the newest event within the buffer, if 
+         * both events are passed by the same {@link ICoalescingEventCallback}
+         * and the callback is able to merge them. Otherwise the caller 
+         * waits.
+         */
+        COALESCE;
+    }
+    
+    /**
+     * The default capacity of the buffers.
+     */
+    public final static int DEFAULT_CAPACITY = 1024;
+    
+    /**
+     * The array of dispatchers of a list without listeners.
+     */
+    private final static Dispatcher<?>[] NO_DISPATCHERS = new Dispatcher<?>[0];
+    
+    private final int capacity;
+    
+    private final OverflowPolicy policy;
+    
+    private final ThreadFactory threadFactory;
+    
+    /**
+     * A simple object used for locking the dispatchers.
+     */
+    private final Object dispatcherLock = new Object();
+    
+    /**
+     * The dispatchers of all listeners.
+     * 
+     * Just like the listeners, the array is replaced on every change.
+     */
+    private volatile Dispatcher<?>[] dispatchers = NO_DISPATCHERS;
+    
+    /**
+     * The number of events not passed to a listener.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+    
+    /**
+     * Creates a new blocking listener list with the default capacity.
+     */
+    public AsyncEventListenerList() {
+        this(DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+    }
+    
+    /**
+     * Creates a new listener list.
+     * 
+     * @param capacity The capacity of the buffer of every listener.
+     * @param policy The policy for calling a listener with a full buffer.
+     */
+    public AsyncEventListenerList(final int capacity, final OverflowPolicy policy) {
+        this(capacity, policy, new DaemonThreadFactory());
+    }
+    
+    /**
+     * Creates a new listener list.
+     * 
+     * @param capacity The capacity of the buffer of every listener.
+     * @param policy The policy for calling a listener with a full buffer.
+     * @param threadFactory The factory for the threads calling the listeners.
+     */
+    public AsyncEventListenerList(final int capacity, final OverflowPolicy policy, final ThreadFactory threadFactory) {
+        super();
+        
+        // check parameters with assertions
+        assert(capacity > 0);
+        assert(policy != null);
+        assert(threadFactory != null);
+        
+        this.capacity = capacity;
+        this.policy = policy;
+        this.threadFactory = threadFactory;
+    }
+    
+    /**
+     * Returns the number of events, which have not been passed to a listener
+     * due to a full buffer.
+     * 
+     * @return The number of dropped or coalesced events.
+     */
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+    
+    /**
+     * Returns <i>false</i>, because the listeners are called asynchronous.
+     * 
+     * @return <i>False</i>.
+     */
+    @Override
+    public boolean isSynchronous() {
+        return false;
+    }
+    
+    @Override
+    public void addListener(final L listener) {
+        synchronized(this.dispatcherLock) {
+            final Dispatcher<L> dispatcher = new Dispatcher<>(this, listener);
+            final Dispatcher<?>[] current = this.dispatchers;
+            final Dispatcher<?>[] changed = Arrays.copyOf(current, current.length + 1);
+            changed[current.length] = dispatcher;
+            
+            super.addListener(listener);
+            this.dispatchers = changed;
+            dispatcher.start();
+        }
+    }
+    
+    @Override
+    public void removeListener(final L listener) {
+        synchronized(this.dispatcherLock) {
+            final Dispatcher<?>[] current = this.dispatchers;
+            for (int i = 0; i < current.length; ++i) {
+                if (listener == null ? current[i].listener == null : listener.equals(current[i].listener)) {
+                    final Dispatcher<?>[] changed = new Dispatcher<?>[current.length - 1];
+                    System.arraycopy(current, 0, changed, 0, i);
+                    System.arraycopy(current, i + 1, changed, i, changed.length - i);
+                    
+                    super.removeListener(listener);
+                    this.dispatchers = changed;
+                    current[i].close();
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Removes all listeners from this list.
+     * 
+     * The events already within the buffers are still passed to the 
+     * listeners.
+     */
+    @Override
+    public void clear() {
+        synchronized(this.dispatcherLock) {
+            final Dispatcher<?>[] current = this.dispatchers;
+            
+            super.clear();
+            this.dispatchers = NO_DISPATCHERS;
+            for (final Dispatcher<?> dispatcher : current) {
+                dispatcher.close();
+            }
+        }
+    }
+    
+    /**
+     * Removes all listeners and waits, until all events within the buffers
+     * have been passed to the listeners.
+     */
+    @Override
+    public void close() {
+        final Dispatcher<?>[] current;
+        synchronized(this.dispatcherLock) {
+            current = this.dispatchers;
+            this.clear();
+        }
+        
+        boolean interrupted = false;
+        for (final Dispatcher<?> dispatcher : current) {
+            while (true) {
+                try {
+                    dispatcher.thread.join();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Puts the event into the buffers of all listeners.
+     * 
+     * @param <E> The type of the event.
+     * @param callback The callback handler.
+     * @param event The event.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <E> void call(final IEventCallback<L, E> callback, final E event) {
+        final Dispatcher<?>[] _dispatchers = this.dispatchers;
+        for (int i = 0; i < _dispatchers.length; ++i) {
+            ((Dispatcher<L>) _dispatchers[i]).put((IEventCallback<L, Object>) callback, event);
+        }
+    }
+    
+    /**
+     * The ring buffer and thread of a single listener.
+     * 
+     * @param <L> The type of the listener.
+     */
+    private static class Dispatcher<L> implements Runnable {
+        
+        private final AsyncEventListenerList<L> list;
+        
+        private final L listener;
+        
+        private final Thread thread;
+        
+        private final ReentrantLock lock = new ReentrantLock();
+        
+        private final Condition notEmpty = this.lock.newCondition();
+        
+        private final Condition notFull = this.lock.newCondition();
+        
+        private final IEventCallback<L, Object>[] callbacks;
+        
+        private final Object[] events;
+        
+        /**
+         * The index of the oldest event.
+         */
+        private int head = 0;
+        
+        private int count = 0;
+        
+        private boolean closed = false;
+        
+        @SuppressWarnings("unchecked")
+        Dispatcher(final AsyncEventListenerList<L> list, final L listener) {
+            this.list = list;
+            this.listener = listener;
+            this.callbacks = (IEventCallback<L, Object>[]) new IEventCallback<?, ?>[list.capacity];
+            this.events = new Object[list.capacity];
+            this.thread = list.threadFactory.newThread(this);
+        }
+        
+        void start() {
+            this.thread.start();
+        }
+        
+        void put(final IEventCallback<L, Object> callback, final Object event) {
+            this.lock.lock();
+            try {
+                if (this.closed) {
+                    return;
+                }
+                
+                while (this.count == this.events.length) {
+                    if (this.list.policy == OverflowPolicy.DROP) {
+                        this.list.dropped.incrementAndGet();
+                        return;
+                    }
+                    
+                    if (this.list.policy == OverflowPolicy.COALESCE && this.coalesce(callback, event)) {
+                        this.list.dropped.incrementAndGet();
+                        return;
+                    }
+                    
+                    this.notFull.awaitUninterruptibly();
+                    if (this.closed) {
+                        return;
+                    }
+                }
+                
+                final int tail = (this.head + this.count) % this.events.length;
+                this.callbacks[tail] = callback;
+                this.events[tail] = event;
+                this.count++;
+                this.notEmpty.signal();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+        
+        /**
+         * Merges an event into the newest event of the buffer.
+         * 
+         * @return Whether the event has been merged.
+         */
+        private boolean coalesce(final IEventCallback<L, Object> callback, final Object event) {
+            final int newest = (this.head + this.count - 1) % this.events.length;
+            if (this.callbacks[newest] != callback || !(callback instanceof ICoalescingEventCallback)) {
+                return false;
+            }
+            final Object merged = ((ICoalescingEventCallback<L, Object>) callback).coalesce(this.events[newest], event);
+            if (merged == null) {
+                return false;
+            }
+            this.events[newest] = merged;
+            return true;
+        }
+        
+        void close() {
+            this.lock.lock();
+            try {
+                this.closed = true;
+                this.notEmpty.signal();
+                this.notFull.signalAll();
+            } finally {
+                this.lock.unlock();
+            }
+        }
+        
+        @Override
+        public void run() {
+            try {
+                this.dispatch();
+            } finally {
+                // never leave blocked producers behind, even if the thread
+                // dies from the exception handler
+                this.close();
+            }
+        }
+        
+        private void dispatch() {
+            while (true) {
+                final IEventCallback<L, Object> callback;
+                final Object event;
+                
+                this.lock.lock();
+                try {
+                    while (this.count == 0) {
+                        if (this.closed) {
+                            return;
+                        }
+                        this.notEmpty.awaitUninterruptibly();
+                    }
+                    
+                    callback = this.callbacks[this.head];
+                    event = this.events[this.head];
+                    this.callbacks[this.head] = null;
+                    this.events[this.head] = null;
+                    this.head = (this.head + 1) % this.events.length;
+                    this.count--;
+                    this.notFull.signal();
+                } finally {
+                    this.lock.unlock();
+                }
+                
+                try {
+                    callback.callEvent(this.listener, event);
+                } catch (Throwable ex) {
+                    // errors of a listener must not stop the dispatcher
+                    final Thread current = Thread.currentThread();
+                    current.getUncaughtExceptionHandler().uncaughtException(current, ex);
+                }
+            }
+        }
+    }
+}
@@ -24,7 +24,7 @@
 package de.brainiiiii.tt.core.events;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -34,26 +34,38 @@ import java.util.List;
  * on the same event list and editing on the eventlist while handling another
  * event possible.
  * 
+ * The listeners are held in an array, which is never changed after it has
+ * been published. Adding or removing a listener replaces the array, so 
+ * calling the listeners needs neither a lock nor a copy of the list.
+ * 
  * @param <L> The type of the listener.
  * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
  */
 public class EventListenerList<L> {
     
+    /**
+     * The array of a list without listeners.
+     */
+    private final static Object[] EMPTY = new Object[0];
+    
     /**
      * A simple object used for locking the list.
      */
     private final Object lock = new Object();
     
     /**
-     * The list of listeners.
+     * The array of listeners.
+     * 
+     * The array is replaced on every change and must not be modified after it
+     * has been assigned.
      */
-    private List<L> listeners;
+    private volatile Object[] listeners;
     
     /**
      * Creates a new blank listener list.
      */
     public EventListenerList() {
-        this.clear();
+        this.listeners = EMPTY;
     }
     
     /**
@@ -63,15 +75,15 @@ public class EventListenerList<L> {
      * @param reference The reference to copy all listeners from.
      */
     public EventListenerList(final EventListenerList<L> reference) {
-        this.listeners = reference.copyListenerList();
+        this.listeners = reference.listeners;
     }
     
     /**
      * Removes all listeners from this list.
      */
-    public final void clear() {
+    public void clear() {
         synchronized(this.lock) {
-            this.listeners = new ArrayList<>();
+            this.listeners = EMPTY;
         }
     }
     
@@ -82,7 +94,10 @@ public class EventListenerList<L> {
      */
     public void addListener(final L listener) {
         synchronized(this.lock) {
-            this.listeners.add(listener);
+            final Object[] current = this.listeners;
+            final Object[] changed = Arrays.copyOf(current, current.length + 1);
+            changed[current.length] = listener;
+            this.listeners = changed;
         }
     }
     
@@ -93,19 +108,44 @@ public class EventListenerList<L> {
      */
     public void removeListener(final L listener) {
         synchronized(this.lock) {
-            this.listeners.remove(listener);
+            final Object[] current = this.listeners;
+            for (int i = 0; i < current.length; ++i) {
+                if (listener == null ? current[i] == null : listener.equals(current[i])) {
+                    final Object[] changed = new Object[current.length - 1];
+                    System.arraycopy(current, 0, changed, 0, i);
+                    System.arraycopy(current, i + 1, changed, i, changed.length - i);
+                    this.listeners = changed;
+                    return;
+                }
+            }
         }
     }
     
+    /**
+     * Returns, whether the listeners are called synchronous.
+     * 
+     * If the listeners are called synchronous, every event has been passed to
+     * all listeners, when the call returns. So the caller may reuse the event.
+     * 
+     * @return <i>True</i>, if the listeners are called synchronous.
+     */
+    public boolean isSynchronous() {
+        return true;
+    }
+    
     /**
      * Creates a copy of the list of listeners.
      * 
      * @return The copy of the list.
      */
+    @SuppressWarnings("unchecked")
     protected List<L> copyListenerList() {
-        synchronized(this.lock) {
-            return new ArrayList<L>(this.listeners);
+        final Object[] current = this.listeners;
+        final List<L> copy = new ArrayList<>(current.length);
+        for (final Object listener : current) {
+            copy.add((L) listener);
         }
+        return copy;
     }
     
     /**
@@ -119,13 +159,11 @@ public class EventListenerList<L> {
      * @param callback The callback handler.
      * @param event The event.
      */
+    @SuppressWarnings("unchecked")
     public <E> void call(final IEventCallback<L, E> callback, final E event) {
-        final List<L> _listeners = this.copyListenerList();
-        final Iterator<L> iterator = _listeners.iterator();
-        while(iterator.hasNext()) {
-            final L listener = iterator.next();
-            
-            callback.callEvent(listener, event);
+        final Object[] _listeners = this.listeners;
+        for (int i = 0; i < _listeners.length; ++i) {
+            callback.callEvent((L) _listeners[i], event);
         }
     }
 }
@@ -0,0 +1,53 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.events;
+
+/**
+ * An event callback, which is able to merge two of its events into one.
+ * 
+ * The merge is used by the {@link AsyncEventListenerList} with the policy 
+ * {@link AsyncEventListenerList.OverflowPolicy#COALESCE}, when a listener's
+ * buffer is full.
+ * 
+ * @param <L> The type of the listener
+ * @param <E> The type of the event
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public interface ICoalescingEventCallback<L, E> extends IEventCallback<L, E> {
+    
+    /**
+     * Merges two successive events.
+     * 
+     * Calling the listener with the merged event must have the same effect 
+     * as calling it with both events one after another. Events belonging to
+     * different keys, e.g. different players, must not be merged. Neither 
+     * of the given events may be modified.
+     * 
+     * @param older The older event.
+     * @param newer The newer event.
+     * @return The merged event or <i>null</i>, if the events cannot be 
+     * merged.
+     */
+    public E coalesce(E older, E newer);
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.events;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The timer shared by all collectors and journals.
+ * 
+ * A single daemon thread runs the timed tasks, so the tasks must be short.
+ * They should only check, whether there is anything to do, and pass slow
+ * work like listener calls or disk writes to {@link #execute(Runnable)}.
+ * Otherwise one slow task would delay the tasks of all other users.
+ * 
+ * The threads are created on their first use only.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public final class SharedTimer {
+    
+    /**
+     * Holder of the timer thread.
+     */
+    private static class Timer {
+        
+        private final static ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+    }
+    
+    /**
+     * Holder of the threads running the work of timed tasks.
+     */
+    private static class Workers {
+        
+        private final static ExecutorService INSTANCE = Executors.newCachedThreadPool(new DaemonThreadFactory());
+    }
+    
+    private SharedTimer() {
+    }
+    
+    /**
+     * Runs a short task after a delay on the timer thread.
+     * 
+     * @param task The task.
+     * @param delay The delay.
+     * @param unit The unit of the delay.
+     * @return The future of the task.
+     */
+    public static ScheduledFuture<?> schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        // check parameters with assertions
+        assert(task != null && delay >= 0);
+        
+        return Timer.INSTANCE.schedule(task, delay, unit);
+    }
+    
+    /**
+     * Runs a task apart from the timer thread.
+     * 
+     * @param task The task.
+     */
+    public static void execute(final Runnable task) {
+        // check parameters with assertions
+        assert(task != null);
+        
+        Workers.INSTANCE.execute(task);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import de.brainiiiii.tt.core.IAsyncCallback;
+import de.brainiiiii.tt.core.IAsyncFailureCallback;
+
+/**
+ * Helpers for calling asynchronous callbacks.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+final class AsyncCallbacks {
+    
+    private AsyncCallbacks() {
+    }
+    
+    /**
+     * Reports a failure to a callback, passing the cause to callbacks 
+     * accepting it.
+     * 
+     * @param callback The callback.
+     * @param cause The cause of the failure.
+     */
+    static void fail(final IAsyncCallback<?> callback, final Throwable cause) {
+        if (callback instanceof IAsyncFailureCallback) {
+            ((IAsyncFailureCallback<?>) callback).onFailure(cause);
+        } else {
+            callback.onFailure();
+        }
+    }
+}
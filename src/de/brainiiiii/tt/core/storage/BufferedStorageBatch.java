@@ -0,0 +1,86 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import de.brainiiiii.tt.core.GameResultArray;
+import de.brainiiiii.tt.core.Player;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A batch collecting its changes in memory until committing.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+abstract class BufferedStorageBatch implements IStorageBatch {
+    
+    private final List<Player> players = new ArrayList<>();
+    
+    private final GameResultArray results = new GameResultArray();
+    
+    private boolean closed = false;
+    
+    @Override
+    public void savePlayer(final Player p) {
+        if (this.closed) {
+            throw new IllegalStateException("The batch has been closed.");
+        }
+        this.players.add(p);
+    }
+
+    @Override
+    public void saveResult(final long result, final int playerA, final int playerB) {
+        if (this.closed) {
+            throw new IllegalStateException("The batch has been closed.");
+        }
+        this.results.add(result, playerA, playerB);
+    }
+
+    @Override
+    public void commit() throws IOException {
+        if (this.closed) {
+            throw new IllegalStateException("The batch has been closed.");
+        }
+        this.apply(this.players, this.results);
+        this.players.clear();
+        this.results.clear();
+    }
+    
+    /**
+     * Applies the changes of the batch to the storage.
+     * 
+     * @param players The players to save.
+     * @param results The game results to save.
+     * @throws IOException If the storage could not be written.
+     */
+    protected abstract void apply(List<Player> players, GameResultArray results) throws IOException;
+
+    @Override
+    public void close() {
+        this.closed = true;
+        this.players.clear();
+        this.results.clear();
+    }
+}
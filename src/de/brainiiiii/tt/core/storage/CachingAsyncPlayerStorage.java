@@ -0,0 +1,208 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import de.brainiiiii.tt.core.IAsyncCallback;
+import de.brainiiiii.tt.core.IAsyncFailureCallback;
+import de.brainiiiii.tt.core.IAsyncPlayerStorage;
+import de.brainiiiii.tt.core.Player;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An asynchronous player storage caching the players of another storage.
+ * 
+ * Players not within the cache are requested from the storage. Concurrent 
+ * requests of the same player share a single request, all their callbacks
+ * are called with its result. Saved players replace the cached player at 
+ * once, so they are read back even before the storage has written them; a 
+ * failed save removes the player from the cache.
+ * 
+ * The cached players are shared by all callers.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class CachingAsyncPlayerStorage implements IAsyncPlayerStorage {
+    
+    private final IAsyncPlayerStorage storage;
+    
+    private final PlayerCache cache;
+    
+    /**
+     * The running loads by player id, guarded by the map itself.
+     */
+    private final IntObjectMap<Load> loads = new IntObjectMap<>();
+    
+    private final AtomicLong loadCount = new AtomicLong();
+    
+    /**
+     * A load of a player, shared by all concurrent requests.
+     */
+    private static class Load {
+        
+        final List<IAsyncCallback<Player>> callbacks = new ArrayList<>(1);
+        
+        /**
+         * Whether the player has been saved during the load.
+         */
+        boolean stale = false;
+    }
+    
+    /**
+     * Creates a new caching storage.
+     * 
+     * @param storage The storage to cache.
+     * @param maximumSize The maximum number of cached players.
+     */
+    public CachingAsyncPlayerStorage(final IAsyncPlayerStorage storage, final int maximumSize) {
+        this(storage, new PlayerCache(maximumSize));
+    }
+    
+    /**
+     * Creates a new caching storage.
+     * 
+     * @param storage The storage to cache.
+     * @param cache The cache.
+     */
+    public CachingAsyncPlayerStorage(final IAsyncPlayerStorage storage, final PlayerCache cache) {
+        // check parameters with assertions
+        assert(storage != null);
+        assert(cache != null);
+        
+        this.storage = storage;
+        this.cache = cache;
+    }
+    
+    /**
+     * Returns the cache, e.g. to query its statistics.
+     * 
+     * @return The cache.
+     */
+    public PlayerCache getCache() {
+        return this.cache;
+    }
+    
+    /**
+     * Returns the number of players requested from the storage.
+     * 
+     * @return The number of loads.
+     */
+    public long getLoadCount() {
+        return this.loadCount.get();
+    }
+
+    @Override
+    public void savePlayer(final Player p, final IAsyncCallback<Void> callback) {
+        synchronized (this.loads) {
+            final Load load = this.loads.get(p.playerId);
+            if (load != null) {
+                load.stale = true;
+            }
+            this.cache.put(p);
+        }
+        
+        this.storage.savePlayer(p, new IAsyncFailureCallback<Void>() {
+            @Override
+            public void onCallback(final Void obj) {
+                if (callback != null) {
+                    callback.onCallback(obj);
+                }
+            }
+
+            @Override
+            public void onFailure() {
+                CachingAsyncPlayerStorage.this.cache.invalidate(p.playerId);
+                if (callback != null) {
+                    callback.onFailure();
+                }
+            }
+
+            @Override
+            public void onFailure(final Throwable cause) {
+                CachingAsyncPlayerStorage.this.cache.invalidate(p.playerId);
+                if (callback != null) {
+                    AsyncCallbacks.fail(callback, cause);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void getPlayer(final int playerId, final IAsyncCallback<Player> callback) {
+        final Player cached = this.cache.get(playerId);
+        if (cached != null) {
+            callback.onCallback(cached);
+            return;
+        }
+        
+        final Load load;
+        synchronized (this.loads) {
+            final Load running = this.loads.get(playerId);
+            if (running != null) {
+                running.callbacks.add(callback);
+                return;
+            }
+            load = new Load();
+            load.callbacks.add(callback);
+            this.loads.put(playerId, load);
+        }
+        
+        this.loadCount.incrementAndGet();
+        this.storage.getPlayer(playerId, new IAsyncFailureCallback<Player>() {
+            @Override
+            public void onCallback(final Player p) {
+                synchronized (CachingAsyncPlayerStorage.this.loads) {
+                    CachingAsyncPlayerStorage.this.loads.remove(playerId);
+                    if (p != null && !load.stale) {
+                        CachingAsyncPlayerStorage.this.cache.put(p);
+                    }
+                }
+                for (final IAsyncCallback<Player> c : load.callbacks) {
+                    c.onCallback(p);
+                }
+            }
+
+            @Override
+            public void onFailure() {
+                synchronized (CachingAsyncPlayerStorage.this.loads) {
+                    CachingAsyncPlayerStorage.this.loads.remove(playerId);
+                }
+                for (final IAsyncCallback<Player> c : load.callbacks) {
+                    c.onFailure();
+                }
+            }
+
+            @Override
+            public void onFailure(final Throwable cause) {
+                synchronized (CachingAsyncPlayerStorage.this.loads) {
+                    CachingAsyncPlayerStorage.this.loads.remove(playerId);
+                }
+                for (final IAsyncCallback<Player> c : load.callbacks) {
+                    AsyncCallbacks.fail(c, cause);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import de.brainiiiii.tt.core.IPlayerStorage;
+import de.brainiiiii.tt.core.Player;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A player storage caching the players of another storage.
+ * 
+ * Players not within the cache are loaded from the storage. Concurrent 
+ * requests of the same player share a single load. Saved players are 
+ * written to the storage first and then replace the cached player, a load
+ * running concurrently does not overwrite them.
+ * 
+ * The cached players are shared by all callers, just like the players of 
+ * the other storages.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class CachingPlayerStorage implements IPlayerStorage {
+    
+    private final IPlayerStorage storage;
+    
+    private final PlayerCache cache;
+    
+    /**
+     * The running loads by player id.
+     */
+    private final ConcurrentMap<Integer, Load> loads = new ConcurrentHashMap<>();
+    
+    private final AtomicLong loadCount = new AtomicLong();
+    
+    /**
+     * A load of a player, shared by all concurrent requests.
+     */
+    private static class Load {
+        
+        final CountDownLatch done = new CountDownLatch(1);
+        
+        Player player;
+        
+        RuntimeException failure;
+        
+        /**
+         * Whether the player has been saved during the load.
+         */
+        boolean stale = false;
+    }
+    
+    /**
+     * Creates a new caching storage.
+     * 
+     * @param storage The storage to cache.
+     * @param maximumSize The maximum number of cached players.
+     */
+    public CachingPlayerStorage(final IPlayerStorage storage, final int maximumSize) {
+        this(storage, new PlayerCache(maximumSize));
+    }
+    
+    /**
+     * Creates a new caching storage.
+     * 
+     * @param storage The storage to cache.
+     * @param cache The cache.
+     */
+    public CachingPlayerStorage(final IPlayerStorage storage, final PlayerCache cache) {
+        // check parameters with assertions
+        assert(storage != null);
+        assert(cache != null);
+        
+        this.storage = storage;
+        this.cache = cache;
+    }
+    
+    /**
+     * Returns the cache, e.g. to query its statistics.
+     * 
+     * @return The cache.
+     */
+    public PlayerCache getCache() {
+        return this.cache;
+    }
+    
+    /**
+     * Returns the number of players loaded from the storage.
+     * 
+     * @return The number of loads.
+     */
+    public long getLoadCount() {
+        return this.loadCount.get();
+    }
+
+    @Override
+    public void savePlayer(final Player p) {
+        this.storage.savePlayer(p);
+        
+        // keep a running load from caching the previous player
+        final Load load = this.loads.get(p.playerId);
+        if (load != null) {
+            synchronized (load) {
+                load.stale = true;
+            }
+        }
+        this.cache.put(p);
+    }
+
+    @Override
+    public Player getPlayer(final int playerId) {
+        final Player cached = this.cache.get(playerId);
+        if (cached != null) {
+            return cached;
+        }
+        
+        final Load load = new Load();
+        final Load running = this.loads.putIfAbsent(playerId, load);
+        if (running != null) {
+            return await(running);
+        }
+        
+        try {
+            this.loadCount.incrementAndGet();
+            load.player = this.storage.getPlayer(playerId);
+            synchronized (load) {
+                if (load.player != null && !load.stale) {
+                    this.cache.put(load.player);
+                }
+            }
+        } catch (RuntimeException ex) {
+            load.failure = ex;
+            throw ex;
+        } finally {
+            this.loads.remove(playerId, load);
+            load.done.countDown();
+        }
+        return load.player;
+    }
+    
+    private static Player await(final Load load) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                load.done.await();
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (load.failure != null) {
+            throw load.failure;
+        }
+        return load.player;
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import de.brainiiiii.tt.core.GameResultArray;
+import de.brainiiiii.tt.core.Player;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A storage adapter keeping all information in files of a directory.
+ * 
+ * The players are kept by a {@link MappedPlayerStorage}. The game results 
+ * are appended to a result file of fixed records, whose header holds the 
+ * length of the committed records. New records are written and forced to 
+ * the disk before the header is updated, so the game results saved at once 
+ * become visible together and a crash never exposes a part of them. The 
+ * players are written one after another, every player on its own is safe 
+ * against crashes.
+ * 
+ * A batch saves and forces its players first and its game results last, so
+ * the update of the result header commits the batch: once its game results 
+ * are visible, all its players are durable. Readers and a crash during 
+ * committing may see some players of the batch without its game results, 
+ * but never game results without their players.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class FileStorageAdapter implements IStorageAdapter {
+    
+    private final static int RESULT_MAGIC = 0x54545252;
+    
+    private final static int VERSION = 1;
+    
+    private final static int HEADER_SIZE = 16;
+    
+    private final static int HEADER_LENGTH = 8;
+    
+    /**
+     * The size of a game result: the encoded result and both player ids.
+     */
+    private final static int RECORD_SIZE = 16;
+    
+    /**
+     * The number of records read or written at once.
+     */
+    private final static int CHUNK_RECORDS = 4096;
+    
+    private final MappedPlayerStorage players;
+    
+    private final RandomAccessFile resultFile;
+    
+    private final FileChannel results;
+    
+    /**
+     * A simple object used for locking the writing of game results.
+     */
+    private final Object resultLock = new Object();
+    
+    /**
+     * The end of the committed game results.
+     */
+    private volatile long committed;
+    
+    /**
+     * Opens the storage within a directory, creating its files if needed.
+     * 
+     * @param directory The directory.
+     * @throws IOException If a file could not be opened or has an invalid 
+     * format.
+     */
+    public FileStorageAdapter(final File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create directory " + directory);
+        }
+        
+        this.players = new MappedPlayerStorage(new File(directory, "players.slots"), new File(directory, "players.heap"));
+        try {
+            this.resultFile = new RandomAccessFile(new File(directory, "results.dat"), "rw");
+        } catch (IOException ex) {
+            this.players.close();
+            throw ex;
+        }
+        this.results = this.resultFile.getChannel();
+        try {
+            this.openResults(directory);
+        } catch (IOException ex) {
+            this.close();
+            throw ex;
+        }
+    }
+    
+    private void openResults(final File directory) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (this.results.size() == 0) {
+            header.putInt(RESULT_MAGIC).putInt(VERSION).putLong(HEADER_SIZE).flip();
+            writeFully(this.results, header, 0);
+            this.results.force(true);
+            this.committed = HEADER_SIZE;
+            return;
+        }
+        
+        readFully(this.results, header, 0);
+        header.flip();
+        if (header.getInt() != RESULT_MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Invalid result file in " + directory);
+        }
+        this.committed = header.getLong();
+        if (this.committed < HEADER_SIZE || this.committed > this.results.size() || (this.committed - HEADER_SIZE) % RECORD_SIZE != 0) {
+            throw new IOException("Invalid length of result file in " + directory);
+        }
+    }
+    
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+    
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            position += read;
+        }
+    }
+    
+    /**
+     * Returns the storage of the players.
+     * 
+     * @return The storage of the players.
+     */
+    public MappedPlayerStorage getPlayerStorage() {
+        return this.players;
+    }
+
+    @Override
+    public Player[] getPlayers(final int[] playerIds) {
+        final Player[] result = new Player[playerIds.length];
+        for (int i = 0; i < playerIds.length; ++i) {
+            result[i] = this.players.getPlayer(playerIds[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public void savePlayers(final Collection<? extends Player> players) {
+        this.players.savePlayers(players);
+        this.players.flush();
+    }
+
+    @Override
+    public void saveResults(final GameResultArray results) throws IOException {
+        synchronized (this.resultLock) {
+            // records behind the committed end are left over by a crash and
+            // are overwritten
+            long position = this.committed;
+            final ByteBuffer buffer = ByteBuffer.allocate(Math.min(results.size(), CHUNK_RECORDS) * RECORD_SIZE);
+            for (int i = 0; i < results.size(); ++i) {
+                buffer.putLong(results.getPacked(i)).putInt(results.getOpponentA(i)).putInt(results.getOpponentB(i));
+                if (!buffer.hasRemaining() || i == results.size() - 1) {
+                    buffer.flip();
+                    final int length = buffer.remaining();
+                    writeFully(this.results, buffer, position);
+                    position += length;
+                    buffer.clear();
+                }
+            }
+            if (position == this.committed) {
+                return;
+            }
+            this.results.force(false);
+            
+            final ByteBuffer length = ByteBuffer.allocate(8);
+            length.putLong(position).flip();
+            writeFully(this.results, length, HEADER_LENGTH);
+            this.results.force(false);
+            this.committed = position;
+        }
+    }
+
+    @Override
+    public IStorageCursor<Player> openPlayers() {
+        final int slots = this.players.countSlots();
+        return new IStorageCursor<Player>() {
+            
+            private int playerId = -1;
+            
+            private Player current;
+            
+            @Override
+            public boolean next() {
+                while (++this.playerId < slots) {
+                    this.current = FileStorageAdapter.this.players.getPlayer(this.playerId);
+                    if (this.current != null) {
+                        return true;
+                    }
+                }
+                this.playerId = slots;
+                this.current = null;
+                return false;
+            }
+
+            @Override
+            public Player get() {
+                return this.current;
+            }
+
+            @Override
+            public void close() {
+                this.playerId = slots;
+                this.current = null;
+            }
+        };
+    }
+
+    @Override
+    public IResultCursor openResults() {
+        final long end = this.committed;
+        return new IResultCursor() {
+            
+            private final ByteBuffer buffer = (ByteBuffer) ByteBuffer.allocate(CHUNK_RECORDS * RECORD_SIZE).flip();
+            
+            private long position = HEADER_SIZE;
+            
+            private long result;
+            
+            private int playerA;
+            
+            private int playerB;
+            
+            @Override
+            public boolean next() throws IOException {
+                if (!this.buffer.hasRemaining()) {
+                    if (this.position >= end) {
+                        return false;
+                    }
+                    this.buffer.clear();
+                    this.buffer.limit((int) Math.min(this.buffer.capacity(), end - this.position));
+                    readFully(FileStorageAdapter.this.results, this.buffer, this.position);
+                    this.position += this.buffer.limit();
+                    this.buffer.flip();
+                }
+                this.result = this.buffer.getLong();
+                this.playerA = this.buffer.getInt();
+                this.playerB = this.buffer.getInt();
+                return true;
+            }
+
+            @Override
+            public long getResult() {
+                return this.result;
+            }
+
+            @Override
+            public int getPlayerA() {
+                return this.playerA;
+            }
+
+            @Override
+            public int getPlayerB() {
+                return this.playerB;
+            }
+
+            @Override
+            public void close() {
+                this.buffer.clear().flip();
+                this.position = end;
+            }
+        };
+    }
+
+    @Override
+    public IStorageBatch beginBatch() {
+        return new BufferedStorageBatch() {
+            @Override
+            protected void apply(final List<Player> players, final GameResultArray results) throws IOException {
+                // the players have to be durable before the result header
+                // commits the batch
+                FileStorageAdapter.this.savePlayers(players);
+                FileStorageAdapter.this.saveResults(results);
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.players.close();
+        } finally {
+            this.resultFile.close();
+        }
+    }
+}
@@ -0,0 +1,451 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import de.brainiiiii.tt.core.IAsyncCallback;
+import de.brainiiiii.tt.core.IAsyncFailureCallback;
+import de.brainiiiii.tt.core.IAsyncPlayerStorage;
+import de.brainiiiii.tt.core.IPlayerStorage;
+import de.brainiiiii.tt.core.Player;
+import de.brainiiiii.tt.core.events.DaemonThreadFactory;
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An asynchronous player storage running a blocking storage on an executor.
+ * 
+ * Every request returns a future, which can be waited for or cancelled; the
+ * callbacks of {@link IAsyncPlayerStorage} are supported as well. At most 
+ * the concurrency limit of requests run on the executor at once, further 
+ * requests wait in a queue without blocking the caller or a thread. Many 
+ * players are loaded by {@link #getPlayers(int[])} in parallel.
+ * 
+ * Any executor can be used, e.g. one starting a thread per request, as the
+ * concurrency limit bounds the load on the storage.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class FuturePlayerStorage implements IAsyncPlayerStorage, Closeable {
+    
+    /**
+     * The default maximum number of concurrent requests.
+     */
+    public final static int DEFAULT_CONCURRENCY = 16;
+    
+    private final IPlayerStorage storage;
+    
+    private final ExecutorService executor;
+    
+    private final boolean ownExecutor;
+    
+    private final Semaphore permits;
+    
+    /**
+     * The requests waiting for a permit.
+     */
+    private final Queue<Request<?>> waiting = new ConcurrentLinkedQueue<>();
+    
+    /**
+     * A request, releasing its permit when done and calling its callback.
+     */
+    private class Request<T> extends FutureTask<T> {
+        
+        private final IAsyncCallback<T> callback;
+        
+        Request(final Callable<T> callable, final IAsyncCallback<T> callback) {
+            super(callable);
+            this.callback = callback;
+        }
+
+        @Override
+        public void run() {
+            try {
+                super.run();
+            } finally {
+                FuturePlayerStorage.this.permits.release();
+                FuturePlayerStorage.this.drain();
+            }
+        }
+
+        void reject(final Throwable cause) {
+            this.setException(cause);
+        }
+
+        @Override
+        protected void done() {
+            if (this.callback == null) {
+                return;
+            }
+            try {
+                this.callback.onCallback(this.get());
+            } catch (ExecutionException ex) {
+                AsyncCallbacks.fail(this.callback, ex.getCause());
+            } catch (CancellationException | InterruptedException ex) {
+                AsyncCallbacks.fail(this.callback, ex);
+            }
+        }
+    }
+    
+    /**
+     * Creates a new storage with the default concurrency limit, running on 
+     * its own daemon threads.
+     * 
+     * @param storage The blocking storage.
+     */
+    public FuturePlayerStorage(final IPlayerStorage storage) {
+        this(storage, null, DEFAULT_CONCURRENCY);
+    }
+    
+    /**
+     * Creates a new storage.
+     * 
+     * @param storage The blocking storage.
+     * @param executor The executor of the requests or <code>null</code> to 
+     * run them on own daemon threads, which are stopped on closing.
+     * @param concurrency The maximum number of concurrent requests.
+     */
+    public FuturePlayerStorage(final IPlayerStorage storage, final ExecutorService executor, final int concurrency) {
+        // check parameters with assertions
+        assert(storage != null);
+        assert(concurrency > 0);
+        
+        this.storage = storage;
+        this.ownExecutor = executor == null;
+        this.executor = executor == null ? Executors.newCachedThreadPool(new DaemonThreadFactory()) : executor;
+        this.permits = new Semaphore(concurrency);
+    }
+    
+    /**
+     * Queues a request and starts the waiting requests, as far as permits 
+     * are available.
+     */
+    private <T> Request<T> submit(final Callable<T> callable, final IAsyncCallback<T> callback) {
+        final Request<T> request = new Request<>(callable, callback);
+        this.waiting.add(request);
+        this.drain();
+        return request;
+    }
+    
+    private void drain() {
+        while (!this.waiting.isEmpty() && this.permits.tryAcquire()) {
+            final Request<?> request = this.waiting.poll();
+            if (request == null) {
+                this.permits.release();
+                return;
+            }
+            if (request.isDone()) {
+                // cancelled while waiting
+                this.permits.release();
+                continue;
+            }
+            try {
+                this.executor.execute(request);
+            } catch (RejectedExecutionException ex) {
+                this.permits.release();
+                request.reject(ex);
+            }
+        }
+    }
+    
+    /**
+     * Loads a player.
+     * 
+     * @param playerId The internal player id.
+     * @return The future of the player, <code>null</code> for unknown ids.
+     */
+    public Future<Player> getPlayer(final int playerId) {
+        return this.submit(new Callable<Player>() {
+            @Override
+            public Player call() {
+                return FuturePlayerStorage.this.storage.getPlayer(playerId);
+            }
+        }, null);
+    }
+    
+    /**
+     * Saves a player.
+     * 
+     * @param p The player.
+     * @return The future of the save.
+     */
+    public Future<Void> savePlayer(final Player p) {
+        return this.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                FuturePlayerStorage.this.storage.savePlayer(p);
+                return null;
+            }
+        }, null);
+    }
+    
+    /**
+     * Loads many players in parallel.
+     * 
+     * @param playerIds The internal player ids.
+     * @return The future of the players in the order of the ids, 
+     * <code>null</code> for unknown ids. It fails as soon as the first load 
+     * fails, cancelling all other loads, and cancels all loads, when 
+     * cancelled.
+     */
+    public Future<Player[]> getPlayers(final int[] playerIds) {
+        return this.getPlayers(playerIds, null);
+    }
+    
+    /**
+     * Loads many players in parallel and calls the callback, once all 
+     * players have been loaded or the first load has failed.
+     * 
+     * @param playerIds The internal player ids.
+     * @param callback The callback or <code>null</code>.
+     * @return The future of the players in the order of the ids.
+     */
+    public Future<Player[]> getPlayers(final int[] playerIds, final IAsyncCallback<Player[]> callback) {
+        final JoinedFuture joined = new JoinedFuture(playerIds.length, callback);
+        for (int i = 0; i < playerIds.length && !joined.isDone(); ++i) {
+            final int playerId = playerIds[i];
+            joined.requests[i] = this.submit(new Callable<Player>() {
+                @Override
+                public Player call() {
+                    return FuturePlayerStorage.this.storage.getPlayer(playerId);
+                }
+            }, joined.part(i));
+        }
+        if (playerIds.length == 0) {
+            joined.complete();
+        }
+        if (joined.isDone()) {
+            // a load failed while submitting
+            joined.cancelRequests();
+        }
+        return joined;
+    }
+
+    @Override
+    public void savePlayer(final Player p, final IAsyncCallback<Void> callback) {
+        this.submit(new Callable<Void>() {
+            @Override
+            public Void call() {
+                FuturePlayerStorage.this.storage.savePlayer(p);
+                return null;
+            }
+        }, callback);
+    }
+
+    @Override
+    public void getPlayer(final int playerId, final IAsyncCallback<Player> callback) {
+        this.submit(new Callable<Player>() {
+            @Override
+            public Player call() {
+                return FuturePlayerStorage.this.storage.getPlayer(playerId);
+            }
+        }, callback);
+    }
+    
+    /**
+     * Returns the number of requests waiting for a permit.
+     * 
+     * @return The number of requests.
+     */
+    public int getWaitingCount() {
+        return this.waiting.size();
+    }
+    
+    /**
+     * Stops the own threads of the storage after the running requests.
+     * 
+     * Waiting requests are cancelled.
+     */
+    @Override
+    public void close() {
+        Request<?> request;
+        while ((request = this.waiting.poll()) != null) {
+            request.cancel(false);
+        }
+        if (this.ownExecutor) {
+            this.executor.shutdown();
+        }
+    }
+    
+    /**
+     * The future of many loads.
+     * 
+     * The future completes, when all loads have succeeded or as soon as the
+     * first load fails. In the latter case all other loads are cancelled and
+     * their results are ignored.
+     */
+    private static class JoinedFuture implements Future<Player[]> {
+        
+        final Request<?>[] requests;
+        
+        private final Player[] players;
+        
+        private final AtomicInteger remaining;
+        
+        private final IAsyncCallback<Player[]> callback;
+        
+        private volatile Throwable failure;
+        
+        private final CountDownLatch done = new CountDownLatch(1);
+        
+        private final AtomicBoolean completed = new AtomicBoolean();
+        
+        JoinedFuture(final int count, final IAsyncCallback<Player[]> callback) {
+            this.requests = new Request<?>[count];
+            this.players = new Player[count];
+            this.remaining = new AtomicInteger(count);
+            this.callback = callback;
+        }
+        
+        /**
+         * Returns the callback of a single load.
+         */
+        IAsyncCallback<Player> part(final int index) {
+            return new IAsyncFailureCallback<Player>() {
+                @Override
+                public void onCallback(final Player p) {
+                    JoinedFuture.this.players[index] = p;
+                    JoinedFuture.this.countDown();
+                }
+
+                @Override
+                public void onFailure() {
+                    this.onFailure(new ExecutionException("Loading the player failed.", null));
+                }
+
+                @Override
+                public void onFailure(final Throwable cause) {
+                    synchronized (JoinedFuture.this) {
+                        if (JoinedFuture.this.failure == null) {
+                            JoinedFuture.this.failure = cause;
+                        }
+                    }
+                    if (JoinedFuture.this.complete()) {
+                        JoinedFuture.this.cancelRequests();
+                    }
+                }
+            };
+        }
+        
+        private void countDown() {
+            if (this.remaining.decrementAndGet() == 0) {
+                this.complete();
+            }
+        }
+        
+        /**
+         * Completes the future, unless it has been completed before.
+         * 
+         * @return Whether the future has been completed by this call.
+         */
+        boolean complete() {
+            if (!this.completed.compareAndSet(false, true)) {
+                return false;
+            }
+            this.done.countDown();
+            if (this.callback == null) {
+                return true;
+            }
+            if (this.failure == null) {
+                this.callback.onCallback(this.players);
+            } else {
+                AsyncCallbacks.fail(this.callback, this.failure);
+            }
+            return true;
+        }
+        
+        /**
+         * Cancels all submitted loads.
+         */
+        boolean cancelRequests() {
+            boolean cancelled = false;
+            for (final Request<?> request : this.requests) {
+                if (request != null) {
+                    cancelled |= request.cancel(false);
+                }
+            }
+            return cancelled;
+        }
+
+        @Override
+        public boolean cancel(final boolean mayInterruptIfRunning) {
+            boolean cancelled = false;
+            for (final Request<?> request : this.requests) {
+                if (request != null) {
+                    cancelled |= request.cancel(mayInterruptIfRunning);
+                }
+            }
+            return cancelled;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return this.isDone() && this.failure instanceof CancellationException;
+        }
+
+        @Override
+        public boolean isDone() {
+            return this.done.getCount() == 0;
+        }
+
+        @Override
+        public Player[] get() throws InterruptedException, ExecutionException {
+            this.done.await();
+            return this.result();
+        }
+
+        @Override
+        public Player[] get(final long timeout, final TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            if (!this.done.await(timeout, unit)) {
+                throw new TimeoutException();
+            }
+            return this.result();
+        }
+        
+        private Player[] result() throws ExecutionException {
+            final Throwable cause = this.failure;
+            if (cause instanceof CancellationException) {
+                throw (CancellationException) cause;
+            }
+            if (cause != null) {
+                throw new ExecutionException(cause);
+            }
+            return this.players.clone();
+        }
+    }
+}
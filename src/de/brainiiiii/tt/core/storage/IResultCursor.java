@@ -0,0 +1,68 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Interface for a cursor streaming game results of a storage.
+ * 
+ * The game results are returned as primitives, so streaming them creates 
+ * no objects. The cursor is positioned before the first game result, every 
+ * call of {@link #next()} moves it to the next game result.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public interface IResultCursor extends Closeable {
+    
+    /**
+     * Moves the cursor to the next game result.
+     * 
+     * @return <i>True</i>, if there is a next game result.
+     * @throws IOException If the storage could not be read.
+     */
+    public boolean next() throws IOException;
+    
+    /**
+     * Returns the current game result.
+     * 
+     * @return The encoded game result.
+     */
+    public long getResult();
+    
+    /**
+     * Returns the first opponent of the current game result.
+     * 
+     * @return The internal player id.
+     */
+    public int getPlayerA();
+    
+    /**
+     * Returns the second opponent of the current game result.
+     * 
+     * @return The internal player id.
+     */
+    public int getPlayerB();
+}
@@ -23,15 +23,79 @@
  */
 package de.brainiiiii.tt.core.storage;
 
+import de.brainiiiii.tt.core.GameResultArray;
+import de.brainiiiii.tt.core.Player;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+
 /**
  * Interface for the storage adapter.
  * 
  * The storage adapter is used to store all information. Whether the information
  * is stored local or remote depends on the implementation of the adapter.
  * 
+ * The adapter works on many records at once, so a remote storage can serve 
+ * a bulk import or a recalculation of all ratings with a few large round 
+ * trips. Game results are stored as {@link de.brainiiiii.tt.core.PackedGameResult}
+ * together with the internal player ids of both opponents.
+ * 
  * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
  */
-public interface IStorageAdapter {
+public interface IStorageAdapter extends Closeable {
    
+    /**
+     * Returns a number of players identified by their internal player ids.
+     * 
+     * @param playerIds The internal player ids.
+     * @return The players in the order of the ids, <code>null</code> for 
+     * unknown ids.
+     * @throws IOException If the storage could not be read.
+     */
+    public Player[] getPlayers(int[] playerIds) throws IOException;
+    
+    /**
+     * Saves a number of players.
+     * 
+     * @param players The players to save.
+     * @throws IOException If the storage could not be written.
+     */
+    public void savePlayers(Collection<? extends Player> players) throws IOException;
+    
+    /**
+     * Saves a number of game results.
+     * 
+     * The opponent ids of the array are the internal player ids.
+     * 
+     * @param results The game results to save.
+     * @throws IOException If the storage could not be written.
+     */
+    public void saveResults(GameResultArray results) throws IOException;
+    
+    /**
+     * Opens a cursor over all players.
+     * 
+     * @return The cursor, which has to be closed.
+     * @throws IOException If the storage could not be read.
+     */
+    public IStorageCursor<Player> openPlayers() throws IOException;
+    
+    /**
+     * Opens a cursor over all game results in the order they have been 
+     * saved.
+     * 
+     * @return The cursor, which has to be closed.
+     * @throws IOException If the storage could not be read.
+     */
+    public IResultCursor openResults() throws IOException;
     
+    /**
+     * Begins a batch of changes, which are applied on committing.
+     * 
+     * See the implementation for the guarantees of a committed batch.
+     * 
+     * @return The batch, which has to be closed.
+     * @throws IOException If the storage could not be written.
+     */
+    public IStorageBatch beginBatch() throws IOException;
 }
@@ -0,0 +1,66 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import de.brainiiiii.tt.core.Player;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Interface for a batch of changes of a storage.
+ * 
+ * The changes of a batch are collected and not applied, until the batch is 
+ * committed. Closing a batch without committing discards its changes. 
+ * Whether the changes become visible at once on committing and which of 
+ * them survive a crash during committing depends on the storage.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public interface IStorageBatch extends Closeable {
+    
+    /**
+     * Adds a player to save.
+     * 
+     * @param p The player.
+     */
+    public void savePlayer(Player p);
+    
+    /**
+     * Adds a game result to save.
+     * 
+     * @param result The encoded game result.
+     * @param playerA The internal player id of the first opponent.
+     * @param playerB The internal player id of the second opponent.
+     */
+    public void saveResult(long result, int playerA, int playerB);
+    
+    /**
+     * Applies all changes of the batch.
+     * 
+     * If committing fails, a part of the changes may have been applied.
+     * 
+     * @throws IOException If the storage could not be written.
+     */
+    public void commit() throws IOException;
+}
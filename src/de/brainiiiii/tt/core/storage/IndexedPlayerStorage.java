@@ -0,0 +1,110 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import de.brainiiiii.tt.core.IIndexedPlayerStorage;
+import de.brainiiiii.tt.core.IPlayerStorage;
+import de.brainiiiii.tt.core.Player;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A player storage keeping secondary indexes of another storage.
+ * 
+ * Every saved player is written to the storage and then indexed. Players 
+ * already within the storage have to be indexed once by {@link #index}.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class IndexedPlayerStorage implements IIndexedPlayerStorage {
+    
+    private final IPlayerStorage storage;
+    
+    private final PlayerIndex index = new PlayerIndex();
+    
+    /**
+     * Creates a new indexed storage with empty indexes.
+     * 
+     * @param storage The storage to index.
+     */
+    public IndexedPlayerStorage(final IPlayerStorage storage) {
+        // check parameters with assertions
+        assert(storage != null);
+        
+        this.storage = storage;
+    }
+    
+    /**
+     * Replaces the indexes by the given players, e.g. all players of the 
+     * storage after starting.
+     * 
+     * @param players The players.
+     */
+    public void index(final Collection<? extends Player> players) {
+        this.index.rebuild(players);
+    }
+    
+    /**
+     * Returns the indexes.
+     * 
+     * @return The indexes.
+     */
+    public PlayerIndex getIndex() {
+        return this.index;
+    }
+
+    @Override
+    public void savePlayer(final Player p) {
+        this.storage.savePlayer(p);
+        this.index.update(p);
+    }
+
+    @Override
+    public Player getPlayer(final int playerId) {
+        return this.storage.getPlayer(playerId);
+    }
+
+    @Override
+    public Player getPlayerByTTLiveId(final int ttliveId) {
+        final int playerId = this.index.getPlayerId(ttliveId);
+        if (playerId == PlayerIndex.NO_PLAYER) {
+            return null;
+        }
+        return this.storage.getPlayer(playerId);
+    }
+
+    @Override
+    public List<Player> findPlayers(final String prefix, final int limit) {
+        final int[] playerIds = this.index.findPlayerIds(prefix, limit);
+        final List<Player> players = new ArrayList<>(playerIds.length);
+        for (final int playerId : playerIds) {
+            final Player p = this.storage.getPlayer(playerId);
+            if (p != null) {
+                players.add(p);
+            }
+        }
+        return players;
+    }
+}
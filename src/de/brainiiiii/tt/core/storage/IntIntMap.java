@@ -0,0 +1,279 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import java.util.Arrays;
+
+/**
+ * A map from primitive int keys to primitive int values.
+ * 
+ * The map uses open addressing with linear probing over two int arrays, the
+ * slots of the key zero are marked free. The entry of the key zero is kept 
+ * apart from the arrays. Removed entries are closed by shifting the 
+ * following entries back, so the map needs no tombstones.
+ * 
+ * The map is not thread safe.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class IntIntMap {
+    
+    private final static int FREE = 0;
+    
+    private final static int MINIMUM_CAPACITY = 8;
+    
+    /**
+     * The maximum load factor, as fraction of 256.
+     */
+    private final static int MAX_LOAD = 192;
+    
+    private int[] keys;
+    
+    private int[] values;
+    
+    /**
+     * The number of entries within the arrays.
+     */
+    private int assigned = 0;
+    
+    private boolean hasFreeKey = false;
+    
+    private int freeValue;
+    
+    /**
+     * Creates a new empty map.
+     */
+    public IntIntMap() {
+        this(0);
+    }
+    
+    /**
+     * Creates a new empty map.
+     * 
+     * @param expectedSize The number of entries the map can take without 
+     * growing.
+     */
+    public IntIntMap(final int expectedSize) {
+        final int capacity = capacityFor(expectedSize);
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+    }
+    
+    private static int capacityFor(final int size) {
+        final long minimum = Math.max(MINIMUM_CAPACITY, (long) size * 256 / MAX_LOAD + 1);
+        if (minimum > 1 << 30) {
+            throw new IllegalArgumentException("Too many entries: " + size);
+        }
+        return Integer.highestOneBit((int) minimum - 1) << 1;
+    }
+    
+    /**
+     * Returns the number of entries.
+     * 
+     * @return The number of entries.
+     */
+    public int size() {
+        return this.assigned + (this.hasFreeKey ? 1 : 0);
+    }
+    
+    /**
+     * Returns the slot of a key other than zero.
+     * 
+     * @return The slot of the key or the free slot, where it would be placed.
+     */
+    private int slot(final int key) {
+        final int mask = this.keys.length - 1;
+        int slot = IntObjectMap.hash(key) & mask;
+        while (this.keys[slot] != FREE && this.keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+    
+    /**
+     * Returns the value of a key.
+     * 
+     * @param key The key.
+     * @param defaultValue The value returned for unknown keys.
+     * @return The value.
+     */
+    public int get(final int key, final int defaultValue) {
+        if (key == FREE) {
+            return this.hasFreeKey ? this.freeValue : defaultValue;
+        }
+        final int slot = this.slot(key);
+        return this.keys[slot] == FREE ? defaultValue : this.values[slot];
+    }
+    
+    /**
+     * Returns, whether the map contains a key.
+     * 
+     * @param key The key.
+     * @return <i>True</i>, if the map contains the key.
+     */
+    public boolean containsKey(final int key) {
+        if (key == FREE) {
+            return this.hasFreeKey;
+        }
+        return this.keys[this.slot(key)] != FREE;
+    }
+    
+    /**
+     * Sets the value of a key.
+     * 
+     * @param key The key.
+     * @param value The value.
+     */
+    public void put(final int key, final int value) {
+        if (key == FREE) {
+            this.hasFreeKey = true;
+            this.freeValue = value;
+            return;
+        }
+        
+        int slot = this.slot(key);
+        if (this.keys[slot] == FREE) {
+            if ((long) (this.assigned + 1) * 256 > (long) this.keys.length * MAX_LOAD) {
+                this.resize(this.keys.length << 1);
+                slot = this.slot(key);
+            }
+            this.keys[slot] = key;
+            this.assigned++;
+        }
+        this.values[slot] = value;
+    }
+    
+    /**
+     * Adds a delta to the value of a key, unknown keys start at zero.
+     * 
+     * @param key The key.
+     * @param delta The delta.
+     * @return The new value.
+     */
+    public int add(final int key, final int delta) {
+        final int value = this.get(key, 0) + delta;
+        this.put(key, value);
+        return value;
+    }
+    
+    /**
+     * Removes a key.
+     * 
+     * @param key The key.
+     * @return <i>True</i>, if the key was known.
+     */
+    public boolean remove(final int key) {
+        if (key == FREE) {
+            final boolean known = this.hasFreeKey;
+            this.hasFreeKey = false;
+            return known;
+        }
+        
+        final int mask = this.keys.length - 1;
+        int slot = this.slot(key);
+        if (this.keys[slot] == FREE) {
+            return false;
+        }
+        
+        // shift the following entries of the cluster back into the gap
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (this.keys[next] == FREE) {
+                break;
+            }
+            final int home = IntObjectMap.hash(this.keys[next]) & mask;
+            // move the entry, if its home is not between the gap and itself
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                this.keys[slot] = this.keys[next];
+                this.values[slot] = this.values[next];
+                slot = next;
+            }
+        }
+        this.keys[slot] = FREE;
+        this.values[slot] = 0;
+        this.assigned--;
+        return true;
+    }
+    
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        Arrays.fill(this.keys, FREE);
+        Arrays.fill(this.values, 0);
+        this.assigned = 0;
+        this.hasFreeKey = false;
+    }
+    
+    /**
+     * Grows the map, so it can take a number of entries without growing.
+     * 
+     * @param expectedSize The number of entries.
+     */
+    public void ensureCapacity(final int expectedSize) {
+        final int capacity = capacityFor(expectedSize);
+        if (capacity > this.keys.length) {
+            this.resize(capacity);
+        }
+    }
+    
+    /**
+     * Returns the keys of all entries.
+     * 
+     * @return The keys in no particular order.
+     */
+    public int[] keys() {
+        final int[] result = new int[this.size()];
+        int i = 0;
+        if (this.hasFreeKey) {
+            result[i++] = FREE;
+        }
+        for (int slot = 0; slot < this.keys.length; ++slot) {
+            if (this.keys[slot] != FREE) {
+                result[i++] = this.keys[slot];
+            }
+        }
+        return result;
+    }
+    
+    private void resize(final int capacity) {
+        final int[] oldKeys = this.keys;
+        final int[] oldValues = this.values;
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] != FREE) {
+                int slot = IntObjectMap.hash(oldKeys[i]) & mask;
+                while (this.keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import java.util.Arrays;
+
+/**
+ * A map from primitive int keys to objects.
+ * 
+ * The map uses open addressing with linear probing, so it keeps the keys in 
+ * a plain int array and the values in an object array without any entry 
+ * objects or boxed keys. Removed entries are closed by shifting the 
+ * following entries back, so the map needs no tombstones.
+ * 
+ * The map does not allow <code>null</code> values and is not thread safe.
+ * 
+ * @param <V> The type of the values.
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class IntObjectMap<V> {
+    
+    private final static int MINIMUM_CAPACITY = 8;
+    
+    /**
+     * The maximum load factor, as fraction of 256.
+     */
+    private final static int MAX_LOAD = 192;
+    
+    private int[] keys;
+    
+    private Object[] values;
+    
+    private int size = 0;
+    
+    /**
+     * Creates a new empty map.
+     */
+    public IntObjectMap() {
+        this(0);
+    }
+    
+    /**
+     * Creates a new empty map.
+     * 
+     * @param expectedSize The number of entries the map can take without 
+     * growing.
+     */
+    public IntObjectMap(final int expectedSize) {
+        final int capacity = capacityFor(expectedSize);
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+    }
+    
+    /**
+     * Spreads the bits of a key.
+     * 
+     * @param key The key.
+     * @return The hash of the key.
+     */
+    static int hash(final int key) {
+        final int h = key * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+    
+    private static int capacityFor(final int size) {
+        final long minimum = Math.max(MINIMUM_CAPACITY, (long) size * 256 / MAX_LOAD + 1);
+        if (minimum > 1 << 30) {
+            throw new IllegalArgumentException("Too many entries: " + size);
+        }
+        return Integer.highestOneBit((int) minimum - 1) << 1;
+    }
+    
+    /**
+     * Returns the number of entries.
+     * 
+     * @return The number of entries.
+     */
+    public int size() {
+        return this.size;
+    }
+    
+    /**
+     * Returns the slot of a key.
+     * 
+     * @return The slot of the key or the free slot, where it would be placed.
+     */
+    private int slot(final int key) {
+        final int mask = this.keys.length - 1;
+        int slot = hash(key) & mask;
+        while (this.values[slot] != null && this.keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+    
+    /**
+     * Returns the value of a key.
+     * 
+     * @param key The key.
+     * @return The value or <code>null</code>, if the key is unknown.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final int key) {
+        return (V) this.values[this.slot(key)];
+    }
+    
+    /**
+     * Returns, whether the map contains a key.
+     * 
+     * @param key The key.
+     * @return <i>True</i>, if the map contains the key.
+     */
+    public boolean containsKey(final int key) {
+        return this.values[this.slot(key)] != null;
+    }
+    
+    /**
+     * Sets the value of a key.
+     * 
+     * @param key The key.
+     * @param value The value.
+     * @return The previous value or <code>null</code>.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(final int key, final V value) {
+        // check parameters with assertions
+        assert(value != null);
+        
+        int slot = this.slot(key);
+        final V previous = (V) this.values[slot];
+        if (previous == null) {
+            if ((long) (this.size + 1) * 256 > (long) this.keys.length * MAX_LOAD) {
+                this.resize(this.keys.length << 1);
+                slot = this.slot(key);
+            }
+            this.keys[slot] = key;
+            this.size++;
+        }
+        this.values[slot] = value;
+        return previous;
+    }
+    
+    /**
+     * Removes a key.
+     * 
+     * @param key The key.
+     * @return The removed value or <code>null</code>, if the key was unknown.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(final int key) {
+        final int mask = this.keys.length - 1;
+        int slot = this.slot(key);
+        final V previous = (V) this.values[slot];
+        if (previous == null) {
+            return null;
+        }
+        
+        // shift the following entries of the cluster back into the gap
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            if (this.values[next] == null) {
+                break;
+            }
+            final int home = hash(this.keys[next]) & mask;
+            // move the entry, if its home is not between the gap and itself
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                this.keys[slot] = this.keys[next];
+                this.values[slot] = this.values[next];
+                slot = next;
+            }
+        }
+        this.keys[slot] = 0;
+        this.values[slot] = null;
+        this.size--;
+        return previous;
+    }
+    
+    /**
+     * Removes all entries.
+     */
+    public void clear() {
+        Arrays.fill(this.keys, 0);
+        Arrays.fill(this.values, null);
+        this.size = 0;
+    }
+    
+    /**
+     * Grows the map, so it can take a number of entries without growing.
+     * 
+     * @param expectedSize The number of entries.
+     */
+    public void ensureCapacity(final int expectedSize) {
+        final int capacity = capacityFor(expectedSize);
+        if (capacity > this.keys.length) {
+            this.resize(capacity);
+        }
+    }
+    
+    /**
+     * Returns the keys of all entries.
+     * 
+     * @return The keys in no particular order.
+     */
+    public int[] keys() {
+        final int[] result = new int[this.size];
+        int i = 0;
+        for (int slot = 0; slot < this.keys.length; ++slot) {
+            if (this.values[slot] != null) {
+                result[i++] = this.keys[slot];
+            }
+        }
+        return result;
+    }
+    
+    private void resize(final int capacity) {
+        final int[] oldKeys = this.keys;
+        final Object[] oldValues = this.values;
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+        
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldValues[i] != null) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (this.values[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = oldKeys[i];
+                this.values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,763 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import de.brainiiiii.tt.core.IEvent;
+import de.brainiiiii.tt.core.LivePZAdjustment;
+import de.brainiiiii.tt.core.LivePZAdjustmentBatch;
+import de.brainiiiii.tt.core.LivePZBatchListener;
+import de.brainiiiii.tt.core.LivePZCalculatorListener;
+import de.brainiiiii.tt.core.codec.ModelCodec;
+import de.brainiiiii.tt.core.codec.ModelDecoder;
+import de.brainiiiii.tt.core.codec.ModelEncoder;
+import de.brainiiiii.tt.core.events.SharedTimer;
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * A durable journal of livepz adjustments, which keeps the current livepz of
+ * all players.
+ * 
+ * The journal listens to a calculator, either for single adjustments or for
+ * batches. Every adjustment is applied to the rating table and appended to 
+ * a block in memory, using the binary format of {@link ModelCodec}. A block 
+ * is written and forced to the disk as a whole, when it is full, when the 
+ * journal is flushed or, if a maximum commit delay is set, when its first 
+ * adjustment has waited for that delay, so many adjustments share a single 
+ * sync. A block is written with its length and checksum, so a block torn by
+ * a crash is detected and dropped. Adjustments not written may be lost by a
+ * crash; the maximum commit delay bounds the time they are at risk.
+ * 
+ * The blocks are appended to segment files of a limited size. After a given
+ * number of adjustments the journal starts a new segment and writes a 
+ * snapshot of the rating table, which holds the state before the segment. 
+ * The snapshot is written to a temporary file and renamed, after that all 
+ * older segments and snapshots are deleted. Opening the journal loads the 
+ * latest snapshot and replays the segments written since, so the time of 
+ * recovery depends on the adjustments since the last snapshot only.
+ * 
+ * The journal is thread safe. Appending continues while a block is written.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class LivePZJournal implements LivePZCalculatorListener, LivePZBatchListener, Closeable, Flushable {
+    
+    /**
+     * The default size of a block in bytes.
+     */
+    public final static int DEFAULT_BLOCK_SIZE = 64 << 10;
+    
+    /**
+     * The default size of a segment in bytes.
+     */
+    public final static long DEFAULT_SEGMENT_SIZE = 64L << 20;
+    
+    /**
+     * The default number of adjustments between two snapshots.
+     */
+    public final static long DEFAULT_SNAPSHOT_INTERVAL = 1L << 20;
+    
+    private final static int SEGMENT_MAGIC = 0x4c505a4a;
+    
+    private final static int SNAPSHOT_MAGIC = 0x4c505a53;
+    
+    private final static int VERSION = 1;
+    
+    private final static int SEGMENT_HEADER_SIZE = 8;
+    
+    private final static int BLOCK_HEADER_SIZE = 8;
+    
+    /**
+     * The maximum size of an encoded adjustment: type, length, two varints 
+     * of up to five bytes and the type of the adjustment.
+     */
+    private final static int MAX_RECORD_SIZE = 16;
+    
+    private final static String SEGMENT_PREFIX = "journal-";
+    
+    private final static String SEGMENT_SUFFIX = ".log";
+    
+    private final static String SNAPSHOT_PREFIX = "snapshot-";
+    
+    private final static String SNAPSHOT_SUFFIX = ".dat";
+    
+    private final File directory;
+    
+    private final int blockSize;
+    
+    private final long segmentSize;
+    
+    private final long snapshotInterval;
+    
+    /**
+     * The current livepz of all players, identified by their player ids.
+     */
+    private final IntIntMap ratings = new IntIntMap();
+    
+    private final ModelEncoder encoder = new ModelEncoder(0);
+    
+    /**
+     * The block taking new adjustments.
+     */
+    private ByteBuffer pending;
+    
+    /**
+     * The second block, which is <i>null</i> while it is written.
+     */
+    private ByteBuffer spare;
+    
+    /**
+     * The adjustment used to copy the adjustments of batches.
+     */
+    private final LivePZAdjustment adjustment = new LivePZAdjustment();
+    
+    /**
+     * The number of adjustments since the last snapshot.
+     */
+    private long sinceSnapshot = 0;
+    
+    /**
+     * The number of adjustments replayed when opening the journal.
+     */
+    private final long recoveredCount;
+    
+    /**
+     * The maximum delay of an adjustment before its block is written in 
+     * nanoseconds or zero, if blocks are not written by time.
+     */
+    private long maxCommitDelay = 0;
+    
+    /**
+     * The number of the pending block, counting the written blocks.
+     */
+    private long blockNumber = 0;
+    
+    /**
+     * The error, which stopped the journal, or <i>null</i>.
+     */
+    private IOException failure;
+    
+    private boolean closed = false;
+    
+    /**
+     * A simple object used for locking the writing of blocks and snapshots.
+     * It is always acquired before the lock of the journal itself.
+     */
+    private final Object commitLock = new Object();
+    
+    private final CRC32 crc = new CRC32();
+    
+    private final ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+    
+    private long segmentNumber;
+    
+    private RandomAccessFile segmentFile;
+    
+    private FileChannel segment;
+    
+    /**
+     * The end of the valid blocks of the current segment.
+     */
+    private long segmentEnd;
+    
+    /**
+     * Opens the journal within a directory using the default sizes.
+     * 
+     * @param directory The directory.
+     * @throws IOException If the journal could not be opened or recovered.
+     */
+    public LivePZJournal(final File directory) throws IOException {
+        this(directory, DEFAULT_BLOCK_SIZE, DEFAULT_SEGMENT_SIZE, DEFAULT_SNAPSHOT_INTERVAL);
+    }
+    
+    /**
+     * Opens the journal within a directory, recovering the rating table from
+     * the latest snapshot and the segments written since.
+     * 
+     * @param directory The directory.
+     * @param blockSize The size of a block in bytes.
+     * @param segmentSize The size in bytes, after which a new segment is 
+     * started.
+     * @param snapshotInterval The number of adjustments between two 
+     * snapshots.
+     * @throws IOException If the journal could not be opened or recovered.
+     */
+    public LivePZJournal(final File directory, final int blockSize, final long segmentSize, final long snapshotInterval) throws IOException {
+        // check parameters with assertions
+        assert(directory != null);
+        assert(blockSize >= MAX_RECORD_SIZE);
+        assert(segmentSize > 0);
+        assert(snapshotInterval > 0);
+        
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create directory " + directory);
+        }
+        
+        this.directory = directory;
+        this.blockSize = blockSize;
+        this.segmentSize = segmentSize;
+        this.snapshotInterval = snapshotInterval;
+        this.pending = ByteBuffer.allocate(blockSize);
+        this.spare = ByteBuffer.allocate(blockSize);
+        
+        try {
+            this.recoveredCount = this.recover();
+        } catch (IOException ex) {
+            this.closeSegment();
+            throw ex;
+        }
+        this.sinceSnapshot = this.recoveredCount;
+    }
+    
+    /**
+     * Loads the latest snapshot and replays the segments written since.
+     * 
+     * @return The number of replayed adjustments.
+     */
+    private long recover() throws IOException {
+        long snapshot = -1;
+        final long[] segments = this.list(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+        for (long number : this.list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            snapshot = number;
+        }
+        if (snapshot >= 0) {
+            this.loadSnapshot(this.file(SNAPSHOT_PREFIX, snapshot, SNAPSHOT_SUFFIX), snapshot);
+        }
+        
+        long count = 0;
+        final ModelDecoder decoder = new ModelDecoder(0, null);
+        final LivePZAdjustment replayed = new LivePZAdjustment();
+        ByteBuffer buffer = ByteBuffer.allocate(this.blockSize);
+        for (int i = 0; i < segments.length; ++i) {
+            if (segments[i] < snapshot) {
+                continue;
+            }
+            final boolean last = i == segments.length - 1;
+            this.openSegment(segments[i], false);
+            final long size = this.segment.size();
+            long position = SEGMENT_HEADER_SIZE;
+            while (position + BLOCK_HEADER_SIZE <= size) {
+                this.blockHeader.clear();
+                readFully(this.segment, this.blockHeader, position);
+                final int length = this.blockHeader.getInt(0);
+                final int checksum = this.blockHeader.getInt(4);
+                if (length <= 0 || position + BLOCK_HEADER_SIZE + length > size) {
+                    break;
+                }
+                if (buffer.capacity() < length) {
+                    buffer = ByteBuffer.allocate(length);
+                }
+                buffer.clear().limit(length);
+                readFully(this.segment, buffer, position + BLOCK_HEADER_SIZE);
+                this.crc.reset();
+                this.crc.update(buffer.array(), 0, length);
+                if ((int) this.crc.getValue() != checksum) {
+                    break;
+                }
+                
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    if (decoder.nextRecord(buffer) == ModelCodec.LIVEPZ_ADJUSTMENT) {
+                        this.apply(decoder.decodeAdjustment(buffer, replayed));
+                        count++;
+                    } else {
+                        decoder.skipRecord(buffer);
+                    }
+                }
+                position += BLOCK_HEADER_SIZE + length;
+            }
+            
+            if (position != size) {
+                if (!last) {
+                    throw new IOException("Corrupt journal segment " + this.file(SEGMENT_PREFIX, segments[i], SEGMENT_SUFFIX));
+                }
+                // drop the block torn by a crash
+                this.segment.truncate(position);
+                this.segment.force(true);
+            }
+            this.segmentEnd = position;
+            if (!last) {
+                this.closeSegment();
+            }
+        }
+        
+        if (this.segment == null) {
+            this.openSegment(Math.max(snapshot, 0), true);
+        }
+        return count;
+    }
+    
+    private void loadSnapshot(final File file, final long number) throws IOException {
+        try (RandomAccessFile snapshotFile = new RandomAccessFile(file, "r")) {
+            final FileChannel channel = snapshotFile.getChannel();
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE || size < 24) {
+                throw new IOException("Invalid snapshot " + file);
+            }
+            final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            readFully(channel, buffer, 0);
+            this.crc.reset();
+            this.crc.update(buffer.array(), 0, buffer.capacity() - 4);
+            buffer.flip();
+            if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != VERSION || buffer.getLong() != number) {
+                throw new IOException("Invalid snapshot " + file);
+            }
+            final int count = buffer.getInt();
+            if (count < 0 || (long) count * 8 + 24 != size || buffer.getInt(buffer.capacity() - 4) != (int) this.crc.getValue()) {
+                throw new IOException("Corrupt snapshot " + file);
+            }
+            this.ratings.ensureCapacity(count);
+            for (int i = 0; i < count; ++i) {
+                this.ratings.put(buffer.getInt(), buffer.getInt());
+            }
+        }
+    }
+    
+    /**
+     * Writes a snapshot of the rating table, which holds the state before
+     * the current segment, and deletes all older files.
+     */
+    private void writeSnapshot(final int[] playerIds, final int[] livepz) throws IOException {
+        final File file = this.file(SNAPSHOT_PREFIX, this.segmentNumber, SNAPSHOT_SUFFIX);
+        final File temporary = new File(this.directory, file.getName() + ".tmp");
+        final ByteBuffer buffer = ByteBuffer.allocate(playerIds.length * 8 + 24);
+        buffer.putInt(SNAPSHOT_MAGIC).putInt(VERSION).putLong(this.segmentNumber).putInt(playerIds.length);
+        for (int i = 0; i < playerIds.length; ++i) {
+            buffer.putInt(playerIds[i]).putInt(livepz[i]);
+        }
+        this.crc.reset();
+        this.crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) this.crc.getValue());
+        buffer.flip();
+        
+        try (RandomAccessFile snapshotFile = new RandomAccessFile(temporary, "rw")) {
+            final FileChannel channel = snapshotFile.getChannel();
+            channel.truncate(0);
+            writeFully(channel, buffer, 0);
+            channel.force(true);
+        }
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        
+        for (long number : this.list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (number < this.segmentNumber) {
+                Files.deleteIfExists(this.file(SNAPSHOT_PREFIX, number, SNAPSHOT_SUFFIX).toPath());
+            }
+        }
+        for (long number : this.list(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (number < this.segmentNumber) {
+                Files.deleteIfExists(this.file(SEGMENT_PREFIX, number, SEGMENT_SUFFIX).toPath());
+            }
+        }
+    }
+    
+    private File file(final String prefix, final long number, final String suffix) {
+        return new File(this.directory, prefix + String.format("%016x", number) + suffix);
+    }
+    
+    /**
+     * Returns the sorted numbers of all files of a kind.
+     */
+    private long[] list(final String prefix, final String suffix) throws IOException {
+        final String[] names = this.directory.list();
+        if (names == null) {
+            throw new IOException("Could not list directory " + this.directory);
+        }
+        long[] numbers = new long[names.length];
+        int count = 0;
+        for (String name : names) {
+            if (name.length() == prefix.length() + 16 + suffix.length() && name.startsWith(prefix) && name.endsWith(suffix)) {
+                try {
+                    numbers[count++] = Long.parseLong(name.substring(prefix.length(), prefix.length() + 16), 16);
+                } catch (NumberFormatException ex) {
+                    count--;
+                }
+            }
+        }
+        numbers = Arrays.copyOf(numbers, count);
+        Arrays.sort(numbers);
+        return numbers;
+    }
+    
+    private void openSegment(final long number, final boolean create) throws IOException {
+        this.segmentFile = new RandomAccessFile(this.file(SEGMENT_PREFIX, number, SEGMENT_SUFFIX), "rw");
+        this.segment = this.segmentFile.getChannel();
+        this.segmentNumber = number;
+        
+        final ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+        if (create || this.segment.size() < SEGMENT_HEADER_SIZE) {
+            header.putInt(SEGMENT_MAGIC).putInt(VERSION).flip();
+            this.segment.truncate(0);
+            writeFully(this.segment, header, 0);
+            this.segment.force(true);
+        } else {
+            readFully(this.segment, header, 0);
+            if (header.getInt(0) != SEGMENT_MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException("Invalid journal segment " + this.file(SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+            }
+        }
+        this.segmentEnd = SEGMENT_HEADER_SIZE;
+    }
+    
+    private void closeSegment() throws IOException {
+        if (this.segmentFile != null) {
+            final RandomAccessFile file = this.segmentFile;
+            this.segmentFile = null;
+            this.segment = null;
+            file.close();
+        }
+    }
+    
+    private static void writeFully(final FileChannel channel, final ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+    
+    private static void readFully(final FileChannel channel, final ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            position += read;
+        }
+    }
+    
+    /**
+     * Applies an adjustment to the rating table.
+     */
+    private void apply(final LivePZAdjustment a) {
+        if (a.type == LivePZAdjustment.AdjustmentType.SET) {
+            this.ratings.put(a.player.playerId, a.livepz);
+        } else {
+            this.ratings.add(a.player.playerId, a.livepz);
+        }
+    }
+    
+    /**
+     * Appends an adjustment to the pending block, which must have room for
+     * it.
+     */
+    private void append(final LivePZAdjustment a) {
+        final boolean first = this.pending.position() == 0;
+        this.encoder.encodeAdjustment(this.pending, a);
+        this.apply(a);
+        this.sinceSnapshot++;
+        if (first && this.maxCommitDelay > 0) {
+            this.schedule();
+        }
+    }
+    
+    /**
+     * Sets the maximum delay of an adjustment before its block is written 
+     * and forced to the disk.
+     * 
+     * @param maxCommitDelay The maximum delay or zero, if blocks should only
+     * be written when full or flushed.
+     * @param unit The unit of the delay.
+     */
+    public synchronized void setMaxCommitDelay(final long maxCommitDelay, final TimeUnit unit) {
+        // check parameters with assertions
+        assert(maxCommitDelay >= 0);
+        
+        this.maxCommitDelay = unit.toNanos(maxCommitDelay);
+        if (this.maxCommitDelay > 0 && this.pending.position() > 0) {
+            this.schedule();
+        }
+    }
+    
+    /**
+     * Schedules the commit of the pending block after the maximum delay.
+     */
+    private void schedule() {
+        final long number = this.blockNumber;
+        SharedTimer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                LivePZJournal.this.commitByTime(number);
+            }
+        }, this.maxCommitDelay, TimeUnit.NANOSECONDS);
+    }
+    
+    private void commitByTime(final long number) {
+        if (!this.isUncommitted(number)) {
+            return;
+        }
+        // forcing the block to the disk would hold up the shared timer
+        SharedTimer.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!LivePZJournal.this.isUncommitted(number)) {
+                    // the block has been written meanwhile
+                    return;
+                }
+                try {
+                    LivePZJournal.this.commit(false);
+                } catch (IOException ex) {
+                    // kept as failure of the journal and thrown by the next call
+                }
+            }
+        });
+    }
+    
+    /**
+     * Returns, whether a block is still pending in an open journal.
+     */
+    private synchronized boolean isUncommitted(final long number) {
+        return this.blockNumber == number && !this.closed && this.failure == null;
+    }
+    
+    private void checkOpen() {
+        if (this.failure != null) {
+            throw new IllegalStateException("Journal failed", this.failure);
+        }
+        if (this.closed) {
+            throw new IllegalStateException("Journal closed");
+        }
+    }
+
+    @Override
+    public void onStartEvent(final IEvent e) {
+    }
+
+    @Override
+    public void onAdjustLivePZ(final LivePZAdjustment a) {
+        // check parameters with assertions
+        assert(a != null && a.player != null && a.type != null);
+        
+        boolean full;
+        for (;;) {
+            synchronized (this) {
+                this.checkOpen();
+                if (this.pending.remaining() >= MAX_RECORD_SIZE) {
+                    this.append(a);
+                    full = this.pending.remaining() < MAX_RECORD_SIZE;
+                    break;
+                }
+            }
+            this.commitUnchecked(false);
+        }
+        if (full) {
+            this.commitUnchecked(false);
+        }
+    }
+
+    @Override
+    public void onAdjustLivePZBatch(final LivePZAdjustmentBatch batch) {
+        int index = 0;
+        boolean full = false;
+        while (index < batch.size() || full) {
+            if (full) {
+                this.commitUnchecked(false);
+            }
+            synchronized (this) {
+                this.checkOpen();
+                while (index < batch.size() && this.pending.remaining() >= MAX_RECORD_SIZE) {
+                    batch.copyAdjustment(index++, this.adjustment);
+                    this.append(this.adjustment);
+                }
+                this.adjustment.player = null;
+                full = this.pending.remaining() < MAX_RECORD_SIZE;
+            }
+        }
+    }
+    
+    private void commitUnchecked(final boolean snapshot) {
+        try {
+            this.commit(snapshot);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Could not write journal", ex);
+        }
+    }
+    
+    /**
+     * Writes the pending block and, if due, a new snapshot.
+     * 
+     * @param snapshot Whether to write a snapshot in any case.
+     */
+    private void commit(final boolean snapshot) throws IOException {
+        synchronized (this.commitLock) {
+            final ByteBuffer block;
+            int[] playerIds = null;
+            int[] livepz = null;
+            synchronized (this) {
+                if (this.failure != null) {
+                    throw this.failure;
+                }
+                if (this.segment == null) {
+                    return;
+                }
+                block = this.pending;
+                this.pending = this.spare;
+                this.spare = null;
+                this.blockNumber++;
+                if (snapshot || this.sinceSnapshot >= this.snapshotInterval) {
+                    playerIds = this.ratings.keys();
+                    livepz = new int[playerIds.length];
+                    for (int i = 0; i < playerIds.length; ++i) {
+                        livepz[i] = this.ratings.get(playerIds[i], 0);
+                    }
+                    this.sinceSnapshot = 0;
+                }
+            }
+            
+            try {
+                if (block.position() > 0) {
+                    block.flip();
+                    this.crc.reset();
+                    this.crc.update(block.array(), 0, block.limit());
+                    this.blockHeader.clear();
+                    this.blockHeader.putInt(block.limit()).putInt((int) this.crc.getValue()).flip();
+                    writeFully(this.segment, this.blockHeader, this.segmentEnd);
+                    writeFully(this.segment, block, this.segmentEnd + BLOCK_HEADER_SIZE);
+                    this.segment.force(false);
+                    this.segmentEnd += BLOCK_HEADER_SIZE + block.limit();
+                }
+                if (playerIds != null || this.segmentEnd >= this.segmentSize) {
+                    this.segment.force(true);
+                    this.closeSegment();
+                    this.openSegment(this.segmentNumber + 1, true);
+                }
+                if (playerIds != null) {
+                    this.writeSnapshot(playerIds, livepz);
+                }
+            } catch (IOException ex) {
+                synchronized (this) {
+                    this.failure = ex;
+                }
+                throw ex;
+            } finally {
+                block.clear();
+                synchronized (this) {
+                    this.spare = block;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Writes all pending adjustments and forces them to the disk.
+     * 
+     * @throws IOException If the journal could not be written.
+     */
+    @Override
+    public void flush() throws IOException {
+        this.commit(false);
+    }
+    
+    /**
+     * Writes all pending adjustments, starts a new segment and writes a 
+     * snapshot of the rating table.
+     * 
+     * @throws IOException If the journal could not be written.
+     */
+    public void snapshot() throws IOException {
+        this.commit(true);
+    }
+    
+    /**
+     * Returns the current livepz of a player.
+     * 
+     * @param playerId The id of the player.
+     * @param defaultValue The value returned for unknown players.
+     * @return The livepz.
+     */
+    public synchronized int getLivePZ(final int playerId, final int defaultValue) {
+        return this.ratings.get(playerId, defaultValue);
+    }
+    
+    /**
+     * Returns, whether a livepz is known for a player.
+     * 
+     * @param playerId The id of the player.
+     * @return Whether the livepz is known.
+     */
+    public synchronized boolean containsPlayer(final int playerId) {
+        return this.ratings.containsKey(playerId);
+    }
+    
+    /**
+     * Returns the ids of all players with a known livepz.
+     * 
+     * @return The player ids in no particular order.
+     */
+    public synchronized int[] getPlayerIds() {
+        return this.ratings.keys();
+    }
+    
+    /**
+     * Returns the number of players with a known livepz.
+     * 
+     * @return The number of players.
+     */
+    public synchronized int size() {
+        return this.ratings.size();
+    }
+    
+    /**
+     * Returns the number of adjustments replayed from the segments, when the
+     * journal was opened.
+     * 
+     * @return The number of replayed adjustments.
+     */
+    public long getRecoveredCount() {
+        return this.recoveredCount;
+    }
+    
+    /**
+     * Writes all pending adjustments and closes the journal.
+     * 
+     * @throws IOException If the journal could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this.commitLock) {
+            synchronized (this) {
+                if (this.closed) {
+                    return;
+                }
+            }
+            try {
+                if (this.failure == null) {
+                    this.commit(false);
+                }
+            } finally {
+                synchronized (this) {
+                    this.closed = true;
+                }
+                this.closeSegment();
+            }
+        }
+    }
+}
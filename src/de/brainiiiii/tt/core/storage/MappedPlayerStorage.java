@@ -0,0 +1,555 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import de.brainiiiii.tt.core.IPlayerStorage;
+import de.brainiiiii.tt.core.Player;
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * A player storage keeping all players in memory-mapped files.
+ * 
+ * Every player has a slot of fixed size in the slot file, addressed by its 
+ * internal player id, so a player is read directly from the page cache 
+ * without loading the whole file. The names are kept in a separate string 
+ * heap, which is only appended to; the end of the heap is kept in its 
+ * header.
+ * 
+ * Every slot holds two copies of the player, each with a sequence number and
+ * a checksum. An update overwrites the older copy, so a copy torn by a crash
+ * fails its checksum and the previous copy is read instead. The strings of
+ * an update are written to the heap before the slot referring to them. Every
+ * copy holds a checksum of its strings, too, so a copy referring to strings, 
+ * which did not reach the disk, is skipped the same way.
+ * Written data survives a crash of the process; {@link #flush()} forces it 
+ * to the disk to survive a crash of the system.
+ * 
+ * Names are never removed from the heap; unchanged names of an updated 
+ * player are reused.
+ * 
+ * The storage is thread safe. Readers share a lock, which is held 
+ * exclusively by writers only.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class MappedPlayerStorage implements IPlayerStorage, Closeable, Flushable {
+    
+    private final static int SLOT_MAGIC = 0x54545053;
+    
+    private final static int HEAP_MAGIC = 0x54545348;
+    
+    private final static int VERSION = 1;
+    
+    private final static int SLOT_HEADER_SIZE = 64;
+    
+    private final static int HEAP_HEADER_SIZE = 16;
+    
+    private final static int HEAP_TAIL = 8;
+    
+    /**
+     * The size of a slot, holding two copies of a player.
+     */
+    private final static int SLOT_SIZE = 64;
+    
+    private final static int COPY_SIZE = 32;
+    
+    // the layout of a copy
+    private final static int COPY_SEQUENCE = 0;
+    
+    private final static int COPY_TTLIVE_ID = 4;
+    
+    private final static int COPY_TITLE = 8;
+    
+    private final static int COPY_FIRSTNAME = 12;
+    
+    private final static int COPY_LASTNAME = 16;
+    
+    private final static int COPY_STRINGS_CHECKSUM = 20;
+    
+    private final static int COPY_CHECKSUM = 28;
+    
+    /**
+     * The reference of a <code>null</code> string.
+     */
+    private final static int NULL_STRING = 0;
+    
+    private final static int INITIAL_SLOTS = 1024;
+    
+    private final static int INITIAL_HEAP_SIZE = 64 * 1024;
+    
+    private final static int MAX_MAPPING = Integer.MAX_VALUE;
+    
+    /**
+     * The highest player id the slot file can take.
+     */
+    public final static int MAX_PLAYER_ID = (MAX_MAPPING - SLOT_HEADER_SIZE) / SLOT_SIZE - 1;
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private final RandomAccessFile slotFile;
+    
+    private final RandomAccessFile heapFile;
+    
+    private MappedByteBuffer slots;
+    
+    private MappedByteBuffer heap;
+    
+    private int heapTail;
+    
+    /**
+     * The scratch of a reading or writing thread.
+     */
+    private static class Scratch {
+        
+        final byte[] copy = new byte[COPY_SIZE];
+        
+        final CRC32 checksum = new CRC32();
+        
+        final byte[] length = new byte[4];
+    }
+    
+    private final static ThreadLocal<Scratch> scratches = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+    
+    /**
+     * Opens a storage, creating its files if needed.
+     * 
+     * @param slotFile The file of the slots.
+     * @param heapFile The file of the string heap.
+     * @throws IOException If a file could not be opened or has an invalid 
+     * format.
+     */
+    public MappedPlayerStorage(final File slotFile, final File heapFile) throws IOException {
+        this.slotFile = new RandomAccessFile(slotFile, "rw");
+        this.heapFile = new RandomAccessFile(heapFile, "rw");
+        try {
+            this.open();
+        } catch (IOException | RuntimeException ex) {
+            this.slotFile.close();
+            this.heapFile.close();
+            throw ex;
+        }
+    }
+    
+    private void open() throws IOException {
+        final long slotLength = this.slotFile.length();
+        if (slotLength == 0) {
+            this.slots = map(this.slotFile, SLOT_HEADER_SIZE + (long) INITIAL_SLOTS * SLOT_SIZE);
+            this.slots.putInt(0, SLOT_MAGIC);
+            this.slots.putInt(4, VERSION);
+            this.slots.putInt(8, SLOT_SIZE);
+        } else {
+            this.slots = map(this.slotFile, slotLength);
+            if (slotLength < SLOT_HEADER_SIZE || this.slots.getInt(0) != SLOT_MAGIC || this.slots.getInt(4) != VERSION || this.slots.getInt(8) != SLOT_SIZE) {
+                throw new IOException("Invalid slot file");
+            }
+        }
+        
+        final long heapLength = this.heapFile.length();
+        if (heapLength == 0) {
+            this.heap = map(this.heapFile, INITIAL_HEAP_SIZE);
+            this.heap.putInt(0, HEAP_MAGIC);
+            this.heap.putInt(4, VERSION);
+            this.heap.putInt(HEAP_TAIL, HEAP_HEADER_SIZE);
+        } else {
+            this.heap = map(this.heapFile, heapLength);
+            if (heapLength < HEAP_HEADER_SIZE || this.heap.getInt(0) != HEAP_MAGIC || this.heap.getInt(4) != VERSION) {
+                throw new IOException("Invalid string heap file");
+            }
+        }
+        this.heapTail = this.heap.getInt(HEAP_TAIL);
+        if (this.heapTail < HEAP_HEADER_SIZE || this.heapTail > this.heap.capacity()) {
+            throw new IOException("Invalid end of string heap");
+        }
+    }
+    
+    private static MappedByteBuffer map(final RandomAccessFile file, final long size) throws IOException {
+        if (size > MAX_MAPPING) {
+            throw new IOException("File too large to map: " + size);
+        }
+        return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+    
+    /**
+     * Returns the size of a mapping taking at least the given size.
+     */
+    private static long grow(final long current, final long required) throws IOException {
+        if (required > MAX_MAPPING) {
+            throw new IOException("File too large to map: " + required);
+        }
+        long size = current;
+        while (size < required) {
+            size = Math.min(MAX_MAPPING, size * 2);
+        }
+        return size;
+    }
+    
+    @Override
+    public Player getPlayer(final int playerId) {
+        final Scratch scratch = scratches.get();
+        this.lock.readLock().lock();
+        try {
+            final int copy = this.findCopy(playerId, scratch);
+            if (copy < 0) {
+                return null;
+            }
+            
+            final Player p = new Player();
+            p.playerId = playerId;
+            if (this.readCopy(copy, p, scratch)) {
+                return p;
+            }
+            
+            // the strings of the newest copy did not reach the disk
+            final int first = copy - (copy - SLOT_HEADER_SIZE) % SLOT_SIZE;
+            final int other = copy == first ? first + COPY_SIZE : first;
+            if (this.isValid(other, scratch) && this.readCopy(other, p, scratch)) {
+                return p;
+            }
+            return null;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the offset of the newest valid copy of a player.
+     * 
+     * @return The offset within the slot file or <i>-1</i>, if the player 
+     * has no valid copy.
+     */
+    private int findCopy(final int playerId, final Scratch scratch) {
+        if (playerId < 0 || playerId > MAX_PLAYER_ID) {
+            return -1;
+        }
+        final long slot = SLOT_HEADER_SIZE + (long) playerId * SLOT_SIZE;
+        if (slot + SLOT_SIZE > this.slots.capacity()) {
+            return -1;
+        }
+        
+        final int first = (int) slot;
+        final int second = first + COPY_SIZE;
+        final boolean firstValid = this.isValid(first, scratch);
+        final boolean secondValid = this.isValid(second, scratch);
+        if (firstValid && secondValid) {
+            // the sequence numbers may wrap around
+            final int difference = this.slots.getInt(second + COPY_SEQUENCE) - this.slots.getInt(first + COPY_SEQUENCE);
+            return difference > 0 ? second : first;
+        }
+        if (firstValid) {
+            return first;
+        }
+        if (secondValid) {
+            return second;
+        }
+        return -1;
+    }
+    
+    private boolean isValid(final int copy, final Scratch scratch) {
+        if (this.slots.getInt(copy + COPY_SEQUENCE) == 0) {
+            return false;
+        }
+        for (int i = 0; i < COPY_SIZE; ++i) {
+            scratch.copy[i] = this.slots.get(copy + i);
+        }
+        scratch.checksum.reset();
+        scratch.checksum.update(scratch.copy, 0, COPY_CHECKSUM);
+        return (int) scratch.checksum.getValue() == this.slots.getInt(copy + COPY_CHECKSUM);
+    }
+    
+    /**
+     * Reads a copy of a player, if its strings are valid.
+     * 
+     * @return <i>true</i> if the strings are within the heap and match the 
+     * checksum of the copy.
+     */
+    private boolean readCopy(final int copy, final Player p, final Scratch scratch) {
+        final int title = this.slots.getInt(copy + COPY_TITLE);
+        final int firstname = this.slots.getInt(copy + COPY_FIRSTNAME);
+        final int lastname = this.slots.getInt(copy + COPY_LASTNAME);
+        if (!this.isValidString(title) || !this.isValidString(firstname) || !this.isValidString(lastname)) {
+            return false;
+        }
+        
+        // the heap is read by several threads, each needs its own position
+        final ByteBuffer heap = this.heap.duplicate();
+        scratch.checksum.reset();
+        final byte[] titleBytes = readString(heap, title);
+        final byte[] firstnameBytes = readString(heap, firstname);
+        final byte[] lastnameBytes = readString(heap, lastname);
+        update(scratch, titleBytes);
+        update(scratch, firstnameBytes);
+        update(scratch, lastnameBytes);
+        if ((int) scratch.checksum.getValue() != this.slots.getInt(copy + COPY_STRINGS_CHECKSUM)) {
+            return false;
+        }
+        
+        p.ttliveId = this.slots.getInt(copy + COPY_TTLIVE_ID);
+        p.title = titleBytes == null ? null : new String(titleBytes, StandardCharsets.UTF_8);
+        p.firstname = firstnameBytes == null ? null : new String(firstnameBytes, StandardCharsets.UTF_8);
+        p.lastname = lastnameBytes == null ? null : new String(lastnameBytes, StandardCharsets.UTF_8);
+        return true;
+    }
+    
+    /**
+     * Checks, if a reference points to a string within the written heap.
+     */
+    private boolean isValidString(final int reference) {
+        if (reference == NULL_STRING) {
+            return true;
+        }
+        if (reference < HEAP_HEADER_SIZE || reference > this.heapTail - 4) {
+            return false;
+        }
+        final int length = this.heap.getInt(reference);
+        return length >= 0 && (long) reference + 4 + length <= this.heapTail;
+    }
+    
+    /**
+     * Reads the bytes of a valid string.
+     * 
+     * @return The bytes or <i>null</i> for the <code>null</code> string.
+     */
+    private static byte[] readString(final ByteBuffer heap, final int reference) {
+        if (reference == NULL_STRING) {
+            return null;
+        }
+        final byte[] bytes = new byte[heap.getInt(reference)];
+        heap.position(reference + 4);
+        heap.get(bytes);
+        return bytes;
+    }
+    
+    /**
+     * Adds a string to the checksum of the strings of a copy.
+     * 
+     * @param bytes The bytes of the string or <i>null</i>.
+     */
+    private static void update(final Scratch scratch, final byte[] bytes) {
+        putInt(scratch.length, 0, bytes == null ? -1 : bytes.length);
+        scratch.checksum.update(scratch.length, 0, 4);
+        if (bytes != null) {
+            scratch.checksum.update(bytes, 0, bytes.length);
+        }
+    }
+    
+    @Override
+    public void savePlayer(final Player p) {
+        final Scratch scratch = scratches.get();
+        this.lock.writeLock().lock();
+        try {
+            this.write(p, scratch);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Saves a number of players.
+     * 
+     * The lock is taken only once for all players.
+     * 
+     * @param players The players to save.
+     */
+    public void savePlayers(final Collection<? extends Player> players) {
+        final Scratch scratch = scratches.get();
+        this.lock.writeLock().lock();
+        try {
+            for (final Player p : players) {
+                this.write(p, scratch);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+    
+    private void write(final Player p, final Scratch scratch) {
+        // check parameters with assertions
+        assert(p.playerId >= 0 && p.playerId <= MAX_PLAYER_ID);
+        
+        final long slot = SLOT_HEADER_SIZE + (long) p.playerId * SLOT_SIZE;
+        if (slot + SLOT_SIZE > this.slots.capacity()) {
+            try {
+                this.slots = map(this.slotFile, grow(this.slots.capacity(), slot + SLOT_SIZE));
+            } catch (IOException ex) {
+                throw new IllegalStateException("Could not grow the slot file", ex);
+            }
+        }
+        
+        // the strings go to the heap first, so the new copy never refers to
+        // missing strings
+        final int current = this.findCopy(p.playerId, scratch);
+        scratch.checksum.reset();
+        final int title = this.writeString(p.title, current < 0 ? NULL_STRING : this.slots.getInt(current + COPY_TITLE), scratch);
+        final int firstname = this.writeString(p.firstname, current < 0 ? NULL_STRING : this.slots.getInt(current + COPY_FIRSTNAME), scratch);
+        final int lastname = this.writeString(p.lastname, current < 0 ? NULL_STRING : this.slots.getInt(current + COPY_LASTNAME), scratch);
+        final int strings = (int) scratch.checksum.getValue();
+        
+        // overwrite the older copy, keeping the current one intact
+        final int first = (int) slot;
+        final int target = current == first ? first + COPY_SIZE : first;
+        int sequence = current < 0 ? 1 : this.slots.getInt(current + COPY_SEQUENCE) + 1;
+        if (sequence == 0) {
+            sequence = 1;
+        }
+        
+        final byte[] copy = scratch.copy;
+        putInt(copy, COPY_SEQUENCE, sequence);
+        putInt(copy, COPY_TTLIVE_ID, p.ttliveId);
+        putInt(copy, COPY_TITLE, title);
+        putInt(copy, COPY_FIRSTNAME, firstname);
+        putInt(copy, COPY_LASTNAME, lastname);
+        putInt(copy, COPY_STRINGS_CHECKSUM, strings);
+        putInt(copy, 24, 0);
+        scratch.checksum.reset();
+        scratch.checksum.update(copy, 0, COPY_CHECKSUM);
+        putInt(copy, COPY_CHECKSUM, (int) scratch.checksum.getValue());
+        for (int i = 0; i < COPY_SIZE; ++i) {
+            this.slots.put(target + i, copy[i]);
+        }
+    }
+    
+    private static void putInt(final byte[] bytes, final int offset, final int value) {
+        // big endian, like the mapped buffers
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+    
+    /**
+     * Appends a string to the heap.
+     * 
+     * @param value The string.
+     * @param previous The reference of the previous value.
+     * @param scratch The scratch, whose checksum takes the string.
+     * @return The reference of the string.
+     */
+    private int writeString(final String value, final int previous, final Scratch scratch) {
+        if (value == null) {
+            update(scratch, null);
+            return NULL_STRING;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        update(scratch, bytes);
+        if (previous != NULL_STRING && this.isValidString(previous) && this.equalsString(previous, bytes)) {
+            return previous;
+        }
+        
+        final long end = (long) this.heapTail + 4 + bytes.length;
+        if (end > this.heap.capacity()) {
+            try {
+                this.heap = map(this.heapFile, grow(this.heap.capacity(), end));
+            } catch (IOException ex) {
+                throw new IllegalStateException("Could not grow the string heap", ex);
+            }
+        }
+        
+        final int reference = this.heapTail;
+        this.heap.putInt(reference, bytes.length);
+        final ByteBuffer heap = this.heap.duplicate();
+        heap.position(reference + 4);
+        heap.put(bytes);
+        this.heapTail = (int) end;
+        this.heap.putInt(HEAP_TAIL, this.heapTail);
+        return reference;
+    }
+    
+    private boolean equalsString(final int reference, final byte[] bytes) {
+        if (this.heap.getInt(reference) != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; ++i) {
+            if (this.heap.get(reference + 4 + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Returns the number of slots of the slot file.
+     * 
+     * All players have an internal player id below the number of slots.
+     * 
+     * @return The number of slots.
+     */
+    public int countSlots() {
+        this.lock.readLock().lock();
+        try {
+            return (this.slots.capacity() - SLOT_HEADER_SIZE) / SLOT_SIZE;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Forces all written players to the disk.
+     */
+    @Override
+    public void flush() {
+        this.lock.readLock().lock();
+        try {
+            // the strings have to be durable before the slots
+            this.heap.force();
+            this.slots.force();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Flushes and closes the files.
+     * 
+     * @throws IOException If a file could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        this.lock.writeLock().lock();
+        try {
+            this.heap.force();
+            this.slots.force();
+            this.slotFile.close();
+            this.heapFile.close();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import de.brainiiiii.tt.core.IPlayerStorage;
+import de.brainiiiii.tt.core.Player;
+import java.util.Collection;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A player storage keeping all players in memory.
+ * 
+ * The players are held by primitive maps keyed by the internal player id, 
+ * so the storage needs no boxed keys or entry objects. The ids are spread 
+ * over a number of segments, each guarded by its own read-write lock, so 
+ * readers never block each other and writers only block the readers of 
+ * their segment.
+ * 
+ * The storage keeps the given player objects, it does not copy them.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class MemoryPlayerStorage implements IPlayerStorage {
+    
+    /**
+     * The default number of segments.
+     */
+    public final static int DEFAULT_SEGMENTS = 16;
+    
+    private final Segment[] segments;
+    
+    private final int segmentShift;
+    
+    /**
+     * A segment of the storage.
+     */
+    private static class Segment {
+        
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        
+        final IntObjectMap<Player> players;
+        
+        Segment(final int expectedSize) {
+            this.players = new IntObjectMap<>(expectedSize);
+        }
+    }
+    
+    /**
+     * Creates a new empty storage.
+     */
+    public MemoryPlayerStorage() {
+        this(0, DEFAULT_SEGMENTS);
+    }
+    
+    /**
+     * Creates a new empty storage.
+     * 
+     * @param expectedPlayers The number of players the storage can take 
+     * without growing.
+     * @param segments The number of segments, a power of two.
+     */
+    public MemoryPlayerStorage(final int expectedPlayers, final int segments) {
+        // check parameters with assertions
+        assert(expectedPlayers >= 0);
+        assert(segments > 0 && Integer.bitCount(segments) == 1);
+        
+        this.segments = new Segment[segments];
+        // the segment is taken from the high bits of the hash, the slots of 
+        // the maps from the low bits
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(segments);
+        for (int i = 0; i < segments; ++i) {
+            this.segments[i] = new Segment(expectedPlayers / segments);
+        }
+    }
+    
+    private int segmentIndex(final int playerId) {
+        return this.segments.length == 1 ? 0 : IntObjectMap.hash(playerId) >>> this.segmentShift;
+    }
+    
+    @Override
+    public void savePlayer(final Player p) {
+        final Segment segment = this.segments[this.segmentIndex(p.playerId)];
+        segment.lock.writeLock().lock();
+        try {
+            segment.players.put(p.playerId, p);
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Saves a number of players.
+     * 
+     * The players are sorted by segment first, so every segment is locked 
+     * and grown only once.
+     * 
+     * @param players The players to save.
+     */
+    public void savePlayers(final Collection<? extends Player> players) {
+        final int[] counts = new int[this.segments.length + 1];
+        for (final Player p : players) {
+            counts[this.segmentIndex(p.playerId) + 1]++;
+        }
+        final int[] sizes = counts.clone();
+        for (int i = 1; i < counts.length; ++i) {
+            counts[i] += counts[i - 1];
+        }
+        final Player[] sorted = new Player[counts[this.segments.length]];
+        for (final Player p : players) {
+            sorted[counts[this.segmentIndex(p.playerId)]++] = p;
+        }
+        
+        int start = 0;
+        for (int i = 0; i < this.segments.length; ++i) {
+            final int size = sizes[i + 1];
+            if (size == 0) {
+                continue;
+            }
+            final Segment segment = this.segments[i];
+            segment.lock.writeLock().lock();
+            try {
+                segment.players.ensureCapacity(segment.players.size() + size);
+                for (int j = start; j < start + size; ++j) {
+                    segment.players.put(sorted[j].playerId, sorted[j]);
+                }
+            } finally {
+                segment.lock.writeLock().unlock();
+            }
+            start += size;
+        }
+    }
+
+    @Override
+    public Player getPlayer(final int playerId) {
+        final Segment segment = this.segments[this.segmentIndex(playerId)];
+        segment.lock.readLock().lock();
+        try {
+            return segment.players.get(playerId);
+        } finally {
+            segment.lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Removes a player.
+     * 
+     * @param playerId The internal player id.
+     * @return The removed player or <code>null</code>, if the player is 
+     * unknown.
+     */
+    public Player removePlayer(final int playerId) {
+        final Segment segment = this.segments[this.segmentIndex(playerId)];
+        segment.lock.writeLock().lock();
+        try {
+            return segment.players.remove(playerId);
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the number of players.
+     * 
+     * @return The number of players.
+     */
+    public int size() {
+        int size = 0;
+        for (final Segment segment : this.segments) {
+            segment.lock.readLock().lock();
+            try {
+                size += segment.players.size();
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+        }
+        return size;
+    }
+    
+    /**
+     * Returns the internal player ids of all players.
+     * 
+     * The segments are read one after another, so players saved or removed
+     * concurrently may be missing or included.
+     * 
+     * @return The player ids in no particular order.
+     */
+    public int[] getPlayerIds() {
+        final int[][] ids = new int[this.segments.length][];
+        int size = 0;
+        for (int i = 0; i < this.segments.length; ++i) {
+            final Segment segment = this.segments[i];
+            segment.lock.readLock().lock();
+            try {
+                ids[i] = segment.players.keys();
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+            size += ids[i].length;
+        }
+        final int[] result = new int[size];
+        int offset = 0;
+        for (final int[] segmentIds : ids) {
+            System.arraycopy(segmentIds, 0, result, offset, segmentIds.length);
+            offset += segmentIds.length;
+        }
+        return result;
+    }
+    
+    /**
+     * Removes all players.
+     */
+    public void clear() {
+        for (final Segment segment : this.segments) {
+            segment.lock.writeLock().lock();
+            try {
+                segment.players.clear();
+            } finally {
+                segment.lock.writeLock().unlock();
+            }
+        }
+    }
+}
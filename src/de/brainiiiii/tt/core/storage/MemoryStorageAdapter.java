@@ -0,0 +1,238 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import de.brainiiiii.tt.core.GameResultArray;
+import de.brainiiiii.tt.core.Player;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A storage adapter keeping all information in memory.
+ * 
+ * The adapter is the reference implementation of {@link IStorageAdapter}. 
+ * Reads share a lock, which is held exclusively by writes, so a committed 
+ * batch becomes visible at once. Cursors see the game results saved before
+ * they were opened.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class MemoryStorageAdapter implements IStorageAdapter {
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private final MemoryPlayerStorage players;
+    
+    private final GameResultArray results = new GameResultArray();
+    
+    /**
+     * Creates a new empty adapter.
+     */
+    public MemoryStorageAdapter() {
+        this(new MemoryPlayerStorage());
+    }
+    
+    /**
+     * Creates a new adapter on the given players.
+     * 
+     * @param players The storage of the players.
+     */
+    public MemoryStorageAdapter(final MemoryPlayerStorage players) {
+        // check parameters with assertions
+        assert(players != null);
+        
+        this.players = players;
+    }
+
+    @Override
+    public Player[] getPlayers(final int[] playerIds) {
+        final Player[] result = new Player[playerIds.length];
+        this.lock.readLock().lock();
+        try {
+            for (int i = 0; i < playerIds.length; ++i) {
+                result[i] = this.players.getPlayer(playerIds[i]);
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    @Override
+    public void savePlayers(final Collection<? extends Player> players) {
+        this.lock.writeLock().lock();
+        try {
+            this.players.savePlayers(players);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveResults(final GameResultArray results) {
+        this.lock.writeLock().lock();
+        try {
+            this.addResults(results);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+    
+    private void addResults(final GameResultArray results) {
+        for (int i = 0; i < results.size(); ++i) {
+            this.results.add(results.getPacked(i), results.getOpponentA(i), results.getOpponentB(i));
+        }
+    }
+
+    @Override
+    public IStorageCursor<Player> openPlayers() {
+        final int[] playerIds;
+        this.lock.readLock().lock();
+        try {
+            playerIds = this.players.getPlayerIds();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        
+        return new IStorageCursor<Player>() {
+            
+            private int index = -1;
+            
+            private Player current;
+            
+            @Override
+            public boolean next() {
+                // skip players removed since opening
+                MemoryStorageAdapter.this.lock.readLock().lock();
+                try {
+                    while (++this.index < playerIds.length) {
+                        this.current = MemoryStorageAdapter.this.players.getPlayer(playerIds[this.index]);
+                        if (this.current != null) {
+                            return true;
+                        }
+                    }
+                } finally {
+                    MemoryStorageAdapter.this.lock.readLock().unlock();
+                }
+                this.index = playerIds.length;
+                this.current = null;
+                return false;
+            }
+
+            @Override
+            public Player get() {
+                return this.current;
+            }
+
+            @Override
+            public void close() {
+                this.index = playerIds.length;
+                this.current = null;
+            }
+        };
+    }
+
+    @Override
+    public IResultCursor openResults() {
+        final int size;
+        this.lock.readLock().lock();
+        try {
+            size = this.results.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        
+        return new IResultCursor() {
+            
+            private int index = -1;
+            
+            private long result;
+            
+            private int playerA;
+            
+            private int playerB;
+            
+            @Override
+            public boolean next() {
+                if (++this.index >= size) {
+                    this.index = size;
+                    return false;
+                }
+                // the array may grow concurrently
+                MemoryStorageAdapter.this.lock.readLock().lock();
+                try {
+                    this.result = MemoryStorageAdapter.this.results.getPacked(this.index);
+                    this.playerA = MemoryStorageAdapter.this.results.getOpponentA(this.index);
+                    this.playerB = MemoryStorageAdapter.this.results.getOpponentB(this.index);
+                } finally {
+                    MemoryStorageAdapter.this.lock.readLock().unlock();
+                }
+                return true;
+            }
+
+            @Override
+            public long getResult() {
+                return this.result;
+            }
+
+            @Override
+            public int getPlayerA() {
+                return this.playerA;
+            }
+
+            @Override
+            public int getPlayerB() {
+                return this.playerB;
+            }
+
+            @Override
+            public void close() {
+                this.index = size;
+            }
+        };
+    }
+
+    @Override
+    public IStorageBatch beginBatch() {
+        return new BufferedStorageBatch() {
+            @Override
+            protected void apply(final List<Player> players, final GameResultArray results) {
+                MemoryStorageAdapter.this.lock.writeLock().lock();
+                try {
+                    MemoryStorageAdapter.this.players.savePlayers(players);
+                    MemoryStorageAdapter.this.addResults(results);
+                } finally {
+                    MemoryStorageAdapter.this.lock.writeLock().unlock();
+                }
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import de.brainiiiii.tt.core.Player;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded cache of players by their internal player id.
+ * 
+ * The cache follows the W-TinyLFU policy: new players enter a small window 
+ * ordered by recency. Players leaving the window compete with the least 
+ * recently used player of the main area, the one accessed less often 
+ * according to a frequency sketch is evicted. The main area is split into a 
+ * probation and a protected segment, players are promoted to the protected
+ * segment when accessed again. So players accessed once, e.g. by a scan, do
+ * not evict the frequently accessed ones.
+ * 
+ * The frequency sketch is a count-min sketch of 4 bit counters, which are 
+ * halved periodically, so the frequencies follow changes of the workload.
+ * 
+ * The cache is thread safe.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class PlayerCache {
+    
+    private final static int WINDOW = 0;
+    
+    private final static int PROBATION = 1;
+    
+    private final static int PROTECTED = 2;
+    
+    private final int maximumSize;
+    
+    private final int windowMaximum;
+    
+    private final int protectedMaximum;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    private final IntObjectMap<Node> nodes;
+    
+    /**
+     * The sentinels of the queues, indexed by the queue.
+     */
+    private final Node[] queues = new Node[3];
+    
+    private final int[] sizes = new int[3];
+    
+    private final FrequencySketch sketch;
+    
+    private final AtomicLong hits = new AtomicLong();
+    
+    private final AtomicLong misses = new AtomicLong();
+    
+    private final AtomicLong evictions = new AtomicLong();
+    
+    /**
+     * An entry of the cache, linked within its queue.
+     */
+    private static class Node {
+        
+        final int key;
+        
+        Player value;
+        
+        int queue;
+        
+        Node previous;
+        
+        Node next;
+        
+        Node(final int key) {
+            this.key = key;
+        }
+    }
+    
+    /**
+     * Creates a new empty cache.
+     * 
+     * @param maximumSize The maximum number of players.
+     */
+    public PlayerCache(final int maximumSize) {
+        // check parameters with assertions
+        assert(maximumSize > 0);
+        
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.protectedMaximum = (maximumSize - this.windowMaximum) * 4 / 5;
+        this.nodes = new IntObjectMap<>(maximumSize);
+        this.sketch = new FrequencySketch(maximumSize);
+        for (int queue = 0; queue < this.queues.length; ++queue) {
+            final Node sentinel = new Node(0);
+            sentinel.previous = sentinel;
+            sentinel.next = sentinel;
+            this.queues[queue] = sentinel;
+        }
+    }
+    
+    /**
+     * Returns a cached player.
+     * 
+     * @param playerId The internal player id.
+     * @return The player or <code>null</code>, if the player is not cached.
+     */
+    public Player get(final int playerId) {
+        this.lock.lock();
+        try {
+            this.sketch.increment(playerId);
+            final Node node = this.nodes.get(playerId);
+            if (node == null) {
+                this.misses.incrementAndGet();
+                return null;
+            }
+            this.hits.incrementAndGet();
+            this.touch(node);
+            return node.value;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+    
+    /**
+     * Puts a player into the cache, replacing a cached player of the same id.
+     * 
+     * @param p The player.
+     */
+    public void put(final Player p) {
+        this.lock.lock();
+        try {
+            Node node = this.nodes.get(p.playerId);
+            if (node != null) {
+                node.value = p;
+                this.touch(node);
+                return;
+            }
+            
+            node = new Node(p.playerId);
+            node.value = p;
+            this.nodes.put(p.playerId, node);
+            this.link(node, WINDOW);
+            
+            // move the oldest players of the window to the main area, where 
+            // they compete with the oldest players on probation
+            while (this.sizes[WINDOW] > this.windowMaximum) {
+                final Node candidate = this.queues[WINDOW].next;
+                this.unlink(candidate);
+                this.link(candidate, PROBATION);
+                if (this.nodes.size() > this.maximumSize) {
+                    final Node victim = this.queues[PROBATION].next;
+                    this.evict(this.sketch.frequency(candidate.key) > this.sketch.frequency(victim.key) ? victim : candidate);
+                }
+            }
+            while (this.nodes.size() > this.maximumSize) {
+                this.evict(this.sizes[PROBATION] > 0 ? this.queues[PROBATION].next : this.queues[PROTECTED].next);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+    
+    /**
+     * Removes a player from the cache.
+     * 
+     * @param playerId The internal player id.
+     */
+    public void invalidate(final int playerId) {
+        this.lock.lock();
+        try {
+            final Node node = this.nodes.remove(playerId);
+            if (node != null) {
+                this.unlink(node);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+    
+    /**
+     * Removes all players from the cache.
+     * 
+     * The frequencies are kept.
+     */
+    public void clear() {
+        this.lock.lock();
+        try {
+            this.nodes.clear();
+            for (int queue = 0; queue < this.queues.length; ++queue) {
+                this.queues[queue].previous = this.queues[queue];
+                this.queues[queue].next = this.queues[queue];
+                this.sizes[queue] = 0;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the number of cached players.
+     * 
+     * @return The number of players.
+     */
+    public int size() {
+        this.lock.lock();
+        try {
+            return this.nodes.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the maximum number of cached players.
+     * 
+     * @return The maximum number of players.
+     */
+    public int getMaximumSize() {
+        return this.maximumSize;
+    }
+    
+    /**
+     * Returns the number of requests answered by the cache.
+     * 
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        return this.hits.get();
+    }
+    
+    /**
+     * Returns the number of requests not answered by the cache.
+     * 
+     * @return The number of misses.
+     */
+    public long getMissCount() {
+        return this.misses.get();
+    }
+    
+    /**
+     * Returns the number of players evicted due to the size of the cache.
+     * 
+     * @return The number of evictions.
+     */
+    public long getEvictionCount() {
+        return this.evictions.get();
+    }
+    
+    /**
+     * Returns the fraction of requests answered by the cache.
+     * 
+     * @return The hit rate, zero without any requests.
+     */
+    public double getHitRate() {
+        final long h = this.hits.get();
+        final long total = h + this.misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+    
+    /**
+     * Moves an accessed player to the most recently used end of its queue,
+     * promoting players on probation.
+     */
+    private void touch(final Node node) {
+        this.unlink(node);
+        if (node.queue == PROBATION) {
+            this.link(node, PROTECTED);
+            while (this.sizes[PROTECTED] > this.protectedMaximum) {
+                final Node demoted = this.queues[PROTECTED].next;
+                this.unlink(demoted);
+                this.link(demoted, PROBATION);
+            }
+        } else {
+            this.link(node, node.queue);
+        }
+    }
+    
+    private void evict(final Node node) {
+        this.unlink(node);
+        this.nodes.remove(node.key);
+        this.evictions.incrementAndGet();
+    }
+    
+    private void link(final Node node, final int queue) {
+        final Node sentinel = this.queues[queue];
+        node.queue = queue;
+        node.previous = sentinel.previous;
+        node.next = sentinel;
+        sentinel.previous.next = node;
+        sentinel.previous = node;
+        this.sizes[queue]++;
+    }
+    
+    private void unlink(final Node node) {
+        node.previous.next = node.next;
+        node.next.previous = node.previous;
+        node.previous = null;
+        node.next = null;
+        this.sizes[node.queue]--;
+    }
+    
+    /**
+     * A count-min sketch of 4 bit counters.
+     */
+    private static class FrequencySketch {
+        
+        private final static long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+        };
+        
+        private final static long RESET_MASK = 0x7777777777777777L;
+        
+        /**
+         * The counters, sixteen within every long.
+         */
+        private final long[] table;
+        
+        private final int sampleSize;
+        
+        private int additions = 0;
+        
+        FrequencySketch(final int maximumSize) {
+            final int length = Integer.highestOneBit(Math.max(2, Math.min(maximumSize, 1 << 28)) - 1) << 1;
+            this.table = new long[length];
+            this.sampleSize = 10 * Math.max(maximumSize, 16);
+        }
+        
+        private int index(final int key, final int depth) {
+            long h = (key + SEEDS[depth]) * SEEDS[depth];
+            h ^= h >>> 32;
+            return (int) h;
+        }
+        
+        int frequency(final int key) {
+            int frequency = 15;
+            for (int depth = 0; depth < SEEDS.length; ++depth) {
+                final int h = this.index(key, depth);
+                final int slot = (h >>> 4) & (this.table.length - 1);
+                final int shift = (h & 15) << 2;
+                frequency = Math.min(frequency, (int) ((this.table[slot] >>> shift) & 15));
+            }
+            return frequency;
+        }
+        
+        void increment(final int key) {
+            boolean added = false;
+            for (int depth = 0; depth < SEEDS.length; ++depth) {
+                final int h = this.index(key, depth);
+                final int slot = (h >>> 4) & (this.table.length - 1);
+                final int shift = (h & 15) << 2;
+                if (((this.table[slot] >>> shift) & 15) != 15) {
+                    this.table[slot] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++this.additions >= this.sampleSize) {
+                // halve all counters
+                for (int i = 0; i < this.table.length; ++i) {
+                    this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+                }
+                this.additions /= 2;
+            }
+        }
+    }
+}
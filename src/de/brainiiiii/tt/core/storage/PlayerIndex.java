@@ -0,0 +1,435 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import de.brainiiiii.tt.core.Player;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Secondary indexes of players by TTLive id and by name prefix.
+ * 
+ * The TTLive ids are kept in a primitive map to the internal player ids; 
+ * players without a TTLive id (zero) are not indexed by it. The names are 
+ * normalized (lower case, without accents) and kept as "lastname firstname" 
+ * and "firstname lastname" in a sorted array, so a prefix is found by a 
+ * binary search. Changes go to a sorted tree (the delta) and tombstones 
+ * first, which are merged into the array once they have grown too large.
+ * 
+ * The index is thread safe.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class PlayerIndex {
+    
+    /**
+     * The value returned for unknown players.
+     */
+    public final static int NO_PLAYER = Integer.MIN_VALUE;
+    
+    private final static int MINIMUM_DELTA = 1024;
+    
+    private final static Pattern MARKS = Pattern.compile("\\p{M}+");
+    
+    private final static Pattern SPACES = Pattern.compile("\\s+");
+    
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private final IntIntMap ttliveIds = new IntIntMap();
+    
+    /**
+     * The indexed values of every player.
+     */
+    private final IntObjectMap<Indexed> indexed = new IntObjectMap<>();
+    
+    /**
+     * The sorted names and their players.
+     */
+    private String[] names = new String[0];
+    
+    private int[] nameIds = new int[0];
+    
+    /**
+     * The removed entries of the sorted names.
+     */
+    private final BitSet removed = new BitSet();
+    
+    private int removedCount = 0;
+    
+    /**
+     * The sorted names added since the last merge.
+     */
+    private final NavigableSet<Entry> delta = new TreeSet<>();
+    
+    /**
+     * The values a player is indexed by.
+     */
+    private static class Indexed {
+        
+        final int ttliveId;
+        
+        final String[] names;
+        
+        Indexed(final int ttliveId, final String[] names) {
+            this.ttliveId = ttliveId;
+            this.names = names;
+        }
+    }
+    
+    /**
+     * A name of a player.
+     */
+    private static class Entry implements Comparable<Entry> {
+        
+        final String name;
+        
+        final int playerId;
+        
+        Entry(final String name, final int playerId) {
+            this.name = name;
+            this.playerId = playerId;
+        }
+
+        @Override
+        public int compareTo(final Entry other) {
+            return compare(this.name, this.playerId, other.name, other.playerId);
+        }
+    }
+    
+    private static int compare(final String nameA, final int idA, final String nameB, final int idB) {
+        final int c = nameA.compareTo(nameB);
+        return c != 0 ? c : Integer.compare(idA, idB);
+    }
+    
+    /**
+     * The normalized form of every Latin-1 character.
+     */
+    private final static String[] LATIN_1 = new String[256];
+    
+    static {
+        for (char c = 0; c < LATIN_1.length; ++c) {
+            LATIN_1[c] = Character.isWhitespace(c) ? " " : normalizeSlow(String.valueOf(c));
+        }
+    }
+    
+    /**
+     * Normalizes a name for searching.
+     * 
+     * The name is converted to lower case, accents are removed and 
+     * whitespace is collapsed to single spaces.
+     * 
+     * @param name The name.
+     * @return The normalized name.
+     */
+    public static String normalize(final String name) {
+        final StringBuilder normalized = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); ++i) {
+            final char c = name.charAt(i);
+            if (c >= LATIN_1.length) {
+                // rare, so the slow path is taken for the whole name
+                return normalizeSlow(name);
+            }
+            final String folded = LATIN_1[c];
+            if (folded.equals(" ") && (normalized.length() == 0 || normalized.charAt(normalized.length() - 1) == ' ')) {
+                continue;
+            }
+            normalized.append(folded);
+        }
+        if (normalized.length() > 0 && normalized.charAt(normalized.length() - 1) == ' ') {
+            normalized.setLength(normalized.length() - 1);
+        }
+        return normalized.toString();
+    }
+    
+    private static String normalizeSlow(final String name) {
+        String normalized = Normalizer.normalize(name, Normalizer.Form.NFD);
+        normalized = MARKS.matcher(normalized).replaceAll("");
+        normalized = normalized.toLowerCase(Locale.ROOT).replace("ß", "ss");
+        return SPACES.matcher(normalized.trim()).replaceAll(" ");
+    }
+    
+    private static String[] names(final Player p) {
+        if (p.lastname == null && p.firstname == null) {
+            return new String[0];
+        }
+        if (p.lastname == null || p.firstname == null) {
+            return new String[] { normalize(p.lastname == null ? p.firstname : p.lastname) };
+        }
+        final String lastFirst = normalize(p.lastname + " " + p.firstname);
+        final String firstLast = normalize(p.firstname + " " + p.lastname);
+        return lastFirst.equals(firstLast) ? new String[] { lastFirst } : new String[] { lastFirst, firstLast };
+    }
+    
+    /**
+     * Indexes a player, replacing the previous values of the player.
+     * 
+     * @param p The player.
+     */
+    public void update(final Player p) {
+        final Indexed values = new Indexed(p.ttliveId, names(p));
+        this.lock.writeLock().lock();
+        try {
+            this.removeIndexed(p.playerId);
+            this.indexed.put(p.playerId, values);
+            if (values.ttliveId != 0) {
+                this.ttliveIds.put(values.ttliveId, p.playerId);
+            }
+            for (final String name : values.names) {
+                this.delta.add(new Entry(name, p.playerId));
+            }
+            this.mergeIfNeeded();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Removes a player from the index.
+     * 
+     * @param playerId The internal player id.
+     */
+    public void remove(final int playerId) {
+        this.lock.writeLock().lock();
+        try {
+            this.removeIndexed(playerId);
+            this.mergeIfNeeded();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Replaces the whole index by the given players.
+     * 
+     * @param players The players.
+     */
+    public void rebuild(final Collection<? extends Player> players) {
+        // later players replace earlier ones of the same id
+        final IntObjectMap<Indexed> values = new IntObjectMap<>(players.size());
+        for (final Player p : players) {
+            values.put(p.playerId, new Indexed(p.ttliveId, names(p)));
+        }
+        final int[] playerIds = values.keys();
+        final List<Entry> entries = new ArrayList<>(playerIds.length * 2);
+        for (final int playerId : playerIds) {
+            for (final String name : values.get(playerId).names) {
+                entries.add(new Entry(name, playerId));
+            }
+        }
+        Collections.sort(entries);
+        
+        this.lock.writeLock().lock();
+        try {
+            this.indexed.clear();
+            this.ttliveIds.clear();
+            this.indexed.ensureCapacity(playerIds.length);
+            this.ttliveIds.ensureCapacity(playerIds.length);
+            for (final int playerId : playerIds) {
+                final Indexed v = values.get(playerId);
+                this.indexed.put(playerId, v);
+                if (v.ttliveId != 0) {
+                    this.ttliveIds.put(v.ttliveId, playerId);
+                }
+            }
+            
+            this.names = new String[entries.size()];
+            this.nameIds = new int[entries.size()];
+            for (int i = 0; i < entries.size(); ++i) {
+                this.names[i] = entries.get(i).name;
+                this.nameIds[i] = entries.get(i).playerId;
+            }
+            this.removed.clear();
+            this.removedCount = 0;
+            this.delta.clear();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+    
+    private void removeIndexed(final int playerId) {
+        final Indexed previous = this.indexed.remove(playerId);
+        if (previous == null) {
+            return;
+        }
+        if (previous.ttliveId != 0 && this.ttliveIds.get(previous.ttliveId, NO_PLAYER) == playerId) {
+            this.ttliveIds.remove(previous.ttliveId);
+        }
+        for (final String name : previous.names) {
+            if (this.delta.remove(new Entry(name, playerId))) {
+                continue;
+            }
+            final int index = this.find(name, playerId);
+            if (index >= 0 && !this.removed.get(index)) {
+                this.removed.set(index);
+                this.removedCount++;
+            }
+        }
+    }
+    
+    /**
+     * Returns the index of an entry within the sorted names.
+     * 
+     * @return The index or the encoded insertion point, like 
+     * {@link Arrays#binarySearch(int[], int)}.
+     */
+    private int find(final String name, final int playerId) {
+        int low = 0;
+        int high = this.names.length - 1;
+        while (low <= high) {
+            final int middle = (low + high) >>> 1;
+            final int c = compare(this.names[middle], this.nameIds[middle], name, playerId);
+            if (c < 0) {
+                low = middle + 1;
+            } else if (c > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+    
+    /**
+     * Merges the delta and the tombstones into the sorted names, once they 
+     * have grown larger than an eighth of the sorted names.
+     */
+    private void mergeIfNeeded() {
+        if (this.delta.size() + this.removedCount <= Math.max(MINIMUM_DELTA, this.names.length / 8)) {
+            return;
+        }
+        
+        final int size = this.names.length - this.removedCount + this.delta.size();
+        final String[] mergedNames = new String[size];
+        final int[] mergedIds = new int[size];
+        final Iterator<Entry> deltas = this.delta.iterator();
+        Entry d = deltas.hasNext() ? deltas.next() : null;
+        int i = 0;
+        int m = 0;
+        while (i < this.names.length || d != null) {
+            if (i < this.names.length && this.removed.get(i)) {
+                i++;
+                continue;
+            }
+            if (d == null || (i < this.names.length && compare(this.names[i], this.nameIds[i], d.name, d.playerId) < 0)) {
+                mergedNames[m] = this.names[i];
+                mergedIds[m++] = this.nameIds[i++];
+            } else {
+                mergedNames[m] = d.name;
+                mergedIds[m++] = d.playerId;
+                d = deltas.hasNext() ? deltas.next() : null;
+            }
+        }
+        this.names = mergedNames;
+        this.nameIds = mergedIds;
+        this.removed.clear();
+        this.removedCount = 0;
+        this.delta.clear();
+    }
+    
+    /**
+     * Returns the internal player id of a TTLive id.
+     * 
+     * @param ttliveId The id of the player provided by TTLive.
+     * @return The internal player id or {@link #NO_PLAYER}.
+     */
+    public int getPlayerId(final int ttliveId) {
+        if (ttliveId == 0) {
+            return NO_PLAYER;
+        }
+        this.lock.readLock().lock();
+        try {
+            return this.ttliveIds.get(ttliveId, NO_PLAYER);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Searches players by the prefix of their name.
+     * 
+     * @param prefix The prefix, normalized by the index.
+     * @param limit The maximum number of players.
+     * @return The internal player ids, ordered by the matched name.
+     * @throws IllegalArgumentException If the limit is negative.
+     */
+    public int[] findPlayerIds(final String prefix, final int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("The limit must not be negative: " + limit);
+        }
+        final String normalized = normalize(prefix);
+        final IntIntMap found = new IntIntMap(Math.min(limit, 64));
+        int[] result = new int[Math.min(limit, 64)];
+        int count = 0;
+        
+        this.lock.readLock().lock();
+        try {
+            // start at the first entry not less than the prefix
+            int i = this.find(normalized, Integer.MIN_VALUE);
+            if (i < 0) {
+                i = -(i + 1);
+            }
+            final Iterator<Entry> deltas = this.delta.tailSet(new Entry(normalized, Integer.MIN_VALUE), true).iterator();
+            Entry d = deltas.hasNext() ? deltas.next() : null;
+            while (count < limit) {
+                if (i < this.names.length && this.removed.get(i)) {
+                    i++;
+                    continue;
+                }
+                final boolean hasName = i < this.names.length && this.names[i].startsWith(normalized);
+                final boolean hasDelta = d != null && d.name.startsWith(normalized);
+                final int playerId;
+                if (hasName && (!hasDelta || compare(this.names[i], this.nameIds[i], d.name, d.playerId) < 0)) {
+                    playerId = this.nameIds[i++];
+                } else if (hasDelta) {
+                    playerId = d.playerId;
+                    d = deltas.hasNext() ? deltas.next() : null;
+                } else {
+                    break;
+                }
+                if (!found.containsKey(playerId)) {
+                    found.put(playerId, count);
+                    if (count == result.length) {
+                        result = Arrays.copyOf(result, Math.min(limit, count * 2));
+                    }
+                    result[count++] = playerId;
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
@@ -0,0 +1,463 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import de.brainiiiii.tt.core.IAsyncCallback;
+import de.brainiiiii.tt.core.IAsyncPlayerStorage;
+import de.brainiiiii.tt.core.IPlayerStorage;
+import de.brainiiiii.tt.core.Player;
+import de.brainiiiii.tt.core.events.DaemonThreadFactory;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An asynchronous player storage writing behind a synchronous storage.
+ * 
+ * Saved players are put into a queue and written by a single thread in 
+ * batches, as soon as a batch is full or its oldest player has waited for 
+ * the maximum delay. Repeated saves of the same player within the queue are
+ * collapsed into a single write of the newest state. The callbacks of all 
+ * collapsed saves are called, after the player has been written.
+ * 
+ * Players are copied when saved, so the caller may change them afterwards. 
+ * Reads of a queued player are answered from the queue on the calling 
+ * thread; all other reads are passed to the storage on the executor.
+ * 
+ * If the wrapped storage is {@link Flushable}, it is flushed after every 
+ * batch, so the callbacks are called once the players are durable.
+ * 
+ * The wrapped storage must allow reading and writing from different 
+ * threads.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class WriteBehindPlayerStorage implements IAsyncPlayerStorage, Closeable {
+    
+    /**
+     * The default maximum number of players written in one batch.
+     */
+    public final static int DEFAULT_BATCH_SIZE = 256;
+    
+    /**
+     * The default maximum time in milliseconds a player waits in the queue.
+     */
+    public final static long DEFAULT_DELAY = 100;
+    
+    private final IPlayerStorage storage;
+    
+    private final int batchSize;
+    
+    private final long delayNanos;
+    
+    private final ExecutorService executor;
+    
+    private final boolean ownExecutor;
+    
+    private final Thread thread;
+    
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    private final Condition changed = this.lock.newCondition();
+    
+    /**
+     * The queued writes by player id, the oldest first.
+     */
+    private final LinkedHashMap<Integer, Write> pending = new LinkedHashMap<>();
+    
+    /**
+     * The players of the batch being written.
+     */
+    private final Map<Integer, Player> writing = new HashMap<>();
+    
+    private boolean flushRequested = false;
+    
+    private boolean closed = false;
+    
+    private final AtomicLong coalesced = new AtomicLong();
+    
+    private final AtomicLong batches = new AtomicLong();
+    
+    private final AtomicLong written = new AtomicLong();
+    
+    private final AtomicLong flushNanos = new AtomicLong();
+    
+    private volatile long lastFlushNanos = 0;
+    
+    /**
+     * A queued write of a player.
+     */
+    private static class Write {
+        
+        Player player;
+        
+        final long queued;
+        
+        final List<IAsyncCallback<Void>> callbacks = new ArrayList<>(1);
+        
+        Write(final Player player, final long queued) {
+            this.player = player;
+            this.queued = queued;
+        }
+    }
+    
+    /**
+     * Creates a new storage with the default batch size and delay, reading 
+     * on its own daemon threads.
+     * 
+     * @param storage The storage to write to.
+     */
+    public WriteBehindPlayerStorage(final IPlayerStorage storage) {
+        this(storage, DEFAULT_BATCH_SIZE, DEFAULT_DELAY, TimeUnit.MILLISECONDS, null);
+    }
+    
+    /**
+     * Creates a new storage.
+     * 
+     * @param storage The storage to write to.
+     * @param batchSize The maximum number of players written in one batch.
+     * @param delay The maximum time a player waits in the queue.
+     * @param unit The unit of the delay.
+     * @param executor The executor for the reads or <code>null</code> to 
+     * read on own daemon threads, which are stopped on closing.
+     */
+    public WriteBehindPlayerStorage(final IPlayerStorage storage, final int batchSize, final long delay, final TimeUnit unit, final ExecutorService executor) {
+        // check parameters with assertions
+        assert(storage != null);
+        assert(batchSize > 0);
+        assert(delay >= 0);
+        
+        this.storage = storage;
+        this.batchSize = batchSize;
+        this.delayNanos = unit.toNanos(delay);
+        this.ownExecutor = executor == null;
+        this.executor = executor == null ? Executors.newCachedThreadPool(new DaemonThreadFactory()) : executor;
+        
+        this.thread = new DaemonThreadFactory().newThread(new Runnable() {
+            @Override
+            public void run() {
+                WriteBehindPlayerStorage.this.runWriter();
+            }
+        });
+        this.thread.start();
+    }
+    
+    private static Player copy(final Player p) {
+        final Player copy = new Player();
+        copy.playerId = p.playerId;
+        copy.ttliveId = p.ttliveId;
+        copy.title = p.title;
+        copy.firstname = p.firstname;
+        copy.lastname = p.lastname;
+        return copy;
+    }
+    
+    @Override
+    public void savePlayer(final Player p, final IAsyncCallback<Void> callback) {
+        final Player copy = copy(p);
+        this.lock.lock();
+        try {
+            if (this.closed) {
+                if (callback != null) {
+                    AsyncCallbacks.fail(callback, new IllegalStateException("The storage has been closed."));
+                }
+                return;
+            }
+            
+            Write write = this.pending.get(copy.playerId);
+            if (write == null) {
+                write = new Write(copy, System.nanoTime());
+                this.pending.put(copy.playerId, write);
+                if (this.pending.size() == 1 || this.pending.size() == this.batchSize) {
+                    this.changed.signalAll();
+                }
+            } else {
+                write.player = copy;
+                this.coalesced.incrementAndGet();
+            }
+            if (callback != null) {
+                write.callbacks.add(callback);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+    
+    @Override
+    public void getPlayer(final int playerId, final IAsyncCallback<Player> callback) {
+        Player queued = null;
+        this.lock.lock();
+        try {
+            final Write write = this.pending.get(playerId);
+            if (write != null) {
+                queued = write.player;
+            } else {
+                queued = this.writing.get(playerId);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        
+        if (queued != null) {
+            callback.onCallback(copy(queued));
+            return;
+        }
+        
+        try {
+            this.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    final Player p;
+                    try {
+                        p = WriteBehindPlayerStorage.this.storage.getPlayer(playerId);
+                    } catch (Throwable ex) {
+                        AsyncCallbacks.fail(callback, ex);
+                        return;
+                    }
+                    callback.onCallback(p);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            AsyncCallbacks.fail(callback, ex);
+        }
+    }
+    
+    /**
+     * Writes all queued players and waits, until they have been written.
+     */
+    public void flush() {
+        this.lock.lock();
+        try {
+            this.flushRequested = true;
+            this.changed.signalAll();
+            while (!this.pending.isEmpty() || !this.writing.isEmpty()) {
+                this.changed.awaitUninterruptibly();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the number of players waiting to be written, including the 
+     * players being written.
+     * 
+     * @return The number of players.
+     */
+    public int getQueueDepth() {
+        this.lock.lock();
+        try {
+            return this.pending.size() + this.writing.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+    
+    /**
+     * Returns the number of saves collapsed into a newer save.
+     * 
+     * @return The number of collapsed saves.
+     */
+    public long getCoalescedCount() {
+        return this.coalesced.get();
+    }
+    
+    /**
+     * Returns the number of written batches.
+     * 
+     * @return The number of batches.
+     */
+    public long getBatchCount() {
+        return this.batches.get();
+    }
+    
+    /**
+     * Returns the number of written players.
+     * 
+     * @return The number of players.
+     */
+    public long getWrittenCount() {
+        return this.written.get();
+    }
+    
+    /**
+     * Returns the time needed to write the last batch.
+     * 
+     * @param unit The unit of the time.
+     * @return The time.
+     */
+    public long getLastFlushLatency(final TimeUnit unit) {
+        return unit.convert(this.lastFlushNanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Returns the mean time needed to write a batch.
+     * 
+     * @param unit The unit of the time.
+     * @return The time.
+     */
+    public long getMeanFlushLatency(final TimeUnit unit) {
+        final long count = this.batches.get();
+        return count == 0 ? 0 : unit.convert(this.flushNanos.get() / count, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Writes all queued players and stops the writing thread.
+     * 
+     * Players saved after closing are not written, their callbacks are 
+     * called with a failure.
+     */
+    @Override
+    public void close() {
+        this.lock.lock();
+        try {
+            this.closed = true;
+            this.changed.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+        
+        boolean interrupted = false;
+        while (true) {
+            try {
+                this.thread.join();
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (this.ownExecutor) {
+            this.executor.shutdown();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * The loop of the writing thread.
+     */
+    private void runWriter() {
+        final List<Write> batch = new ArrayList<>(this.batchSize);
+        while (true) {
+            this.lock.lock();
+            try {
+                this.writing.clear();
+                this.changed.signalAll();
+                
+                // wait for a full batch, the delay of the oldest player or 
+                // an explicit flush
+                while (true) {
+                    if (this.pending.isEmpty()) {
+                        this.flushRequested = false;
+                        if (this.closed) {
+                            return;
+                        }
+                        this.changed.awaitUninterruptibly();
+                        continue;
+                    }
+                    if (this.closed || this.flushRequested || this.pending.size() >= this.batchSize) {
+                        break;
+                    }
+                    final long wait = this.pending.values().iterator().next().queued + this.delayNanos - System.nanoTime();
+                    if (wait <= 0) {
+                        break;
+                    }
+                    try {
+                        this.changed.awaitNanos(wait);
+                    } catch (InterruptedException ex) {
+                        // the writer is stopped by closing only
+                    }
+                }
+                
+                final Iterator<Write> writes = this.pending.values().iterator();
+                while (writes.hasNext() && batch.size() < this.batchSize) {
+                    final Write write = writes.next();
+                    writes.remove();
+                    batch.add(write);
+                    this.writing.put(write.player.playerId, write.player);
+                }
+            } finally {
+                this.lock.unlock();
+            }
+            
+            this.write(batch);
+            batch.clear();
+        }
+    }
+    
+    private void write(final List<Write> batch) {
+        final long start = System.nanoTime();
+        final Throwable[] failures = new Throwable[batch.size()];
+        for (int i = 0; i < batch.size(); ++i) {
+            try {
+                this.storage.savePlayer(batch.get(i).player);
+            } catch (Throwable ex) {
+                // errors fail the batch as well, the writer must keep running
+                // to release the flushing threads
+                failures[i] = ex;
+            }
+        }
+        if (this.storage instanceof Flushable) {
+            try {
+                ((Flushable) this.storage).flush();
+            } catch (Throwable ex) {
+                Arrays.fill(failures, ex);
+            }
+        }
+        final long duration = System.nanoTime() - start;
+        this.lastFlushNanos = duration;
+        this.flushNanos.addAndGet(duration);
+        this.batches.incrementAndGet();
+        this.written.addAndGet(batch.size());
+        
+        for (int i = 0; i < batch.size(); ++i) {
+            for (final IAsyncCallback<Void> callback : batch.get(i).callbacks) {
+                try {
+                    if (failures[i] != null) {
+                        AsyncCallbacks.fail(callback, failures[i]);
+                    } else {
+                        callback.onCallback(null);
+                    }
+                } catch (Throwable ex) {
+                    final Thread current = Thread.currentThread();
+                    current.getUncaughtExceptionHandler().uncaughtException(current, ex);
+                }
+            }
+        }
+    }
+}
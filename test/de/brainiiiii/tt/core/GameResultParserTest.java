@@ -0,0 +1,115 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests of {@link GameResultParser}.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class GameResultParserTest {
+    
+    private final GameResultParser parser = new GameResultParser();
+    
+    @Test
+    public void testWinner() {
+        assertTrue(this.parser.parse("+"));
+        assertEquals(GameResult.Player.PLAYER_A, this.parser.getWinner());
+        assertFalse(this.parser.isWalkover());
+        assertFalse(this.parser.hasSets());
+        
+        assertTrue(this.parser.parse("-"));
+        assertEquals(GameResult.Player.PLAYER_B, this.parser.getWinner());
+        assertSame(WinnerGameResult.valueOf(GameResult.Player.PLAYER_B), this.parser.toGameResult());
+    }
+    
+    @Test
+    public void testWalkover() {
+        assertTrue(this.parser.parse("-w.o."));
+        assertEquals(GameResult.Player.PLAYER_B, this.parser.getWinner());
+        assertTrue(this.parser.isWalkover());
+        assertEquals("-w.o.", this.parser.toGameResult().getText());
+    }
+    
+    @Test
+    public void testSets() {
+        assertTrue(this.parser.parse(" 3:1 "));
+        assertEquals(GameResult.Player.PLAYER_A, this.parser.getWinner());
+        assertTrue(this.parser.hasSets());
+        assertEquals(3, this.parser.getSetsA());
+        assertEquals(1, this.parser.getSetsB());
+        assertEquals(0, this.parser.countSets());
+        assertSame(SetsGameResult.valueOf(3, 1), this.parser.toGameResult());
+        
+        // an unfinished game has no winner
+        assertTrue(this.parser.parse("3:3"));
+        assertNull(this.parser.getWinner());
+    }
+    
+    @Test
+    public void testPoints() {
+        assertTrue(this.parser.parse("11:9,8:11;11:7  11:5"));
+        assertEquals(GameResult.Player.PLAYER_A, this.parser.getWinner());
+        assertEquals(3, this.parser.getSetsA());
+        assertEquals(1, this.parser.getSetsB());
+        assertEquals(4, this.parser.countSets());
+        assertEquals(8, this.parser.getPointsA(1));
+        assertEquals(11, this.parser.getPointsB(1));
+        assertEquals("11:9 8:11 11:7 11:5", this.parser.toGameResult().getText());
+    }
+    
+    @Test
+    public void testInvalid() {
+        for (final String text : new String[] { "", "abc", "11:9x", "1111:9", "11:9 5:3", "12:9", "11:11", "5:0" }) {
+            assertFalse(text, this.parser.parse(text));
+            assertFalse(text, this.parser.isValid());
+            assertNull(text, this.parser.toGameResult());
+        }
+    }
+    
+    @Test
+    public void testSources() {
+        final byte[] bytes = "x 12:10 11:13 11:0 x".getBytes(StandardCharsets.US_ASCII);
+        assertTrue(this.parser.parse(bytes, 2, bytes.length - 4));
+        assertEquals("12:10 11:13 11:0", this.parser.toGameResult().getText());
+        
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(2).limit(bytes.length - 2);
+        assertTrue(this.parser.parse(buffer));
+        assertEquals(2, buffer.position());
+        assertEquals("12:10 11:13 11:0", this.parser.toGameResult().getText());
+        
+        assertTrue(this.parser.parse("x 2:3 x", 2, 5));
+        assertEquals(GameResult.Player.PLAYER_B, this.parser.getWinner());
+    }
+}
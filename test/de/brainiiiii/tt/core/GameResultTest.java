@@ -0,0 +1,72 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+/**
+ * Tests of {@link GameResult#invertResult()}.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class GameResultTest {
+    
+    @Test
+    public void testInverseIdentity() {
+        final GameResult<IOpponent> result = new SetsGameResult<>(new int[] { 11, 8, 11 }, new int[] { 9, 11, 4 });
+        final GameResult<IOpponent> inverted = result.invertResult();
+        assertEquals("9:11 11:8 4:11", inverted.getText());
+        assertSame(inverted, result.invertResult());
+        assertSame(result, inverted.invertResult());
+    }
+    
+    @Test
+    public void testSharedResults() {
+        final GameResult<IOpponent> shared = SetsGameResult.valueOf(3, 1);
+        assertSame(SetsGameResult.valueOf(1, 3), shared.invertResult());
+        assertSame(shared, shared.invertResult().invertResult());
+        
+        final GameResult<IOpponent> winner = WinnerGameResult.valueOf(GameResult.Player.PLAYER_A);
+        assertSame(WinnerGameResult.valueOf(GameResult.Player.PLAYER_B), winner.invertResult());
+        assertSame(winner, winner.invertResult().invertResult());
+    }
+    
+    @Test
+    public void testPrivateResultKeepsSharedLinks() {
+        // the private result is inverted before the shared results, which 
+        // must not be linked to it
+        final GameResult<IOpponent> walkover = new WalkoverGameResult<>(GameResult.Player.PLAYER_A);
+        final GameResult<IOpponent> inverted = walkover.invertResult();
+        assertNotSame(WalkoverGameResult.valueOf(GameResult.Player.PLAYER_B), inverted);
+        assertSame(walkover, inverted.invertResult());
+        assertSame(WalkoverGameResult.valueOf(GameResult.Player.PLAYER_A), WalkoverGameResult.valueOf(GameResult.Player.PLAYER_B).invertResult());
+        
+        final GameResult<IOpponent> sets = new SetsGameResult<>(new int[0], new int[0]);
+        assertSame(sets, sets.invertResult().invertResult());
+        assertSame(SetsGameResult.valueOf(0, 0), SetsGameResult.valueOf(0, 0).invertResult());
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests of {@link PackedGameResult}.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class PackedGameResultTest {
+    
+    private final static String[] TEXTS = {
+        "+", "-", "+w.o.", "-w.o.", "3:1", "0:3", "4:0", "3:3", 
+        "11:9 8:11 11:7 11:5", "12:10 11:13 11:0", "9:11 9:11 9:11", 
+        "11:0 0:11 11:0 0:11 11:0 0:11 63:65"
+    };
+    
+    private static GameResult<IOpponent> parse(final String text) {
+        final GameResultParser parser = new GameResultParser();
+        assertTrue(text, parser.parse(text));
+        return parser.toGameResult();
+    }
+    
+    @Test
+    public void testRoundTrip() {
+        for (final String text : TEXTS) {
+            final long packed = PackedGameResult.pack(parse(text));
+            assertEquals(text, PackedGameResult.toGameResult(packed).getText());
+        }
+    }
+    
+    @Test
+    public void testPackParser() {
+        final GameResultParser parser = new GameResultParser();
+        for (final String text : TEXTS) {
+            assertTrue(text, parser.parse(text));
+            assertEquals(text, PackedGameResult.pack(parser.toGameResult()), PackedGameResult.pack(parser));
+        }
+    }
+    
+    @Test
+    public void testValues() {
+        final long packed = PackedGameResult.pack(parse("11:9 8:11 12:14 11:5 13:11"));
+        assertEquals(GameResult.Player.PLAYER_A, PackedGameResult.getWinner(packed));
+        assertTrue(PackedGameResult.hasSets(packed));
+        assertEquals(3, PackedGameResult.getSetsA(packed));
+        assertEquals(2, PackedGameResult.getSetsB(packed));
+        assertEquals(5, PackedGameResult.countSets(packed));
+        assertEquals(12, PackedGameResult.getPointsA(packed, 2));
+        assertEquals(14, PackedGameResult.getPointsB(packed, 2));
+        assertEquals(11 + 8 + 12 + 11 + 13, PackedGameResult.getBallsA(packed));
+        assertEquals(9 + 11 + 14 + 5 + 11, PackedGameResult.getBallsB(packed));
+    }
+    
+    @Test
+    public void testInvert() {
+        for (final String text : TEXTS) {
+            final GameResult<IOpponent> result = parse(text);
+            final long packed = PackedGameResult.pack(result);
+            assertEquals(text, PackedGameResult.pack(result.invertResult()), PackedGameResult.invert(packed));
+            assertEquals(text, packed, PackedGameResult.invert(PackedGameResult.invert(packed)));
+        }
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSet() {
+        PackedGameResult.pack(new SetsGameResult<>(new int[] { 11, 5 }, new int[] { 9, 3 }));
+    }
+    
+    @Test
+    public void testParserAgrees() {
+        // the parser rejects exactly the sets, which can not be encoded
+        final GameResultParser parser = new GameResultParser();
+        for (int pointsA = 0; pointsA < 70; ++pointsA) {
+            for (int pointsB = 0; pointsB < 70; ++pointsB) {
+                final String text = "11:9 " + pointsA + ":" + pointsB;
+                assertEquals(text, PackedGameResult.isValidSet(pointsA, pointsB), parser.parse(text));
+                if (parser.isValid()) {
+                    assertEquals(text, PackedGameResult.toGameResult(PackedGameResult.pack(parser)).getText());
+                }
+            }
+        }
+    }
+}
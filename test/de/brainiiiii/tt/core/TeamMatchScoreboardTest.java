@@ -0,0 +1,95 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests of {@link TeamMatchScoreboard}.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class TeamMatchScoreboardTest {
+    
+    @Test
+    public void testRunningMatches() {
+        final TeamMatchScoreboard scoreboard = new TeamMatchScoreboard(TeamMatchSystem.WERNER_SCHEFFLER);
+        for (int match = 0; match < scoreboard.getSystem().countMatches(); ++match) {
+            scoreboard.setResult(match, PackedGameResult.packSets(1, 1));
+        }
+        
+        // running matches count for the sets, but not as played matches
+        assertEquals(0, scoreboard.countPlayed());
+        assertFalse(scoreboard.isDecided());
+        assertFalse(scoreboard.isDraw());
+        assertNull(scoreboard.getWinner());
+        assertEquals(14, scoreboard.getSetsA());
+        assertEquals(14, scoreboard.getSetsB());
+        
+        scoreboard.setResult(0, PackedGameResult.packSets(3, 1));
+        assertEquals(1, scoreboard.countPlayed());
+        assertEquals(1, scoreboard.getWinsA());
+        assertEquals(16, scoreboard.getSetsA());
+        
+        // a finished match going back to a running one is no longer played
+        scoreboard.setResult(0, PackedGameResult.packSets(2, 2));
+        assertEquals(0, scoreboard.countPlayed());
+        assertEquals(0, scoreboard.getWinsA());
+    }
+    
+    @Test
+    public void testDraw() {
+        final TeamMatchScoreboard scoreboard = new TeamMatchScoreboard(TeamMatchSystem.WERNER_SCHEFFLER);
+        final int matches = scoreboard.getSystem().countMatches();
+        for (int match = 0; match < matches; ++match) {
+            scoreboard.setResult(match, match % 2 == 0 ? PackedGameResult.packSets(3, 0) : PackedGameResult.packSets(0, 3));
+            assertEquals(match == matches - 1, scoreboard.isDecided());
+        }
+        assertEquals(matches, scoreboard.countPlayed());
+        assertTrue(scoreboard.isDraw());
+        assertNull(scoreboard.getWinner());
+        assertEquals("7:7", scoreboard.getText());
+    }
+    
+    @Test
+    public void testWinner() {
+        final TeamMatchScoreboard scoreboard = new TeamMatchScoreboard(TeamMatchSystem.WERNER_SCHEFFLER);
+        final int winningScore = scoreboard.getSystem().getWinningScore();
+        for (int match = 0; match < winningScore; ++match) {
+            scoreboard.setResult(match, WalkoverGameResult.valueOf(GameResult.Player.PLAYER_B));
+        }
+        assertTrue(scoreboard.isDecided());
+        assertFalse(scoreboard.isDraw());
+        assertEquals(GameResult.Player.PLAYER_B, scoreboard.getWinner());
+        assertEquals(0, scoreboard.getSetsB());
+        
+        scoreboard.clearResult(0);
+        assertFalse(scoreboard.isDecided());
+        assertEquals(winningScore - 1, scoreboard.countPlayed());
+    }
+}
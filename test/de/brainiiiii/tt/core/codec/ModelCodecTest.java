@@ -0,0 +1,155 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.codec;
+
+import de.brainiiiii.tt.core.GameResultArray;
+import de.brainiiiii.tt.core.LivePZAdjustment;
+import de.brainiiiii.tt.core.Player;
+import de.brainiiiii.tt.core.TeamMatchEvent;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Date;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+/**
+ * Tests of {@link ModelEncoder} and {@link ModelDecoder}.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class ModelCodecTest {
+    
+    private static Player player(final int playerId, final String firstname, final String lastname) {
+        final Player p = new Player();
+        p.playerId = playerId;
+        p.ttliveId = playerId * 31;
+        p.firstname = firstname;
+        p.lastname = lastname;
+        return p;
+    }
+    
+    @Test
+    public void testVarInts() {
+        final ByteBuffer buffer = ByteBuffer.allocate(64);
+        final int[] values = { 0, 1, 127, 128, 16383, 16384, Integer.MAX_VALUE, -1, Integer.MIN_VALUE };
+        for (final int value : values) {
+            ModelCodec.putSignedVarInt(buffer, value);
+        }
+        ModelCodec.putVarLong(buffer, Long.MAX_VALUE);
+        buffer.flip();
+        for (final int value : values) {
+            assertEquals(value, ModelCodec.getSignedVarInt(buffer));
+        }
+        assertEquals(Long.MAX_VALUE, ModelCodec.getVarLong(buffer));
+        assertFalse(buffer.hasRemaining());
+    }
+    
+    @Test
+    public void testRoundTrip() {
+        final ByteBuffer buffer = ByteBuffer.allocate(1024);
+        final ModelEncoder encoder = new ModelEncoder();
+        encoder.encodePlayer(buffer, player(1, "Jörg", "Müller"));
+        encoder.encodePlayer(buffer, player(2, "Anna", "Müller"));
+        encoder.encodeResult(buffer, 0x12345L, 1, 2);
+        final TeamMatchEvent event = new TeamMatchEvent();
+        event.league = "Bezirksliga";
+        event.teamA = "TTC A";
+        event.date = new Date(1400000000000L);
+        encoder.encodeEvent(buffer, event);
+        final LivePZAdjustment adjustment = new LivePZAdjustment();
+        adjustment.set(player(2, null, null), -12, LivePZAdjustment.AdjustmentType.CHANGE);
+        encoder.encodeAdjustment(buffer, adjustment);
+        buffer.flip();
+        
+        final ModelDecoder decoder = new ModelDecoder();
+        assertEquals(ModelCodec.PLAYER, decoder.nextRecord(buffer));
+        final Player first = decoder.decodePlayer(buffer, new Player());
+        assertEquals(1, first.playerId);
+        assertEquals(31, first.ttliveId);
+        assertNull(first.title);
+        assertEquals("Jörg", first.firstname);
+        assertEquals("Müller", first.lastname);
+        assertEquals(ModelCodec.PLAYER, decoder.nextRecord(buffer));
+        assertEquals("Müller", decoder.decodePlayer(buffer, new Player()).lastname);
+        
+        assertEquals(ModelCodec.GAME_RESULT, decoder.nextRecord(buffer));
+        final GameResultArray results = new GameResultArray();
+        decoder.decodeResult(buffer, results);
+        assertEquals(0x12345L, results.getPacked(0));
+        assertEquals(1, results.getOpponentA(0));
+        assertEquals(2, results.getOpponentB(0));
+        
+        assertEquals(ModelCodec.TEAM_MATCH_EVENT, decoder.nextRecord(buffer));
+        final TeamMatchEvent decoded = decoder.decodeEvent(buffer, new TeamMatchEvent());
+        assertEquals("Bezirksliga", decoded.league);
+        assertEquals("TTC A", decoded.teamA);
+        assertNull(decoded.teamB);
+        assertEquals(event.date, decoded.date);
+        
+        assertEquals(ModelCodec.LIVEPZ_ADJUSTMENT, decoder.nextRecord(buffer));
+        final LivePZAdjustment decodedAdjustment = decoder.decodeAdjustment(buffer, new LivePZAdjustment());
+        assertEquals(2, decodedAdjustment.player.playerId);
+        assertEquals(-12, decodedAdjustment.livepz);
+        assertEquals(LivePZAdjustment.AdjustmentType.CHANGE, decodedAdjustment.type);
+        assertFalse(buffer.hasRemaining());
+        assertEquals(encoder.getDictionarySize(), decoder.getDictionarySize());
+    }
+    
+    @Test
+    public void testRollback() {
+        final ModelEncoder encoder = new ModelEncoder();
+        final ByteBuffer buffer = ByteBuffer.allocate(256);
+        encoder.encodePlayer(buffer, player(1, "Anna", "Meier"));
+        final int position = buffer.position();
+        final int dictionarySize = encoder.getDictionarySize();
+        
+        // the record does not fit, so neither the buffer nor the dictionary
+        // may keep a part of it
+        buffer.limit(position + 12);
+        try {
+            encoder.encodePlayer(buffer, player(2, "Maximilian", "Schneider-Mustermann"));
+            fail("Expected a BufferOverflowException");
+        } catch (BufferOverflowException e) {
+            // expected
+        }
+        assertEquals(position, buffer.position());
+        assertEquals(dictionarySize, encoder.getDictionarySize());
+        
+        // the record is written completely after making room
+        buffer.limit(buffer.capacity());
+        encoder.encodePlayer(buffer, player(2, "Maximilian", "Schneider-Mustermann"));
+        buffer.flip();
+        final ModelDecoder decoder = new ModelDecoder();
+        decoder.nextRecord(buffer);
+        decoder.decodePlayer(buffer, new Player());
+        decoder.nextRecord(buffer);
+        final Player second = decoder.decodePlayer(buffer, new Player());
+        assertEquals("Maximilian", second.firstname);
+        assertEquals("Schneider-Mustermann", second.lastname);
+        assertFalse(buffer.hasRemaining());
+    }
+}
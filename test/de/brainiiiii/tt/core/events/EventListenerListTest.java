@@ -0,0 +1,171 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests of {@link EventListenerList}.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class EventListenerListTest {
+    
+    /**
+     * A listener counting its calls.
+     */
+    private static class CountingListener {
+        
+        /**
+         * The number of calls.
+         */
+        private final AtomicInteger calls = new AtomicInteger();
+    }
+    
+    /**
+     * A callback counting the calls on the listener.
+     */
+    private final static IEventCallback<CountingListener, Object> COUNT = new IEventCallback<CountingListener, Object>() {
+        @Override
+        public void callEvent(final CountingListener listener, final Object event) {
+            listener.calls.incrementAndGet();
+        }
+    };
+    
+    @Test
+    public void testSynchronous() {
+        assertTrue(new EventListenerList<CountingListener>().isSynchronous());
+    }
+    
+    @Test
+    public void testRemovedListenerIsNotCalled() {
+        final EventListenerList<CountingListener> list = new EventListenerList<>();
+        final CountingListener first = new CountingListener();
+        final CountingListener second = new CountingListener();
+        list.addListener(first);
+        list.addListener(second);
+        list.call(COUNT, null);
+        
+        list.removeListener(first);
+        list.call(COUNT, null);
+        assertEquals(1, first.calls.get());
+        assertEquals(2, second.calls.get());
+        
+        list.clear();
+        list.call(COUNT, null);
+        assertEquals(2, second.calls.get());
+    }
+    
+    @Test
+    public void testChangeWhileCalling() {
+        final EventListenerList<CountingListener> list = new EventListenerList<>();
+        final CountingListener first = new CountingListener();
+        final CountingListener second = new CountingListener();
+        final CountingListener added = new CountingListener();
+        list.addListener(first);
+        list.addListener(second);
+        
+        // the first listener changes the list, while the call is running
+        list.call(new IEventCallback<CountingListener, Object>() {
+            @Override
+            public void callEvent(final CountingListener listener, final Object event) {
+                listener.calls.incrementAndGet();
+                if (listener == first) {
+                    list.removeListener(second);
+                    list.addListener(added);
+                }
+            }
+        }, null);
+        
+        // the running call still sees the listeners of its start
+        assertEquals(1, first.calls.get());
+        assertEquals(1, second.calls.get());
+        assertEquals(0, added.calls.get());
+        
+        list.call(COUNT, null);
+        assertEquals(2, first.calls.get());
+        assertEquals(1, second.calls.get());
+        assertEquals(1, added.calls.get());
+    }
+    
+    @Test
+    public void testConcurrentChanges() throws InterruptedException {
+        final EventListenerList<CountingListener> list = new EventListenerList<>();
+        final CountingListener fixed = new CountingListener();
+        list.addListener(fixed);
+        
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final CountDownLatch started = new CountDownLatch(1);
+        final Thread changer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                final List<CountingListener> listeners = new ArrayList<>();
+                started.countDown();
+                while (running.get()) {
+                    for (int i = 0; i < 10; ++i) {
+                        final CountingListener listener = new CountingListener();
+                        listeners.add(listener);
+                        list.addListener(listener);
+                    }
+                    for (final CountingListener listener : listeners) {
+                        list.removeListener(listener);
+                    }
+                    listeners.clear();
+                }
+            }
+        });
+        changer.start();
+        started.await();
+        
+        // every call sees a complete snapshot, so the fixed listener is
+        // called exactly once per call and no call fails
+        final int calls = 10000;
+        try {
+            for (int i = 0; i < calls; ++i) {
+                list.call(COUNT, null);
+            }
+        } finally {
+            running.set(false);
+            changer.join();
+        }
+        assertEquals(calls, fixed.calls.get());
+        
+        // all temporary listeners have been removed again
+        final CountingListener last = new CountingListener();
+        list.addListener(last);
+        list.call(COUNT, null);
+        assertEquals(calls + 1, fixed.calls.get());
+        assertEquals(1, last.calls.get());
+        assertFalse(list.copyListenerList().contains(null));
+        assertEquals(2, list.copyListenerList().size());
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+/**
+ * Tests of {@link IntObjectMap}.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class IntObjectMapTest {
+    
+    @Test
+    public void testRemove() {
+        final IntObjectMap<String> map = new IntObjectMap<>();
+        map.put(1, "a");
+        map.put(2, "b");
+        assertEquals("a", map.remove(1));
+        assertNull(map.remove(1));
+        assertFalse(map.containsKey(1));
+        assertEquals("b", map.get(2));
+        assertEquals(1, map.size());
+    }
+    
+    @Test
+    public void testRemoveWithinProbeSequence() {
+        // keys of the same residue collide within a small table, so removing
+        // one of them has to shift the following ones back
+        final IntObjectMap<Integer> map = new IntObjectMap<>();
+        for (int key = 0; key < 6; ++key) {
+            map.put(key * 1024, key);
+        }
+        assertEquals(Integer.valueOf(2), map.remove(2 * 1024));
+        assertEquals(Integer.valueOf(0), map.remove(0));
+        for (int key = 1; key < 6; ++key) {
+            assertEquals(key == 2 ? null : Integer.valueOf(key), map.get(key * 1024));
+        }
+        assertEquals(4, map.size());
+    }
+    
+    @Test
+    public void testRandomOperations() {
+        final IntObjectMap<Integer> map = new IntObjectMap<>();
+        final Map<Integer, Integer> reference = new HashMap<>();
+        final Random random = new Random(1);
+        for (int i = 0; i < 100000; ++i) {
+            final int key = random.nextInt(2000) - 1000;
+            if (random.nextInt(3) == 0) {
+                assertEquals(reference.remove(key), map.remove(key));
+            } else {
+                assertEquals(reference.put(key, i), map.put(key, i));
+            }
+        }
+        assertEquals(reference.size(), map.size());
+        for (int key = -1000; key < 1000; ++key) {
+            assertEquals(reference.get(key), map.get(key));
+        }
+        for (final int key : map.keys()) {
+            assertTrue(reference.containsKey(key));
+        }
+    }
+}
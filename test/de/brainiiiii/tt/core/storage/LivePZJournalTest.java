@@ -0,0 +1,197 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2014 Kilian Lütkemeyer <kilian@luetkemeyer.com>.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package de.brainiiiii.tt.core.storage;
+
+import de.brainiiiii.tt.core.LivePZAdjustment;
+import de.brainiiiii.tt.core.Player;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the recovery of {@link LivePZJournal}.
+ * 
+ * @author Kilian Lütkemeyer <kilian@luetkemeyer.com>
+ */
+public class LivePZJournalTest {
+    
+    private final static int BLOCK_SIZE = 256;
+    
+    private final static long SEGMENT_SIZE = 4096;
+    
+    private final static long SNAPSHOT_INTERVAL = 1000;
+    
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+    
+    private LivePZJournal open(final File directory) throws IOException {
+        return new LivePZJournal(directory, BLOCK_SIZE, SEGMENT_SIZE, SNAPSHOT_INTERVAL);
+    }
+    
+    private static void adjust(final LivePZJournal journal, final Map<Integer, Integer> reference, final int playerId, final int livepz, final LivePZAdjustment.AdjustmentType type) {
+        final Player p = new Player();
+        p.playerId = playerId;
+        final LivePZAdjustment a = new LivePZAdjustment();
+        a.set(p, livepz, type);
+        journal.onAdjustLivePZ(a);
+        final Integer old = reference.get(playerId);
+        reference.put(playerId, type == LivePZAdjustment.AdjustmentType.SET || old == null ? livepz : old + livepz);
+    }
+    
+    private static void check(final LivePZJournal journal, final Map<Integer, Integer> reference) {
+        assertEquals(reference.size(), journal.size());
+        for (final Map.Entry<Integer, Integer> e : reference.entrySet()) {
+            assertEquals(e.getValue().intValue(), journal.getLivePZ(e.getKey(), Integer.MIN_VALUE));
+        }
+    }
+    
+    private File lastSegment(final File directory) {
+        File last = null;
+        for (final File file : directory.listFiles()) {
+            if (file.getName().endsWith(".log") && (last == null || file.getName().compareTo(last.getName()) > 0)) {
+                last = file;
+            }
+        }
+        return last;
+    }
+    
+    @Test
+    public void testRecovery() throws IOException {
+        final File directory = this.folder.newFolder();
+        final Map<Integer, Integer> reference = new HashMap<>();
+        final Random random = new Random(3);
+        try (LivePZJournal journal = this.open(directory)) {
+            for (int i = 0; i < 5000; ++i) {
+                final boolean set = random.nextInt(10) == 0;
+                adjust(journal, reference, random.nextInt(300) * 7919 - 1000, 
+                        set ? 1000 + random.nextInt(1000) : random.nextInt(40) - 20, 
+                        set ? LivePZAdjustment.AdjustmentType.SET : LivePZAdjustment.AdjustmentType.CHANGE);
+            }
+            check(journal, reference);
+        }
+        
+        try (LivePZJournal journal = this.open(directory)) {
+            // only the adjustments since the last snapshot are replayed, a 
+            // snapshot is taken with the first block after the interval
+            assertTrue(journal.getRecoveredCount() < SNAPSHOT_INTERVAL + BLOCK_SIZE);
+            check(journal, reference);
+            journal.snapshot();
+        }
+        
+        try (LivePZJournal journal = this.open(directory)) {
+            assertEquals(0, journal.getRecoveredCount());
+            check(journal, reference);
+        }
+    }
+    
+    @Test
+    public void testTornTail() throws IOException {
+        final File directory = this.folder.newFolder();
+        final Map<Integer, Integer> reference = new HashMap<>();
+        try (LivePZJournal journal = this.open(directory)) {
+            adjust(journal, reference, 1, 1500, LivePZAdjustment.AdjustmentType.SET);
+            adjust(journal, reference, 1, 5, LivePZAdjustment.AdjustmentType.CHANGE);
+        }
+        
+        // a block torn by a crash: its length exceeds the written bytes
+        final File segment = this.lastSegment(directory);
+        final long length = segment.length();
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(length);
+            file.writeInt(100);
+            file.writeInt(123);
+            file.write(new byte[30]);
+        }
+        
+        try (LivePZJournal journal = this.open(directory)) {
+            assertEquals(length, segment.length());
+            assertEquals(2, journal.getRecoveredCount());
+            check(journal, reference);
+            adjust(journal, reference, 2, 1200, LivePZAdjustment.AdjustmentType.SET);
+        }
+        
+        try (LivePZJournal journal = this.open(directory)) {
+            assertEquals(3, journal.getRecoveredCount());
+            check(journal, reference);
+        }
+    }
+    
+    @Test
+    public void testCorruptBlock() throws IOException {
+        final File directory = this.folder.newFolder();
+        final Map<Integer, Integer> reference = new HashMap<>();
+        try (LivePZJournal journal = this.open(directory)) {
+            adjust(journal, reference, 1, 1500, LivePZAdjustment.AdjustmentType.SET);
+            journal.flush();
+            adjust(journal, reference, 1, 5, LivePZAdjustment.AdjustmentType.CHANGE);
+        }
+        
+        // the checksum of the second block fails, so it is dropped
+        final File segment = this.lastSegment(directory);
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.seek(file.length() - 1);
+            final int last = file.read();
+            file.seek(file.length() - 1);
+            file.write(last ^ 0xff);
+        }
+        
+        try (LivePZJournal journal = this.open(directory)) {
+            assertEquals(1, journal.getRecoveredCount());
+            assertEquals(1500, journal.getLivePZ(1, 0));
+        }
+    }
+    
+    @Test
+    public void testCommitDelay() throws IOException, InterruptedException {
+        final File directory = this.folder.newFolder();
+        final Map<Integer, Integer> reference = new HashMap<>();
+        try (LivePZJournal journal = this.open(directory)) {
+            journal.setMaxCommitDelay(10, TimeUnit.MILLISECONDS);
+            final File segment = this.lastSegment(directory);
+            final long empty = segment.length();
+            adjust(journal, reference, 1, 1500, LivePZAdjustment.AdjustmentType.SET);
+            
+            // the block is written by the timer without a flush
+            final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (segment.length() == empty && System.nanoTime() < end) {
+                Thread.sleep(5);
+            }
+            assertTrue(segment.length() > empty);
+        }
+        
+        try (LivePZJournal journal = this.open(directory)) {
+            assertEquals(1, journal.getRecoveredCount());
+            check(journal, reference);
+        }
+    }
+}